@@ -1,5 +1,6 @@
 package edu.depauw.algorithms;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Deque;
@@ -8,22 +9,32 @@ import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import edu.depauw.algorithms.details.ArrayDequeDetails;
 
 /**
  * Reimplementation of java.util.ArrayDeque for instructional purposes. Based on
  * the real thing, but with substantial editing. This shows only the essential
- * parts of the dynamic array reallocation implementation of a circular queue,
- * with no optimization cleverness.
+ * parts of the dynamic array reallocation implementation of a circular queue.
+ *
+ * The capacity is always a power of two, so wrapping an index around the end of
+ * the array is a mask with {@code capacity - 1} rather than a remainder (an
+ * integer division), and growing doubles the capacity.
+ *
+ * A deque made by {@link #bounded(int)} has a fixed capacity instead: it never
+ * reallocates, and adding to it when it is full discards the element at the
+ * other end, so that with {@code addLast} it keeps a sliding window of the
+ * most recent elements. Any deque supports {@link #get(int)} in constant time
+ * and {@link #drainTo(Object[])} with at most two array copies.
  *
  * The iterators are not fail-fast.
  *
  * @author bhoward
  */
 public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
-    private static final int DEFAULT_CAPACITY = 10;
-    private static final double GROWTH_FACTOR = 1.5;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
 
     private Object[] data;
 
@@ -47,13 +58,25 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     private int size;
 
+    /**
+     * The size at which the next addition must make room: data.length if the
+     * deque grows, or the fixed capacity if it is bounded.
+     */
+    private int limit;
+
+    /**
+     * Whether an addition to a full deque discards the element at the other end,
+     * rather than growing the array.
+     */
+    private final boolean bounded;
+
     /** debugging */
     void checkInvariants() {
         try {
             int capacity = data.length;
             assert 0 <= head && head < capacity;
             assert 0 <= tail && tail < capacity;
-            assert capacity > 0;
+            assert capacity > 0 && (capacity & (capacity - 1)) == 0;
             assert size() <= capacity;
             assert data[tail] == null;
         } catch (Throwable t) {
@@ -73,10 +96,12 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     public ArrayDeque(int initialCapacity) {
         if (initialCapacity >= 0) {
-            this.data = new Object[Math.min(initialCapacity, 1)];
+            this.data = new Object[capacityFor(initialCapacity)];
             this.head = 0;
             this.tail = 0;
             this.size = 0;
+            this.limit = data.length;
+            this.bounded = false;
         } else {
             throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
         }
@@ -105,60 +130,96 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
         }
     }
 
+    private ArrayDeque(int capacity, boolean bounded) {
+        this.data = new Object[capacityFor(capacity)];
+        this.head = 0;
+        this.tail = 0;
+        this.size = 0;
+        this.limit = capacity;
+        this.bounded = bounded;
+    }
+
     /**
-     * Increases the capacity of this deque by at least the given amount.
+     * Constructs an empty deque that holds at most the given number of elements.
+     * It never grows: adding an element to either end of a full deque first
+     * discards the element at the other end, so {@code addLast} overwrites the
+     * oldest element.
+     *
+     * @param <E>      the type of elements
+     * @param capacity the maximum number of elements
+     * @return a new bounded deque
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public static <E> ArrayDeque<E> bounded(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        return new ArrayDeque<>(capacity, true);
+    }
+
+    /**
+     * Returns the least power of two that is at least the given capacity (and at
+     * least 1).
+     */
+    private static int capacityFor(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Sorry, deque too big");
+        }
+        return (capacity <= 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Increases the capacity of this deque by at least the given amount, to the
+     * next power of two. The elements are copied to the start of the new array
+     * in order, so a deque that wrapped around the end of the old array no
+     * longer does.
      *
      * @param needed the required minimum extra capacity; must be positive
      */
     private void grow(int needed) {
         final int oldCapacity = data.length;
-        final int newCapacity = Math.max(oldCapacity + needed, (int) (oldCapacity * GROWTH_FACTOR));
-        data = Arrays.copyOf(data, newCapacity);
-
-        // If active data wraps around end of array, shift the part from head to the end
-        // up to new end
-        if (tail <= head && size != 0) {
-            int shift = newCapacity - oldCapacity;
-            System.arraycopy(data, head, data, head + shift, oldCapacity - head);
-            for (int i = head; i < head + shift; i++) {
-                data[i] = null;
-            }
-            head += shift;
-        }
+        final int newCapacity = capacityFor(Math.max(oldCapacity + needed, 2 * oldCapacity));
+        Object[] newData = new Object[newCapacity];
+        int front = Math.min(size, oldCapacity - head);
+        System.arraycopy(data, head, newData, 0, front);
+        System.arraycopy(data, 0, newData, front, size - front);
+        data = newData;
+        head = 0;
+        tail = size;
+        limit = newCapacity;
     }
 
     /**
-     * Circularly increments i, mod modulus. Precondition and postcondition: 0 <= i
-     * < modulus.
+     * Circularly increments i, where mask is the capacity minus one.
+     * Precondition and postcondition: 0 <= i <= mask.
      */
-    private static final int inc(int i, int modulus) {
-        return (i + 1) % modulus;
+    private static final int inc(int i, int mask) {
+        return (i + 1) & mask;
     }
 
     /**
-     * Adds j to i, mod modulus. Precondition: 0 <= i < modulus, 0 <= j.
+     * Adds j to i, circularly. Precondition: 0 <= i <= mask, 0 <= j.
      */
-    private static final int add(int i, int j, int modulus) {
-        return (i + j) % modulus;
+    private static final int add(int i, int j, int mask) {
+        return (i + j) & mask;
     }
 
     /**
-     * Circularly decrements i, mod modulus. Precondition and postcondition: 0 <= i
-     * < modulus.
+     * Circularly decrements i. Precondition and postcondition: 0 <= i <= mask.
      */
-    private static final int dec(int i, int modulus) {
-        return (i - 1 + modulus) % modulus;
+    private static final int dec(int i, int mask) {
+        return (i - 1) & mask;
     }
 
     /**
-     * Subtracts j from i, mod modulus. Index i must be logically ahead of index j.
-     * Precondition: 0 <= i < modulus, 0 <= j < modulus.
+     * Subtracts j from i, circularly. Index i must be logically ahead of index j.
+     * Precondition: 0 <= i <= mask, 0 <= j <= mask.
      *
      * @return the "circular distance" from j to i; corner case i == j is
      *         disambiguated to "empty", returning 0.
      */
-    private static final int sub(int i, int j, int modulus) {
-        return (i - j + modulus) % modulus;
+    private static final int sub(int i, int j, int mask) {
+        return (i - j) & mask;
     }
 
     /**
@@ -186,10 +247,14 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     @Override
     public void addFirst(E e) {
-        if (size == data.length) {
-            grow(1);
+        if (size == limit) {
+            if (bounded) {
+                removeLast();
+            } else {
+                grow(1);
+            }
         }
-        head = dec(head, data.length);
+        head = dec(head, data.length - 1);
         data[head] = e;
         size++;
     }
@@ -204,11 +269,15 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     @Override
     public void addLast(E e) {
-        if (size == data.length) {
-            grow(1);
+        if (size == limit) {
+            if (bounded) {
+                removeFirst();
+            } else {
+                grow(1);
+            }
         }
         data[tail] = e;
-        tail = inc(tail, data.length);
+        tail = inc(tail, data.length - 1);
         size++;
     }
 
@@ -222,7 +291,7 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
         }
         E e = elementAt(head);
         data[head] = null;
-        head = inc(head, data.length);
+        head = inc(head, data.length - 1);
         size--;
         return e;
     }
@@ -235,7 +304,7 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
         if (size == 0) {
             throw new NoSuchElementException();
         }
-        tail = dec(tail, data.length);
+        tail = dec(tail, data.length - 1);
         E e = elementAt(tail);
         data[tail] = null;
         size--;
@@ -261,12 +330,79 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
         if (size == 0) {
             throw new NoSuchElementException();
         }
-        return elementAt(dec(tail, data.length));
+        return elementAt(dec(tail, data.length - 1));
     }
 
     /**
-     * Removes the element at the specified position in the elements array. Shifts
-     * elements from head to i forwards.
+     * Returns the element at the given position, counting from the first
+     * element (head), in constant time.
+     *
+     * @param index the position of the element, from 0 to {@code size() - 1}
+     * @return the element at that position
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public E get(int index) {
+        Objects.checkIndex(index, size);
+        return elementAt(add(head, index, data.length - 1));
+    }
+
+    /**
+     * Removes the first {@code min(size(), a.length)} elements of this deque and
+     * stores them in order at the start of the given array. The elements are
+     * moved with at most two {@code System.arraycopy} calls, one for each part
+     * of the deque on either side of the end of the array.
+     *
+     * @param a the array to fill
+     * @return the number of elements moved
+     * @throws ArrayStoreException if an element is not assignable to the
+     *                             component type of the array
+     */
+    public int drainTo(E[] a) {
+        final int n = Math.min(size, a.length);
+        copyElements(a, n);
+        final int front = Math.min(n, data.length - head);
+        Arrays.fill(data, head, head + front, null);
+        Arrays.fill(data, 0, n - front, null);
+        head = add(head, n, data.length - 1);
+        size -= n;
+        return n;
+    }
+
+    @Override
+    public Object[] toArray() {
+        Object[] a = new Object[size];
+        copyElements(a, size);
+        return a;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        if (a.length < size) {
+            a = (T[]) Array.newInstance(a.getClass().getComponentType(), size);
+        }
+        copyElements(a, size);
+        if (a.length > size) {
+            a[size] = null;
+        }
+        return a;
+    }
+
+    /**
+     * Copies the first n elements to the start of the given array.
+     */
+    private void copyElements(Object[] a, int n) {
+        final int front = Math.min(n, data.length - head);
+        System.arraycopy(data, head, a, 0, front);
+        System.arraycopy(data, 0, a, front, n - front);
+    }
+
+    /**
+     * Removes the element at the specified position in the elements array,
+     * shifting whichever of the segments before and after it is shorter: the
+     * elements from head to i forwards, or those from i to tail backwards. So
+     * it takes O(min(i, n - i)) time, where i is the element's position in the
+     * deque.
      *
      * <p>
      * This method is called delete rather than remove to emphasize that its
@@ -276,20 +412,124 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     private boolean delete(int i) {
         final int capacity = data.length;
-        // number of elements before to-be-deleted elt
-        final int front = sub(i, head, capacity);
-        // move front elements forwards
-        if (head <= i) {
-            System.arraycopy(data, head, data, head + 1, front);
-        } else { // Wrap around
-            System.arraycopy(data, 0, data, 1, i);
-            data[0] = data[capacity - 1];
-            System.arraycopy(data, head, data, head + 1, front - (i + 1));
+        final int mask = capacity - 1;
+        // number of elements before and after to-be-deleted elt
+        final int front = sub(i, head, mask);
+        final int back = size - front - 1;
+        if (front < back) {
+            // move front elements forwards
+            if (head <= i) {
+                System.arraycopy(data, head, data, head + 1, front);
+            } else { // Wrap around
+                System.arraycopy(data, 0, data, 1, i);
+                data[0] = data[capacity - 1];
+                System.arraycopy(data, head, data, head + 1, front - (i + 1));
+            }
+            data[head] = null;
+            head = inc(head, mask);
+            size--;
+            return false;
+        } else {
+            // move back elements backwards
+            final int last = dec(tail, mask);
+            if (i <= last) {
+                System.arraycopy(data, i + 1, data, i, back);
+            } else { // Wrap around
+                System.arraycopy(data, i + 1, data, i, mask - i);
+                data[mask] = data[0];
+                System.arraycopy(data, 1, data, 0, last);
+            }
+            data[last] = null;
+            tail = last;
+            size--;
+            return true;
         }
-        data[head] = null;
-        head = inc(head, capacity);
-        size--;
-        return false;
+    }
+
+    /**
+     * Removes all of the elements that satisfy the given predicate, in a single
+     * pass over the deque that slides each survivor back over the removed
+     * elements before it. This takes O(n) time, where deleting the elements one
+     * at a time could take O(n<sup>2</sup>).
+     *
+     * <p>
+     * If the predicate throws an exception, the elements it has not yet been
+     * asked about are kept, and the deque is left consistent.
+     *
+     * @param filter a predicate which returns {@code true} for elements to be
+     *               removed
+     * @return {@code true} if any elements were removed
+     */
+    @Override
+    public boolean removeIf(Predicate<? super E> filter) {
+        Objects.requireNonNull(filter);
+        return bulkRemove(filter);
+    }
+
+    /**
+     * Removes all of this deque's elements that are also contained in the
+     * specified collection, in O(n) calls to its {@code contains} method.
+     *
+     * @param c collection containing elements to be removed from this deque
+     * @return {@code true} if this deque changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return bulkRemove(e -> c.contains(e));
+    }
+
+    /**
+     * Retains only the elements in this deque that are contained in the
+     * specified collection, in O(n) calls to its {@code contains} method.
+     *
+     * @param c collection containing elements to be retained in this deque
+     * @return {@code true} if this deque changed as a result of the call
+     * @throws NullPointerException if the specified collection is null
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        Objects.requireNonNull(c);
+        return bulkRemove(e -> !c.contains(e));
+    }
+
+    /**
+     * Compacts the deque towards head, dropping the elements that satisfy the
+     * filter. Index r reads every element in turn, and index w is where the
+     * next survivor goes; afterwards the slots from w to the old tail are
+     * cleared and w becomes the new tail.
+     */
+    private boolean bulkRemove(Predicate<? super E> filter) {
+        final int mask = data.length - 1;
+        final int n = size;
+        int r = head;
+        int w = head;
+        int k = 0;
+        int kept = 0;
+        try {
+            for (; k < n; k++, r = inc(r, mask)) {
+                E e = elementAt(r);
+                if (!filter.test(e)) {
+                    data[w] = e;
+                    w = inc(w, mask);
+                    kept++;
+                }
+            }
+        } finally {
+            // if filter threw, keep the elements from r on
+            for (; k < n; k++, r = inc(r, mask)) {
+                data[w] = data[r];
+                w = inc(w, mask);
+                kept++;
+            }
+            for (int i = w, j = kept; j < n; i = inc(i, mask), j++) {
+                data[i] = null;
+            }
+            tail = w;
+            size = kept;
+        }
+        return kept < n;
     }
 
     /**
@@ -305,10 +545,10 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     @Override
     public boolean removeFirstOccurrence(Object o) {
-        Iterator<?> it = iterator();
-        while (it.hasNext()) {
-            if (Objects.equals(o, it.next())) {
-                it.remove();
+        final int mask = data.length - 1;
+        for (int k = 0, i = head; k < size; k++, i = inc(i, mask)) {
+            if (Objects.equals(o, data[i])) {
+                delete(i);
                 return true;
             }
         }
@@ -328,10 +568,10 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
      */
     @Override
     public boolean removeLastOccurrence(Object o) {
-        Iterator<?> it = descendingIterator();
-        while (it.hasNext()) {
-            if (Objects.equals(o, it.next())) {
-                it.remove();
+        final int mask = data.length - 1;
+        for (int k = 0, i = dec(tail, mask); k < size; k++, i = dec(i, mask)) {
+            if (Objects.equals(o, data[i])) {
+                delete(i);
                 return true;
             }
         }
@@ -385,7 +625,7 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
             }
             E e = elementAt(cursor);
             lastRet = cursor;
-            cursor = inc(cursor, data.length);
+            cursor = inc(cursor, data.length - 1);
             remaining--;
             return e;
         }
@@ -395,21 +635,23 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
             if (lastRet < 0) {
                 throw new IllegalStateException();
             }
-            delete(lastRet);
+            if (delete(lastRet)) {
+                cursor = dec(cursor, data.length - 1);
+            }
             lastRet = -1;
         }
 
         @Override
         public void forEachRemaining(Consumer<? super E> action) {
             for (int i = 0; i < remaining; i++) {
-                action.accept(elementAt(add(cursor, i, data.length)));
+                action.accept(elementAt(add(cursor, i, data.length - 1)));
             }
         }
     }
 
     private class DescendingIterator extends DeqIterator {
         DescendingIterator() {
-            cursor = dec(tail, data.length);
+            cursor = dec(tail, data.length - 1);
         }
 
         @Override
@@ -419,7 +661,7 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
             }
             E e = elementAt(cursor);
             lastRet = cursor;
-            cursor = dec(cursor, data.length);
+            cursor = dec(cursor, data.length - 1);
             remaining--;
             return e;
         }
@@ -429,15 +671,16 @@ public class ArrayDeque<E> extends ArrayDequeDetails<E> implements Deque<E> {
             if (lastRet < 0) {
                 throw new IllegalStateException();
             }
-            delete(lastRet);
-            cursor = inc(cursor, data.length);
+            if (!delete(lastRet)) {
+                cursor = inc(cursor, data.length - 1);
+            }
             lastRet = -1;
         }
 
         @Override
         public final void forEachRemaining(Consumer<? super E> action) {
             for (int i = 0; i < remaining; i++) {
-                action.accept(elementAt(sub(cursor, i, data.length)));
+                action.accept(elementAt(sub(cursor, i, data.length - 1)));
             }
         }
     }
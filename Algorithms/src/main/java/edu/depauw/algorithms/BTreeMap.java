@@ -0,0 +1,739 @@
+package edu.depauw.algorithms;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import edu.depauw.algorithms.details.NavigableMapDetails;
+
+/**
+ * B+-tree implementation of a navigable map. Each node is a pair of arrays
+ * holding up to {@code fanout} keys (and values, in a leaf) or children, so a
+ * lookup touches about log<sub>fanout</sub> n nodes and does its comparisons
+ * within contiguous arrays, instead of following one pointer per comparison
+ * as in {@link TreeMap}. All of the entries are in the leaves, which are
+ * linked to their neighbors in both directions for range scans.
+ *
+ * An internal node with c children holds c - 1 separator keys, where every key
+ * under child i is less than separator i, and every key under child i + 1 is
+ * at least separator i. Every node but the root has at least half of the
+ * fanout of keys or children; an insertion into a full node splits it in two,
+ * and a removal from a node at the minimum borrows from a sibling or merges
+ * with it.
+ *
+ * Lookups and updates take O(log n) time. The views and the remaining
+ * {@code NavigableMap} methods come from {@link NavigableMapDetails}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+public class BTreeMap<K, V> extends NavigableMapDetails<K, V> {
+    private static final int DEFAULT_FANOUT = 64;
+
+    private final Comparator<? super K> comparator;
+    private final int fanout; // maximum number of keys in a leaf, or children in an internal node
+    private Node root; // null when the map is empty
+    private Leaf head, tail; // first and last leaves
+    private int size;
+    private int changes; // number of keys added or removed, for iterators to notice
+
+    // the internal nodes on the path to the leaf being updated, and the child
+    // taken at each; only basePut and baseRemove record a path, so that reads
+    // do not write to the map
+    private Internal[] pathNodes;
+    private int[] pathIndex;
+    private int pathDepth;
+
+    private abstract static class Node {
+        int n; // number of keys in a leaf, or children in an internal node
+    }
+
+    private static final class Leaf extends Node {
+        final Object[] keys;
+        final Object[] values;
+        Leaf prev, next;
+
+        Leaf(int fanout) {
+            this.keys = new Object[fanout];
+            this.values = new Object[fanout];
+        }
+    }
+
+    private static final class Internal extends Node {
+        final Object[] keys; // keys[i] separates children[i] and children[i + 1]
+        final Node[] children;
+
+        Internal(int fanout) {
+            this.keys = new Object[fanout - 1];
+            this.children = new Node[fanout];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public BTreeMap() {
+        this((Comparator<? super K>) Comparator.naturalOrder(), DEFAULT_FANOUT);
+    }
+
+    public BTreeMap(Comparator<? super K> comparator) {
+        this(comparator, DEFAULT_FANOUT);
+    }
+
+    /**
+     * Constructs an empty map with the given ordering and node width.
+     *
+     * @param comparator the ordering of the keys
+     * @param fanout     the most keys in a leaf, and children in an internal node
+     * @throws IllegalArgumentException if {@code fanout < 4}
+     */
+    public BTreeMap(Comparator<? super K> comparator, int fanout) {
+        if (fanout < 4) {
+            throw new IllegalArgumentException("fanout must be at least 4");
+        }
+        this.comparator = comparator;
+        this.fanout = fanout;
+        this.root = null;
+        this.head = null;
+        this.tail = null;
+        this.size = 0;
+        this.pathNodes = new Internal[8];
+        this.pathIndex = new int[8];
+    }
+
+    public BTreeMap(Map<? extends K, ? extends V> map) {
+        this();
+        putAll(map);
+    }
+
+    void checkInvariants() {
+        int[] count = new int[1];
+        Leaf[] last = new Leaf[1];
+        if (root != null) {
+            checkNode(root, null, null, true, count, last);
+        }
+        assert count[0] == size;
+        assert last[0] == tail;
+        assert (root == null) == (head == null);
+        assert head == null || head.prev == null;
+        assert tail == null || tail.next == null;
+    }
+
+    // check the subtree at node, whose keys are in [lo, hi), where a null bound
+    // is unlimited; count its entries, and check that its leaves continue the
+    // list from last[0]
+    private void checkNode(Node node, Object lo, Object hi, boolean isRoot, int[] count, Leaf[] last) {
+        assert node.n <= fanout;
+        assert isRoot || node.n >= fanout / 2;
+        if (node instanceof Leaf leaf) {
+            assert leaf.n > 0;
+            for (int i = 0; i < leaf.n; i++) {
+                assert lo == null || compare(lo, leaf.keys[i]) <= 0;
+                assert hi == null || compare(leaf.keys[i], hi) < 0;
+                assert i == 0 || compare(leaf.keys[i - 1], leaf.keys[i]) < 0;
+            }
+            assert leaf.prev == last[0];
+            assert (last[0] == null) ? head == leaf : last[0].next == leaf;
+            last[0] = leaf;
+            count[0] += leaf.n;
+        } else {
+            var internal = (Internal) node;
+            assert internal.n >= 2;
+            for (int i = 0; i < internal.n; i++) {
+                Object childLo = (i == 0) ? lo : internal.keys[i - 1];
+                Object childHi = (i == internal.n - 1) ? hi : internal.keys[i];
+                checkNode(internal.children[i], childLo, childHi, false, count, last);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator.compare((K) a, (K) b);
+    }
+
+    // index of key in leaf, or -(insertion point) - 1 if it is not there
+    private int search(Leaf leaf, Object key) {
+        int lo = 0;
+        int hi = leaf.n - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int c = compare(leaf.keys[mid], key);
+            if (c < 0) {
+                lo = mid + 1;
+            } else if (c > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    // index of the child of node whose subtree would hold key
+    private int childIndex(Internal node, Object key) {
+        int lo = 0;
+        int hi = node.n - 2;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compare(key, node.keys[mid]) < 0) {
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    // descend to the leaf that would hold key; the map must not be empty
+    private Leaf findLeaf(Object key) {
+        var node = root;
+        while (node instanceof Internal internal) {
+            node = internal.children[childIndex(internal, key)];
+        }
+        return (Leaf) node;
+    }
+
+    // descend to the leaf that would hold key, recording the path in pathNodes,
+    // pathIndex, and pathDepth; the map must not be empty
+    private Leaf findPath(Object key) {
+        var node = root;
+        int depth = 0;
+        while (node instanceof Internal internal) {
+            int i = childIndex(internal, key);
+            if (depth == pathNodes.length) {
+                pathNodes = Arrays.copyOf(pathNodes, 2 * depth);
+                pathIndex = Arrays.copyOf(pathIndex, 2 * depth);
+            }
+            pathNodes[depth] = internal;
+            pathIndex[depth] = i;
+            depth++;
+            node = internal.children[i];
+        }
+        pathDepth = depth;
+        return (Leaf) node;
+    }
+
+    // ------------------------------------------------------------------------
+    // Primitive operations for NavigableMapDetails
+
+    @Override
+    protected Comparator<? super K> keyOrder() {
+        return comparator;
+    }
+
+    @Override
+    protected int baseSize() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V baseGet(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findLeaf(key);
+        int i = search(leaf, key);
+        return (i >= 0) ? (V) leaf.values[i] : null;
+    }
+
+    @Override
+    protected boolean baseContainsKey(K key) {
+        return root != null && search(findLeaf(key), key) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V basePut(K key, V value) {
+        if (root == null) {
+            var leaf = new Leaf(fanout);
+            leaf.keys[0] = key;
+            leaf.values[0] = value;
+            leaf.n = 1;
+            root = head = tail = leaf;
+            size = 1;
+            changes++;
+            return null;
+        }
+
+        var leaf = findPath(key);
+        int i = search(leaf, key);
+        if (i >= 0) {
+            var oldValue = (V) leaf.values[i];
+            leaf.values[i] = value;
+            return oldValue;
+        }
+        i = -(i + 1);
+        size++;
+        changes++;
+
+        if (leaf.n < fanout) {
+            insertAt(leaf, i, key, value);
+            return null;
+        }
+
+        // split the full leaf, then the full ancestors, from the bottom up
+        var right = splitLeaf(leaf, i, key, value);
+        Object separator = right.keys[0];
+        Node newChild = right;
+        for (int depth = pathDepth - 1; depth >= 0; depth--) {
+            var parent = pathNodes[depth];
+            int index = pathIndex[depth];
+            if (parent.n < fanout) {
+                insertChild(parent, index, separator, newChild);
+                return null;
+            }
+            var split = splitInternal(parent, index, separator, newChild);
+            separator = split.separator();
+            newChild = split.right();
+        }
+
+        var newRoot = new Internal(fanout);
+        newRoot.children[0] = root;
+        newRoot.children[1] = newChild;
+        newRoot.keys[0] = separator;
+        newRoot.n = 2;
+        root = newRoot;
+        return null;
+    }
+
+    private void insertAt(Leaf leaf, int i, Object key, Object value) {
+        System.arraycopy(leaf.keys, i, leaf.keys, i + 1, leaf.n - i);
+        System.arraycopy(leaf.values, i, leaf.values, i + 1, leaf.n - i);
+        leaf.keys[i] = key;
+        leaf.values[i] = value;
+        leaf.n++;
+    }
+
+    // split a full leaf while inserting key at i; return the new right half
+    private Leaf splitLeaf(Leaf leaf, int i, Object key, Object value) {
+        var right = new Leaf(fanout);
+        int total = fanout + 1;
+        int leftCount = (total + 1) / 2;
+        if (i < leftCount) {
+            // the new key goes left: move the last fanout - leftCount + 1 keys over
+            int move = fanout - (leftCount - 1);
+            System.arraycopy(leaf.keys, leftCount - 1, right.keys, 0, move);
+            System.arraycopy(leaf.values, leftCount - 1, right.values, 0, move);
+            Arrays.fill(leaf.keys, leftCount - 1, fanout, null);
+            Arrays.fill(leaf.values, leftCount - 1, fanout, null);
+            leaf.n = leftCount - 1;
+            right.n = move;
+            insertAt(leaf, i, key, value);
+        } else {
+            int move = fanout - leftCount;
+            System.arraycopy(leaf.keys, leftCount, right.keys, 0, move);
+            System.arraycopy(leaf.values, leftCount, right.values, 0, move);
+            Arrays.fill(leaf.keys, leftCount, fanout, null);
+            Arrays.fill(leaf.values, leftCount, fanout, null);
+            leaf.n = leftCount;
+            right.n = move;
+            insertAt(right, i - leftCount, key, value);
+        }
+
+        right.next = leaf.next;
+        right.prev = leaf;
+        if (leaf.next != null) {
+            leaf.next.prev = right;
+        } else {
+            tail = right;
+        }
+        leaf.next = right;
+        return right;
+    }
+
+    // insert child just after children[index], with separator before it
+    private void insertChild(Internal node, int index, Object separator, Node child) {
+        System.arraycopy(node.keys, index, node.keys, index + 1, node.n - 1 - index);
+        System.arraycopy(node.children, index + 1, node.children, index + 2, node.n - 1 - index);
+        node.keys[index] = separator;
+        node.children[index + 1] = child;
+        node.n++;
+    }
+
+    // the new right half of a split internal node, and the key between the halves
+    private record Split(Object separator, Internal right) {}
+
+    // split a full internal node while inserting child after children[index];
+    // return the new right half and the key that moves up to the parent
+    private Split splitInternal(Internal node, int index, Object separator, Node child) {
+        // lay the fanout + 1 children and fanout keys out in order, then divide
+        int total = fanout + 1;
+        Object[] keys = new Object[fanout];
+        Node[] children = new Node[total];
+        System.arraycopy(node.keys, 0, keys, 0, index);
+        keys[index] = separator;
+        System.arraycopy(node.keys, index, keys, index + 1, fanout - 1 - index);
+        System.arraycopy(node.children, 0, children, 0, index + 1);
+        children[index + 1] = child;
+        System.arraycopy(node.children, index + 1, children, index + 2, fanout - 1 - index);
+
+        int leftCount = (total + 1) / 2;
+        var right = new Internal(fanout);
+        Arrays.fill(node.keys, null);
+        Arrays.fill(node.children, null);
+        System.arraycopy(children, 0, node.children, 0, leftCount);
+        System.arraycopy(keys, 0, node.keys, 0, leftCount - 1);
+        node.n = leftCount;
+        System.arraycopy(children, leftCount, right.children, 0, total - leftCount);
+        System.arraycopy(keys, leftCount, right.keys, 0, total - leftCount - 1);
+        right.n = total - leftCount;
+        return new Split(keys[leftCount - 1], right);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V baseRemove(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findPath(key);
+        int i = search(leaf, key);
+        if (i < 0) {
+            return null;
+        }
+        var oldValue = (V) leaf.values[i];
+        System.arraycopy(leaf.keys, i + 1, leaf.keys, i, leaf.n - i - 1);
+        System.arraycopy(leaf.values, i + 1, leaf.values, i, leaf.n - i - 1);
+        leaf.n--;
+        leaf.keys[leaf.n] = null;
+        leaf.values[leaf.n] = null;
+        size--;
+        changes++;
+
+        if (size == 0) {
+            clear();
+            return oldValue;
+        }
+
+        // repair underflow from the bottom up
+        Node node = leaf;
+        for (int depth = pathDepth - 1; depth >= 0 && node.n < fanout / 2; depth--) {
+            var parent = pathNodes[depth];
+            int index = pathIndex[depth];
+            if (node instanceof Leaf l) {
+                fixLeaf(parent, index, l);
+            } else {
+                fixInternal(parent, index, (Internal) node);
+            }
+            node = parent;
+        }
+
+        if (root instanceof Internal r && r.n == 1) {
+            root = r.children[0];
+        }
+        return oldValue;
+    }
+
+    // leaf, children[index] of parent, has too few keys
+    private void fixLeaf(Internal parent, int index, Leaf leaf) {
+        Leaf left = (index > 0) ? (Leaf) parent.children[index - 1] : null;
+        Leaf right = (index < parent.n - 1) ? (Leaf) parent.children[index + 1] : null;
+        if (left != null && left.n > fanout / 2) {
+            // borrow the last entry of the left sibling
+            left.n--;
+            insertAt(leaf, 0, left.keys[left.n], left.values[left.n]);
+            left.keys[left.n] = null;
+            left.values[left.n] = null;
+            parent.keys[index - 1] = leaf.keys[0];
+        } else if (right != null && right.n > fanout / 2) {
+            // borrow the first entry of the right sibling
+            leaf.keys[leaf.n] = right.keys[0];
+            leaf.values[leaf.n] = right.values[0];
+            leaf.n++;
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 1);
+            System.arraycopy(right.values, 1, right.values, 0, right.n - 1);
+            right.n--;
+            right.keys[right.n] = null;
+            right.values[right.n] = null;
+            parent.keys[index] = right.keys[0];
+        } else if (left != null) {
+            mergeLeaves(parent, index - 1, left, leaf);
+        } else {
+            mergeLeaves(parent, index, leaf, right);
+        }
+    }
+
+    // move all of right into left, its neighbor, and drop right from parent
+    private void mergeLeaves(Internal parent, int leftIndex, Leaf left, Leaf right) {
+        System.arraycopy(right.keys, 0, left.keys, left.n, right.n);
+        System.arraycopy(right.values, 0, left.values, left.n, right.n);
+        left.n += right.n;
+        left.next = right.next;
+        if (right.next != null) {
+            right.next.prev = left;
+        } else {
+            tail = left;
+        }
+        removeChild(parent, leftIndex);
+    }
+
+    // node, children[index] of parent, has too few children
+    private void fixInternal(Internal parent, int index, Internal node) {
+        Internal left = (index > 0) ? (Internal) parent.children[index - 1] : null;
+        Internal right = (index < parent.n - 1) ? (Internal) parent.children[index + 1] : null;
+        if (left != null && left.n > fanout / 2) {
+            // rotate the last child of the left sibling through the parent
+            System.arraycopy(node.keys, 0, node.keys, 1, node.n - 1);
+            System.arraycopy(node.children, 0, node.children, 1, node.n);
+            node.keys[0] = parent.keys[index - 1];
+            node.children[0] = left.children[left.n - 1];
+            node.n++;
+            parent.keys[index - 1] = left.keys[left.n - 2];
+            left.keys[left.n - 2] = null;
+            left.children[left.n - 1] = null;
+            left.n--;
+        } else if (right != null && right.n > fanout / 2) {
+            // rotate the first child of the right sibling through the parent
+            node.keys[node.n - 1] = parent.keys[index];
+            node.children[node.n] = right.children[0];
+            node.n++;
+            parent.keys[index] = right.keys[0];
+            System.arraycopy(right.keys, 1, right.keys, 0, right.n - 2);
+            System.arraycopy(right.children, 1, right.children, 0, right.n - 1);
+            right.keys[right.n - 2] = null;
+            right.children[right.n - 1] = null;
+            right.n--;
+        } else if (left != null) {
+            mergeInternal(parent, index - 1, left, node);
+        } else {
+            mergeInternal(parent, index, node, right);
+        }
+    }
+
+    // move the separator and all of right into left, and drop right from parent
+    private void mergeInternal(Internal parent, int leftIndex, Internal left, Internal right) {
+        left.keys[left.n - 1] = parent.keys[leftIndex];
+        System.arraycopy(right.keys, 0, left.keys, left.n, right.n - 1);
+        System.arraycopy(right.children, 0, left.children, left.n, right.n);
+        left.n += right.n;
+        removeChild(parent, leftIndex);
+    }
+
+    // remove children[leftIndex + 1] of parent and the separator before it
+    private void removeChild(Internal parent, int leftIndex) {
+        System.arraycopy(parent.keys, leftIndex + 1, parent.keys, leftIndex, parent.n - 2 - leftIndex);
+        System.arraycopy(parent.children, leftIndex + 2, parent.children, leftIndex + 1, parent.n - 2 - leftIndex);
+        parent.n--;
+        parent.keys[parent.n - 1] = null;
+        parent.children[parent.n] = null;
+    }
+
+    @Override
+    protected void baseClear() {
+        root = null;
+        head = null;
+        tail = null;
+        size = 0;
+        changes++;
+    }
+
+    // ------------------------------------------------------------------------
+    // Navigation
+
+    /**
+     * A live entry, at a position in a leaf. It is valid until the next
+     * structural change to the map, so it is only used to find a starting
+     * position or to be copied by {@link NavigableMapDetails}.
+     */
+    private final class EntryRef implements Map.Entry<K, V> {
+        private final Leaf leaf;
+        private final int index;
+
+        EntryRef(Leaf leaf, int index) {
+            this.leaf = leaf;
+            this.index = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public K getKey() {
+            return (K) leaf.keys[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public V getValue() {
+            return (V) leaf.values[index];
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = getValue();
+            leaf.values[index] = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && Objects.equals(getKey(), e.getKey())
+                    && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    // the entry at position i of leaf, stepping to a neighboring leaf if i is
+    // just off either end
+    private EntryRef at(Leaf leaf, int i) {
+        if (i < 0) {
+            leaf = leaf.prev;
+            return (leaf == null) ? null : new EntryRef(leaf, leaf.n - 1);
+        }
+        if (i >= leaf.n) {
+            leaf = leaf.next;
+            return (leaf == null) ? null : new EntryRef(leaf, 0);
+        }
+        return new EntryRef(leaf, i);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFirst() {
+        return (head == null) ? null : new EntryRef(head, 0);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLast() {
+        return (tail == null) ? null : new EntryRef(tail, tail.n - 1);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLower(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findLeaf(key);
+        int i = search(leaf, key);
+        return at(leaf, (i >= 0) ? i - 1 : -(i + 1) - 1);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFloor(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findLeaf(key);
+        int i = search(leaf, key);
+        return at(leaf, (i >= 0) ? i : -(i + 1) - 1);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseCeiling(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findLeaf(key);
+        int i = search(leaf, key);
+        return at(leaf, (i >= 0) ? i : -(i + 1));
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseHigher(K key) {
+        if (root == null) {
+            return null;
+        }
+        var leaf = findLeaf(key);
+        int i = search(leaf, key);
+        return at(leaf, (i >= 0) ? i + 1 : -(i + 1));
+    }
+
+    @Override
+    protected Iterator<Map.Entry<K, V>> baseIterator(K from, boolean inclusive, boolean descending) {
+        return new LeafIterator(from, inclusive, descending);
+    }
+
+    /**
+     * An entry returned by an iterator: a copy of the mapping, which stays the
+     * same when the map changes, and whose setValue writes through with put.
+     */
+    private final class SnapshotEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        SnapshotEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    /**
+     * Walks the linked leaves from a starting position. If keys are added to or
+     * removed from the map during the walk, entries may shift within a leaf or
+     * move to another one, so the iterator then finds its place again by
+     * searching for the entry after the last one that it returned.
+     */
+    private final class LeafIterator implements Iterator<Map.Entry<K, V>> {
+        private final boolean descending;
+        private Leaf leaf;
+        private int index;
+        private K from; // the walk continues from here: the last key returned, or the start
+        private boolean inclusive; // whether the walk may return from itself
+        private int expectedChanges;
+
+        LeafIterator(K from, boolean inclusive, boolean descending) {
+            this.descending = descending;
+            this.from = from;
+            this.inclusive = inclusive;
+            seek();
+        }
+
+        // position at the first entry of the walk from the key from
+        private void seek() {
+            EntryRef start;
+            if (from == null) {
+                start = (EntryRef) (descending ? baseLast() : baseFirst());
+            } else if (descending) {
+                start = (EntryRef) (inclusive ? baseFloor(from) : baseLower(from));
+            } else {
+                start = (EntryRef) (inclusive ? baseCeiling(from) : baseHigher(from));
+            }
+            leaf = (start == null) ? null : start.leaf;
+            index = (start == null) ? 0 : start.index;
+            expectedChanges = changes;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (expectedChanges != changes) {
+                seek();
+            }
+            return leaf != null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Map.Entry<K, V> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            var entry = new SnapshotEntry((K) leaf.keys[index], (V) leaf.values[index]);
+            from = entry.getKey();
+            inclusive = false;
+            if (descending) {
+                if (--index < 0) {
+                    leaf = leaf.prev;
+                    index = (leaf == null) ? 0 : leaf.n - 1;
+                }
+            } else if (++index >= leaf.n) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,584 @@
+package edu.depauw.algorithms;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.depauw.algorithms.details.NavigableMapDetails;
+
+/**
+ * Thread-safe navigable map, as a lazy skip list (Herlihy, Lev, Luchangco, and
+ * Shavit, "A Simple Optimistic Skiplist Algorithm", 2007). Each node is on the
+ * bottom list, and on each list above it with probability 1/2, so a search
+ * skips over about half of the remaining nodes at each level and takes
+ * expected O(log n) steps.
+ *
+ * Lookups, navigation, and iteration take no locks. An insertion or removal
+ * searches without locks, then locks only the predecessors of its node at each
+ * level, checks that they are still unremoved and still point where the search
+ * found, and retries the search if not. A mapping is removed at the moment its
+ * node's value is swapped to null, and updates of an existing mapping swap the
+ * value in place; so null values are not allowed.
+ *
+ * The iterators and views are weakly consistent: they never throw
+ * {@code ConcurrentModificationException}, and they reflect every change made
+ * before they were created, and maybe some made after. As with the views of
+ * {@link TreeMap}, the submap, descending, and key set views are backed by the
+ * map; they come from {@link NavigableMapDetails}. The size of a submap view
+ * is found by counting its entries.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+public class ConcurrentSkipListMap<K, V> extends NavigableMapDetails<K, V> implements ConcurrentMap<K, V> {
+    private static final int MAX_LEVEL = 32;
+
+    private final Comparator<? super K> comparator;
+    private final Node head; // sentinel before every key, on every level
+    private final LongAdder count;
+
+    private static final class Node {
+        final Object key;
+        volatile Object value; // null once removed
+        final Node[] next; // the following node on each level, read through NEXT
+        final int topLevel;
+        final ReentrantLock lock;
+        volatile boolean marked; // set while the node is being unlinked
+        volatile boolean fullyLinked; // set once the node is on all of its levels
+
+        Node(Object key, Object value, int topLevel) {
+            this.key = key;
+            this.value = value;
+            this.next = new Node[topLevel + 1];
+            this.topLevel = topLevel;
+            this.lock = new ReentrantLock();
+        }
+    }
+
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Node[].class);
+    private static final VarHandle VALUE;
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static Node next(Node node, int level) {
+        return (Node) NEXT.getVolatile(node.next, level);
+    }
+
+    private static void setNext(Node node, int level, Node next) {
+        NEXT.setVolatile(node.next, level, next);
+    }
+
+    @SuppressWarnings("unchecked")
+    public ConcurrentSkipListMap() {
+        this((Comparator<? super K>) Comparator.naturalOrder());
+    }
+
+    public ConcurrentSkipListMap(Comparator<? super K> comparator) {
+        this.comparator = comparator;
+        this.head = new Node(null, null, MAX_LEVEL - 1);
+        this.head.fullyLinked = true;
+        this.count = new LongAdder();
+    }
+
+    public ConcurrentSkipListMap(Map<? extends K, ? extends V> map) {
+        this();
+        putAll(map);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Object a, Object b) {
+        return comparator.compare((K) a, (K) b);
+    }
+
+    private static int randomLevel() {
+        return Integer.numberOfTrailingZeros(ThreadLocalRandom.current().nextInt() | (1 << (MAX_LEVEL - 1)));
+    }
+
+    /**
+     * Fills in the last node before key (preds) and the node after that
+     * (succs) on each level, and returns the highest level on which a node
+     * with key was found, or -1 if there is none.
+     */
+    private int find(Object key, Node[] preds, Node[] succs) {
+        int found = -1;
+        var pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            var curr = next(pred, level);
+            int c = 1;
+            while (curr != null && (c = compare(key, curr.key)) > 0) {
+                pred = curr;
+                curr = next(pred, level);
+            }
+            if (found == -1 && curr != null && c == 0) {
+                found = level;
+            }
+            preds[level] = pred;
+            succs[level] = curr;
+        }
+        return found;
+    }
+
+    // the node with key, or null
+    private Node findNode(Object key) {
+        var pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            var curr = next(pred, level);
+            while (curr != null) {
+                int c = compare(key, curr.key);
+                if (c == 0) {
+                    return curr;
+                } else if (c < 0) {
+                    break;
+                }
+                pred = curr;
+                curr = next(pred, level);
+            }
+        }
+        return null;
+    }
+
+    // the current value of a node, or null if it is not (or no longer) in the map
+    private static Object liveValue(Node node) {
+        return node.fullyLinked ? node.value : null;
+    }
+
+    // ------------------------------------------------------------------------
+    // Updates
+
+    private static final int PUT = 0, PUT_IF_ABSENT = 1, REPLACE = 2;
+
+    /**
+     * Maps key to value, as in {@code put}, {@code putIfAbsent}, or
+     * {@code replace}, depending on mode. Returns the previous value, or null
+     * if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    private V doPut(K key, V value, int mode) {
+        Objects.requireNonNull(key);
+        Objects.requireNonNull(value);
+        var preds = new Node[MAX_LEVEL];
+        var succs = new Node[MAX_LEVEL];
+        int topLevel = -1;
+        for (;;) {
+            int found = find(key, preds, succs);
+            if (found != -1) {
+                var node = succs[found];
+                if (!node.marked) {
+                    while (!node.fullyLinked) {
+                        Thread.onSpinWait();
+                    }
+                    for (;;) {
+                        var old = node.value;
+                        if (old == null) {
+                            break; // being removed; wait for it to be unlinked
+                        }
+                        if (mode == PUT_IF_ABSENT || VALUE.compareAndSet(node, old, value)) {
+                            return (V) old;
+                        }
+                    }
+                }
+                Thread.onSpinWait();
+                continue;
+            }
+            if (mode == REPLACE) {
+                return null;
+            }
+
+            if (topLevel == -1) {
+                topLevel = randomLevel();
+            }
+            int highestLocked = -1;
+            try {
+                boolean valid = true;
+                for (int level = 0; valid && level <= topLevel; level++) {
+                    var pred = preds[level];
+                    var succ = succs[level];
+                    pred.lock.lock();
+                    highestLocked = level;
+                    valid = !pred.marked && (succ == null || !succ.marked) && next(pred, level) == succ;
+                }
+                if (!valid) {
+                    continue;
+                }
+
+                var node = new Node(key, value, topLevel);
+                for (int level = 0; level <= topLevel; level++) {
+                    node.next[level] = succs[level];
+                }
+                for (int level = 0; level <= topLevel; level++) {
+                    setNext(preds[level], level, node);
+                }
+                node.fullyLinked = true;
+                count.increment();
+                return null;
+            } finally {
+                for (int level = 0; level <= highestLocked; level++) {
+                    preds[level].lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for key, if it is mapped to expected (or to
+     * anything, if expected is null). Returns the removed value, or null if
+     * nothing was removed.
+     */
+    @SuppressWarnings("unchecked")
+    private V doRemove(Object key, Object expected) {
+        var preds = new Node[MAX_LEVEL];
+        var succs = new Node[MAX_LEVEL];
+        Node victim = null;
+        Object removed = null;
+        for (;;) {
+            int found = find(key, preds, succs);
+            if (victim == null) {
+                if (found == -1) {
+                    return null;
+                }
+                var node = succs[found];
+                if (!node.fullyLinked || node.topLevel != found) {
+                    return null; // still being added, so not yet in the map
+                }
+                // the mapping is removed once its value is swapped out
+                do {
+                    removed = node.value;
+                    if (removed == null || (expected != null && !expected.equals(removed))) {
+                        return null;
+                    }
+                } while (!VALUE.compareAndSet(node, removed, null));
+                count.decrement();
+                victim = node;
+                victim.lock.lock();
+                victim.marked = true;
+            }
+
+            // unlink the victim, holding its lock and the locks of its predecessors
+            int highestLocked = -1;
+            try {
+                boolean valid = true;
+                for (int level = 0; valid && level <= victim.topLevel; level++) {
+                    var pred = preds[level];
+                    pred.lock.lock();
+                    highestLocked = level;
+                    valid = !pred.marked && next(pred, level) == victim;
+                }
+                if (!valid) {
+                    continue;
+                }
+                for (int level = victim.topLevel; level >= 0; level--) {
+                    setNext(preds[level], level, next(victim, level));
+                }
+                victim.lock.unlock();
+                return (V) removed;
+            } finally {
+                for (int level = 0; level <= highestLocked; level++) {
+                    preds[level].lock.unlock();
+                }
+            }
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        return doPut(key, value, PUT_IF_ABSENT);
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        return doPut(key, value, REPLACE);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue);
+        Objects.requireNonNull(newValue);
+        var node = findNode(key);
+        if (node == null) {
+            return false;
+        }
+        for (;;) {
+            var v = liveValue(node);
+            if (v == null || !oldValue.equals(v)) {
+                return false;
+            }
+            if (VALUE.compareAndSet(node, v, newValue)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        Objects.requireNonNull(key);
+        return value != null && doRemove(key, value) != null;
+    }
+
+    // ------------------------------------------------------------------------
+    // Primitive operations for NavigableMapDetails
+
+    @Override
+    protected Comparator<? super K> keyOrder() {
+        return comparator;
+    }
+
+    @Override
+    protected int baseSize() {
+        long n = count.sum();
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) Math.max(n, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected V baseGet(K key) {
+        var node = findNode(key);
+        return (node == null) ? null : (V) liveValue(node);
+    }
+
+    @Override
+    protected boolean baseContainsKey(K key) {
+        return baseGet(key) != null;
+    }
+
+    @Override
+    protected V basePut(K key, V value) {
+        return doPut(key, value, PUT);
+    }
+
+    /** The key may have been removed by another thread; then this returns null */
+    @Override
+    protected V baseRemove(K key) {
+        return doRemove(key, null);
+    }
+
+    @Override
+    protected boolean baseRemoveMapping(K key, V value) {
+        return doRemove(key, value) != null;
+    }
+
+    @Override
+    protected void baseClear() {
+        for (var node = next(head, 0); node != null; node = next(node, 0)) {
+            doRemove(node.key, null);
+        }
+    }
+
+    /**
+     * A snapshot of a mapping. Setting its value puts the new value in the map.
+     */
+    private final class SnapshotEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        SnapshotEntry(K key, V value) {
+            super(key, value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    // the first live mapping at or after node on the bottom level
+    @SuppressWarnings("unchecked")
+    private SnapshotEntry liveFrom(Node node) {
+        for (; node != null; node = next(node, 0)) {
+            var v = liveValue(node);
+            if (v != null) {
+                return new SnapshotEntry((K) node.key, (V) v);
+            }
+        }
+        return null;
+    }
+
+    // the last node before key (or before every key, if key is null), or head
+    private Node predecessor(Object key) {
+        var pred = head;
+        for (int level = MAX_LEVEL - 1; level >= 0; level--) {
+            var curr = next(pred, level);
+            while (curr != null && (key == null || compare(key, curr.key) > 0)) {
+                pred = curr;
+                curr = next(pred, level);
+            }
+        }
+        return pred;
+    }
+
+    // the last live mapping before key (at key, if inclusive)
+    @SuppressWarnings("unchecked")
+    private SnapshotEntry liveBefore(Object key, boolean inclusive) {
+        if (inclusive) {
+            var node = findNode(key);
+            var v = (node == null) ? null : liveValue(node);
+            if (v != null) {
+                return new SnapshotEntry((K) node.key, (V) v);
+            }
+        }
+        for (;;) {
+            var pred = predecessor(key);
+            if (pred == head) {
+                return null;
+            }
+            var v = liveValue(pred);
+            if (v != null) {
+                return new SnapshotEntry((K) pred.key, (V) v);
+            }
+            key = pred.key; // removed in the meantime; keep looking before it
+        }
+    }
+
+    // the first live mapping after key (at key, if inclusive); nodes may have
+    // been inserted after the predecessor since it was found, so this skips
+    // any that are too small
+    @SuppressWarnings("unchecked")
+    private SnapshotEntry liveAfter(Object key, boolean inclusive) {
+        for (var node = next(predecessor(key), 0); node != null; node = next(node, 0)) {
+            int c = compare(node.key, key);
+            if (c > 0 || (c == 0 && inclusive)) {
+                var v = liveValue(node);
+                if (v != null) {
+                    return new SnapshotEntry((K) node.key, (V) v);
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFirst() {
+        return liveFrom(next(head, 0));
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLast() {
+        var last = predecessor(null);
+        if (last == head) {
+            return null;
+        }
+        var e = liveBefore(last.key, true);
+        return (e != null) ? e : liveBefore(last.key, false);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLower(K key) {
+        return liveBefore(key, false);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFloor(K key) {
+        return liveBefore(key, true);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseCeiling(K key) {
+        return liveAfter(key, true);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseHigher(K key) {
+        return liveAfter(key, false);
+    }
+
+    /**
+     * Iterates over snapshots of the mappings, in either direction. Each step
+     * ascending follows the bottom list; each step descending is a new search
+     * for the mapping before the last one, since the lists only link forward.
+     */
+    @Override
+    protected Iterator<Map.Entry<K, V>> baseIterator(K from, boolean inclusive, boolean descending) {
+        return new Iterator<Map.Entry<K, V>>() {
+            private SnapshotEntry next = (from == null) ? (SnapshotEntry) (descending ? baseLast() : baseFirst())
+                    : descending ? liveBefore(from, inclusive) : liveAfter(from, inclusive);
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                var e = next;
+                if (e == null) {
+                    throw new NoSuchElementException();
+                }
+                next = descending ? liveBefore(e.getKey(), false) : liveAfter(e.getKey(), false);
+                return e;
+            }
+        };
+    }
+
+    /**
+     * Throughput benchmark: each thread runs a mix of lookups, insertions, and
+     * removals on random keys, first against this map and then against a
+     * {@link TreeMap} behind a single lock.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int threads = (args.length > 0) ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int keyRange = (args.length > 1) ? Integer.parseInt(args[1]) : 100_000;
+        int opsPerThread = 1_000_000;
+
+        for (int round = 0; round < 3; round++) {
+            NavigableMap<Integer, Integer> skipList = new ConcurrentSkipListMap<>();
+            NavigableMap<Integer, Integer> locked = Collections.synchronizedNavigableMap(new TreeMap<>());
+            for (int i = 0; i < keyRange; i += 2) {
+                skipList.put(i, i);
+                locked.put(i, i);
+            }
+            System.out.printf("%d threads: ConcurrentSkipListMap %.1f Mops/s, locked TreeMap %.1f Mops/s%n", threads,
+                    throughput(skipList, threads, keyRange, opsPerThread),
+                    throughput(locked, threads, keyRange, opsPerThread));
+        }
+    }
+
+    private static double throughput(NavigableMap<Integer, Integer> map, int threads, int keyRange, int ops)
+            throws InterruptedException {
+        var start = new CountDownLatch(1);
+        var done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                var random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    int key = random.nextInt(keyRange);
+                    int op = random.nextInt(10);
+                    if (op < 8) {
+                        map.get(key);
+                    } else if (op < 9) {
+                        map.put(key, i);
+                    } else {
+                        map.remove(key);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+        return (double) threads * ops * 1000 / elapsed;
+    }
+}
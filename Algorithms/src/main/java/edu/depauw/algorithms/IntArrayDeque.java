@@ -0,0 +1,544 @@
+package edu.depauw.algorithms;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+import edu.depauw.algorithms.details.ArrayDequeDetails;
+
+/**
+ * Deque of primitive {@code int} values, a specialization of
+ * {@link ArrayDeque} with the same circular buffer: a power-of-two array with
+ * head and tail indices that wrap around by masking. The elements are stored
+ * unboxed, so a deque of vertex numbers used as a search stack or queue costs
+ * four bytes per element, and adding to it allocates nothing except when the
+ * array grows.
+ *
+ * Since there is no {@code null} to signal an empty deque, {@link #peek()},
+ * like {@link #pop()}, throws {@code NoSuchElementException} instead. The
+ * deque is {@code Iterable<Integer>}, with a {@code PrimitiveIterator.OfInt}
+ * so that {@code nextInt} does not box, and the {@link #asDeque()} view adapts
+ * it to the {@code Deque} interface.
+ *
+ * The iterators are not fail-fast.
+ */
+public class IntArrayDeque implements Iterable<Integer> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private int[] data;
+    private int head;  // index of the first element, or equal to tail if empty
+    private int tail;  // index at which the next element is added by addLast
+    private int size;
+    private Deque<Integer> deque;
+
+    /**
+     * Constructs an empty deque with an initial capacity sufficient to hold the
+     * specified number of elements.
+     *
+     * @param initialCapacity the initial capacity of the deque
+     * @throws IllegalArgumentException if the specified initial capacity is
+     *                                  negative
+     */
+    public IntArrayDeque(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.data = new int[capacityFor(initialCapacity)];
+        this.head = 0;
+        this.tail = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Constructs an empty deque with an initial capacity of DEFAULT_CAPACITY.
+     */
+    public IntArrayDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the least power of two that is at least the given capacity (and at
+     * least 1).
+     */
+    private static int capacityFor(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Sorry, deque too big");
+        }
+        return (capacity <= 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Doubles the capacity of this deque, copying the elements to the start of
+     * the new array in order.
+     */
+    private void grow() {
+        final int oldCapacity = data.length;
+        int[] newData = new int[capacityFor(2 * oldCapacity)];
+        int front = Math.min(size, oldCapacity - head);
+        System.arraycopy(data, head, newData, 0, front);
+        System.arraycopy(data, 0, newData, front, size - front);
+        data = newData;
+        head = 0;
+        tail = size;
+    }
+
+    private static final int inc(int i, int mask) {
+        return (i + 1) & mask;
+    }
+
+    private static final int dec(int i, int mask) {
+        return (i - 1) & mask;
+    }
+
+    private static final int sub(int i, int j, int mask) {
+        return (i - j) & mask;
+    }
+
+    /**
+     * Returns the number of elements in this deque.
+     *
+     * @return the number of elements in this deque
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this deque contains no elements.
+     *
+     * @return {@code true} if this deque contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all of the elements from this deque. The capacity is unchanged.
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    /**
+     * Inserts the specified element at the front of this deque.
+     *
+     * @param e the element to add
+     */
+    public void addFirst(int e) {
+        if (size == data.length) {
+            grow();
+        }
+        head = dec(head, data.length - 1);
+        data[head] = e;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * @param e the element to add
+     */
+    public void addLast(int e) {
+        if (size == data.length) {
+            grow();
+        }
+        data[tail] = e;
+        tail = inc(tail, data.length - 1);
+        size++;
+    }
+
+    /**
+     * Removes and returns the first element of this deque.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        int e = data[head];
+        head = inc(head, data.length - 1);
+        size--;
+        return e;
+    }
+
+    /**
+     * Removes and returns the last element of this deque.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        tail = dec(tail, data.length - 1);
+        size--;
+        return data[tail];
+    }
+
+    /**
+     * Returns the first element of this deque.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return data[head];
+    }
+
+    /**
+     * Returns the last element of this deque.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return data[dec(tail, data.length - 1)];
+    }
+
+    /**
+     * Pushes an element onto the stack represented by this deque, that is, at
+     * its front. This is equivalent to {@link #addFirst}.
+     *
+     * @param e the element to push
+     */
+    public void push(int e) {
+        addFirst(e);
+    }
+
+    /**
+     * Pops an element from the stack represented by this deque, that is, from
+     * its front. This is equivalent to {@link #removeFirst}.
+     *
+     * @return the element at the front of this deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int pop() {
+        return removeFirst();
+    }
+
+    /**
+     * Returns the element at the top of the stack represented by this deque,
+     * that is, at its front. This is equivalent to {@link #getFirst}.
+     *
+     * @return the element at the front of this deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public int peek() {
+        return getFirst();
+    }
+
+    /**
+     * Removes the first occurrence of the specified element in this deque (when
+     * traversing the deque from head to tail), if there is one.
+     *
+     * @param e element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeFirstOccurrence(int e) {
+        final int mask = data.length - 1;
+        for (int k = 0, i = head; k < size; k++, i = inc(i, mask)) {
+            if (data[i] == e) {
+                delete(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the last occurrence of the specified element in this deque (when
+     * traversing the deque from head to tail), if there is one.
+     *
+     * @param e element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeLastOccurrence(int e) {
+        final int mask = data.length - 1;
+        for (int k = 0, i = dec(tail, mask); k < size; k++, i = dec(i, mask)) {
+            if (data[i] == e) {
+                delete(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the element at the specified position in the elements array,
+     * shifting whichever of the segments before and after it is shorter, as in
+     * {@code ArrayDeque}.
+     *
+     * @return true if elements near tail moved backwards
+     */
+    private boolean delete(int i) {
+        final int capacity = data.length;
+        final int mask = capacity - 1;
+        final int front = sub(i, head, mask);
+        final int back = size - front - 1;
+        size--;
+        if (front < back) {
+            if (head <= i) {
+                System.arraycopy(data, head, data, head + 1, front);
+            } else { // Wrap around
+                System.arraycopy(data, 0, data, 1, i);
+                data[0] = data[capacity - 1];
+                System.arraycopy(data, head, data, head + 1, front - (i + 1));
+            }
+            head = inc(head, mask);
+            return false;
+        } else {
+            final int last = dec(tail, mask);
+            if (i <= last) {
+                System.arraycopy(data, i + 1, data, i, back);
+            } else { // Wrap around
+                System.arraycopy(data, i + 1, data, i, mask - i);
+                data[mask] = data[0];
+                System.arraycopy(data, 1, data, 0, last);
+            }
+            tail = last;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the elements of this deque, from first to last, in a new array.
+     *
+     * @return an array of the elements
+     */
+    public int[] toArray() {
+        int[] a = new int[size];
+        int front = Math.min(size, data.length - head);
+        System.arraycopy(data, head, a, 0, front);
+        System.arraycopy(data, 0, a, front, size - front);
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this deque, from first (head) to
+     * last (tail). This is the order in which {@link #pop()} would return them.
+     *
+     * @return an iterator over the elements in this deque
+     */
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new DeqIterator();
+    }
+
+    /**
+     * Returns an iterator over the elements in this deque, from last (tail) to
+     * first (head).
+     *
+     * @return a reverse iterator over the elements in this deque
+     */
+    public PrimitiveIterator.OfInt descendingIterator() {
+        return new DescendingIterator();
+    }
+
+    /**
+     * Returns the elements of this deque from last to first. Each call to
+     * {@code iterator} on the result starts a new {@link #descendingIterator()}.
+     *
+     * @return a reverse-ordered view of this deque
+     */
+    public Iterable<Integer> reversed() {
+        return this::descendingIterator;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private class DeqIterator implements PrimitiveIterator.OfInt {
+        /** Index of element to be returned by subsequent call to next. */
+        int cursor;
+
+        /** Number of elements yet to be returned. */
+        int remaining = size;
+
+        /** Index of element returned by most recent call to next, or -1. */
+        int lastRet = -1;
+
+        DeqIterator() {
+            cursor = head;
+        }
+
+        @Override
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            int e = data[cursor];
+            lastRet = cursor;
+            cursor = inc(cursor, data.length - 1);
+            remaining--;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            if (delete(lastRet)) {
+                cursor = dec(cursor, data.length - 1);
+            }
+            lastRet = -1;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            final int mask = data.length - 1;
+            for (int i = cursor; remaining > 0; i = inc(i, mask)) {
+                remaining--;
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    private class DescendingIterator extends DeqIterator {
+        DescendingIterator() {
+            cursor = dec(tail, data.length - 1);
+        }
+
+        @Override
+        public final int nextInt() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            int e = data[cursor];
+            lastRet = cursor;
+            cursor = dec(cursor, data.length - 1);
+            remaining--;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            if (!delete(lastRet)) {
+                cursor = inc(cursor, data.length - 1);
+            }
+            lastRet = -1;
+        }
+
+        @Override
+        public final void forEachRemaining(IntConsumer action) {
+            final int mask = data.length - 1;
+            for (int i = cursor; remaining > 0; i = dec(i, mask)) {
+                remaining--;
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code Deque} view of this deque with boxed elements. Changes to
+     * either are visible in the other. The view does not accept {@code null}.
+     *
+     * @return a deque view of this deque
+     */
+    public Deque<Integer> asDeque() {
+        var view = deque;
+        return (view != null) ? view : (deque = new BoxedView());
+    }
+
+    private final class BoxedView extends ArrayDequeDetails<Integer> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            IntArrayDeque.this.clear();
+        }
+
+        @Override
+        public void addFirst(Integer e) {
+            IntArrayDeque.this.addFirst(e);
+        }
+
+        @Override
+        public void addLast(Integer e) {
+            IntArrayDeque.this.addLast(e);
+        }
+
+        @Override
+        public Integer removeFirst() {
+            return IntArrayDeque.this.removeFirst();
+        }
+
+        @Override
+        public Integer removeLast() {
+            return IntArrayDeque.this.removeLast();
+        }
+
+        @Override
+        public Integer getFirst() {
+            return IntArrayDeque.this.getFirst();
+        }
+
+        @Override
+        public Integer getLast() {
+            return IntArrayDeque.this.getLast();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Integer)) {
+                return false;
+            }
+            int e = (Integer) o;
+            PrimitiveIterator.OfInt it = IntArrayDeque.this.iterator();
+            while (it.hasNext()) {
+                if (it.nextInt() == e) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            return (o instanceof Integer) && IntArrayDeque.this.removeFirstOccurrence((Integer) o);
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            return (o instanceof Integer) && IntArrayDeque.this.removeLastOccurrence((Integer) o);
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return IntArrayDeque.this.iterator();
+        }
+
+        @Override
+        public Iterator<Integer> descendingIterator() {
+            return IntArrayDeque.this.descendingIterator();
+        }
+    }
+}
@@ -0,0 +1,540 @@
+package edu.depauw.algorithms;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+import edu.depauw.algorithms.details.ArrayDequeDetails;
+
+/**
+ * Deque of primitive {@code long} values, the {@code long} counterpart of
+ * {@link IntArrayDeque}, for example for a queue of packed (vertex, distance)
+ * pairs or of edge indices in graphs with more than 2<sup>31</sup> edges. It
+ * has the same power-of-two circular buffer as {@link ArrayDeque}, with the
+ * elements stored unboxed.
+ *
+ * As in {@code IntArrayDeque}, {@link #peek()} throws
+ * {@code NoSuchElementException} on an empty deque, the iterators are
+ * {@code PrimitiveIterator.OfLong}, and {@link #asDeque()} gives a boxed
+ * {@code Deque} view. The iterators are not fail-fast.
+ */
+public class LongArrayDeque implements Iterable<Long> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] data;
+    private int head;  // index of the first element, or equal to tail if empty
+    private int tail;  // index at which the next element is added by addLast
+    private int size;
+    private Deque<Long> deque;
+
+    /**
+     * Constructs an empty deque with an initial capacity sufficient to hold the
+     * specified number of elements.
+     *
+     * @param initialCapacity the initial capacity of the deque
+     * @throws IllegalArgumentException if the specified initial capacity is
+     *                                  negative
+     */
+    public LongArrayDeque(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initialCapacity);
+        }
+        this.data = new long[capacityFor(initialCapacity)];
+        this.head = 0;
+        this.tail = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Constructs an empty deque with an initial capacity of DEFAULT_CAPACITY.
+     */
+    public LongArrayDeque() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the least power of two that is at least the given capacity (and at
+     * least 1).
+     */
+    private static int capacityFor(int capacity) {
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Sorry, deque too big");
+        }
+        return (capacity <= 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+    }
+
+    /**
+     * Doubles the capacity of this deque, copying the elements to the start of
+     * the new array in order.
+     */
+    private void grow() {
+        final int oldCapacity = data.length;
+        long[] newData = new long[capacityFor(2 * oldCapacity)];
+        int front = Math.min(size, oldCapacity - head);
+        System.arraycopy(data, head, newData, 0, front);
+        System.arraycopy(data, 0, newData, front, size - front);
+        data = newData;
+        head = 0;
+        tail = size;
+    }
+
+    private static final int inc(int i, int mask) {
+        return (i + 1) & mask;
+    }
+
+    private static final int dec(int i, int mask) {
+        return (i - 1) & mask;
+    }
+
+    private static final int sub(int i, int j, int mask) {
+        return (i - j) & mask;
+    }
+
+    /**
+     * Returns the number of elements in this deque.
+     *
+     * @return the number of elements in this deque
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this deque contains no elements.
+     *
+     * @return {@code true} if this deque contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all of the elements from this deque. The capacity is unchanged.
+     */
+    public void clear() {
+        head = 0;
+        tail = 0;
+        size = 0;
+    }
+
+    /**
+     * Inserts the specified element at the front of this deque.
+     *
+     * @param e the element to add
+     */
+    public void addFirst(long e) {
+        if (size == data.length) {
+            grow();
+        }
+        head = dec(head, data.length - 1);
+        data[head] = e;
+        size++;
+    }
+
+    /**
+     * Inserts the specified element at the end of this deque.
+     *
+     * @param e the element to add
+     */
+    public void addLast(long e) {
+        if (size == data.length) {
+            grow();
+        }
+        data[tail] = e;
+        tail = inc(tail, data.length - 1);
+        size++;
+    }
+
+    /**
+     * Removes and returns the first element of this deque.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long removeFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        long e = data[head];
+        head = inc(head, data.length - 1);
+        size--;
+        return e;
+    }
+
+    /**
+     * Removes and returns the last element of this deque.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long removeLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        tail = dec(tail, data.length - 1);
+        size--;
+        return data[tail];
+    }
+
+    /**
+     * Returns the first element of this deque.
+     *
+     * @return the first element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return data[head];
+    }
+
+    /**
+     * Returns the last element of this deque.
+     *
+     * @return the last element
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return data[dec(tail, data.length - 1)];
+    }
+
+    /**
+     * Pushes an element onto the stack represented by this deque, that is, at
+     * its front. This is equivalent to {@link #addFirst}.
+     *
+     * @param e the element to push
+     */
+    public void push(long e) {
+        addFirst(e);
+    }
+
+    /**
+     * Pops an element from the stack represented by this deque, that is, from
+     * its front. This is equivalent to {@link #removeFirst}.
+     *
+     * @return the element at the front of this deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long pop() {
+        return removeFirst();
+    }
+
+    /**
+     * Returns the element at the top of the stack represented by this deque,
+     * that is, at its front. This is equivalent to {@link #getFirst}.
+     *
+     * @return the element at the front of this deque
+     * @throws NoSuchElementException if this deque is empty
+     */
+    public long peek() {
+        return getFirst();
+    }
+
+    /**
+     * Removes the first occurrence of the specified element in this deque (when
+     * traversing the deque from head to tail), if there is one.
+     *
+     * @param e element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeFirstOccurrence(long e) {
+        final int mask = data.length - 1;
+        for (int k = 0, i = head; k < size; k++, i = inc(i, mask)) {
+            if (data[i] == e) {
+                delete(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the last occurrence of the specified element in this deque (when
+     * traversing the deque from head to tail), if there is one.
+     *
+     * @param e element to be removed from this deque, if present
+     * @return {@code true} if the deque contained the specified element
+     */
+    public boolean removeLastOccurrence(long e) {
+        final int mask = data.length - 1;
+        for (int k = 0, i = dec(tail, mask); k < size; k++, i = dec(i, mask)) {
+            if (data[i] == e) {
+                delete(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Removes the element at the specified position in the elements array,
+     * shifting whichever of the segments before and after it is shorter, as in
+     * {@code ArrayDeque}.
+     *
+     * @return true if elements near tail moved backwards
+     */
+    private boolean delete(int i) {
+        final int capacity = data.length;
+        final int mask = capacity - 1;
+        final int front = sub(i, head, mask);
+        final int back = size - front - 1;
+        size--;
+        if (front < back) {
+            if (head <= i) {
+                System.arraycopy(data, head, data, head + 1, front);
+            } else { // Wrap around
+                System.arraycopy(data, 0, data, 1, i);
+                data[0] = data[capacity - 1];
+                System.arraycopy(data, head, data, head + 1, front - (i + 1));
+            }
+            head = inc(head, mask);
+            return false;
+        } else {
+            final int last = dec(tail, mask);
+            if (i <= last) {
+                System.arraycopy(data, i + 1, data, i, back);
+            } else { // Wrap around
+                System.arraycopy(data, i + 1, data, i, mask - i);
+                data[mask] = data[0];
+                System.arraycopy(data, 1, data, 0, last);
+            }
+            tail = last;
+            return true;
+        }
+    }
+
+    /**
+     * Returns the elements of this deque, from first to last, in a new array.
+     *
+     * @return an array of the elements
+     */
+    public long[] toArray() {
+        long[] a = new long[size];
+        int front = Math.min(size, data.length - head);
+        System.arraycopy(data, head, a, 0, front);
+        System.arraycopy(data, 0, a, front, size - front);
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this deque, from first (head) to
+     * last (tail). This is the order in which {@link #pop()} would return them.
+     *
+     * @return an iterator over the elements in this deque
+     */
+    @Override
+    public PrimitiveIterator.OfLong iterator() {
+        return new DeqIterator();
+    }
+
+    /**
+     * Returns an iterator over the elements in this deque, from last (tail) to
+     * first (head).
+     *
+     * @return a reverse iterator over the elements in this deque
+     */
+    public PrimitiveIterator.OfLong descendingIterator() {
+        return new DescendingIterator();
+    }
+
+    /**
+     * Returns the elements of this deque from last to first. Each call to
+     * {@code iterator} on the result starts a new {@link #descendingIterator()}.
+     *
+     * @return a reverse-ordered view of this deque
+     */
+    public Iterable<Long> reversed() {
+        return this::descendingIterator;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private class DeqIterator implements PrimitiveIterator.OfLong {
+        /** Index of element to be returned by subsequent call to next. */
+        int cursor;
+
+        /** Number of elements yet to be returned. */
+        int remaining = size;
+
+        /** Index of element returned by most recent call to next, or -1. */
+        int lastRet = -1;
+
+        DeqIterator() {
+            cursor = head;
+        }
+
+        @Override
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            long e = data[cursor];
+            lastRet = cursor;
+            cursor = inc(cursor, data.length - 1);
+            remaining--;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            if (delete(lastRet)) {
+                cursor = dec(cursor, data.length - 1);
+            }
+            lastRet = -1;
+        }
+
+        @Override
+        public void forEachRemaining(LongConsumer action) {
+            final int mask = data.length - 1;
+            for (int i = cursor; remaining > 0; i = inc(i, mask)) {
+                remaining--;
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    private class DescendingIterator extends DeqIterator {
+        DescendingIterator() {
+            cursor = dec(tail, data.length - 1);
+        }
+
+        @Override
+        public final long nextLong() {
+            if (remaining <= 0) {
+                throw new NoSuchElementException();
+            }
+            long e = data[cursor];
+            lastRet = cursor;
+            cursor = dec(cursor, data.length - 1);
+            remaining--;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastRet < 0) {
+                throw new IllegalStateException();
+            }
+            if (!delete(lastRet)) {
+                cursor = inc(cursor, data.length - 1);
+            }
+            lastRet = -1;
+        }
+
+        @Override
+        public final void forEachRemaining(LongConsumer action) {
+            final int mask = data.length - 1;
+            for (int i = cursor; remaining > 0; i = dec(i, mask)) {
+                remaining--;
+                action.accept(data[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns a {@code Deque} view of this deque with boxed elements. Changes to
+     * either are visible in the other. The view does not accept {@code null}.
+     *
+     * @return a deque view of this deque
+     */
+    public Deque<Long> asDeque() {
+        var view = deque;
+        return (view != null) ? view : (deque = new BoxedView());
+    }
+
+    private final class BoxedView extends ArrayDequeDetails<Long> {
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            LongArrayDeque.this.clear();
+        }
+
+        @Override
+        public void addFirst(Long e) {
+            LongArrayDeque.this.addFirst(e);
+        }
+
+        @Override
+        public void addLast(Long e) {
+            LongArrayDeque.this.addLast(e);
+        }
+
+        @Override
+        public Long removeFirst() {
+            return LongArrayDeque.this.removeFirst();
+        }
+
+        @Override
+        public Long removeLast() {
+            return LongArrayDeque.this.removeLast();
+        }
+
+        @Override
+        public Long getFirst() {
+            return LongArrayDeque.this.getFirst();
+        }
+
+        @Override
+        public Long getLast() {
+            return LongArrayDeque.this.getLast();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Long)) {
+                return false;
+            }
+            long e = (Long) o;
+            PrimitiveIterator.OfLong it = LongArrayDeque.this.iterator();
+            while (it.hasNext()) {
+                if (it.nextLong() == e) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(Object o) {
+            return (o instanceof Long) && LongArrayDeque.this.removeFirstOccurrence((Long) o);
+        }
+
+        @Override
+        public boolean removeLastOccurrence(Object o) {
+            return (o instanceof Long) && LongArrayDeque.this.removeLastOccurrence((Long) o);
+        }
+
+        @Override
+        public Iterator<Long> iterator() {
+            return LongArrayDeque.this.iterator();
+        }
+
+        @Override
+        public Iterator<Long> descendingIterator() {
+            return LongArrayDeque.this.descendingIterator();
+        }
+    }
+}
@@ -0,0 +1,660 @@
+package edu.depauw.algorithms;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import edu.depauw.algorithms.details.NavigableMapDetails;
+
+/**
+ * Red-Black tree map with primitive {@code long} keys, a specialization of
+ * {@link TreeMap} with the same left-leaning red-black maintenance (based on
+ * Sedgewick, "Algorithms" (4th edition)). Keys are stored unboxed in the
+ * entries and compared with {@link Long#compare}.
+ *
+ * The navigation methods return the map's own entries, without copying; an
+ * entry stays valid until the next structural change to the map. The
+ * {@link #asNavigableMap()} view adapts this map to the {@code NavigableMap}
+ * interface with boxed keys.
+ *
+ * @param <V> the type of mapped values
+ */
+public class LongTreeMap<V> implements Iterable<LongTreeMap.Entry<V>> {
+    private Entry<V> root;
+    private int size;
+    private NavigableMap<Long, V> navigableMap;
+
+    /**
+     * An entry of a {@code LongTreeMap}. The boxed {@code getKey} is provided
+     * for the {@code NavigableMap} view; {@code getLongKey} does not allocate.
+     */
+    public static final class Entry<V> implements Map.Entry<Long, V> {
+        private long key;
+        private V value;
+        private Entry<V> left, right;
+        private boolean red;
+
+        private Entry(long key, V value) {
+            this.key = key;
+            this.value = value;
+            this.left = null;
+            this.right = null;
+            this.red = true;
+        }
+
+        public long getLongKey() {
+            return key;
+        }
+
+        @Override
+        public Long getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V oldValue = this.value;
+            this.value = value;
+            return oldValue;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Map.Entry<?, ?> e && e.getKey() instanceof Long k && k == key
+                    && Objects.equals(value, e.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            int valueHash = (value == null ? 0 : value.hashCode());
+            return Long.hashCode(key) ^ valueHash;
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    public LongTreeMap() {
+        this.root = null;
+        this.size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        root = null;
+        size = 0;
+    }
+
+    public boolean containsKey(long key) {
+        return getEntry(key) != null;
+    }
+
+    public V get(long key) {
+        var node = getEntry(key);
+        return (node == null) ? null : node.value;
+    }
+
+    /**
+     * Returns the entry for the given key, or null if there is none.
+     */
+    public Entry<V> getEntry(long key) {
+        var node = root;
+        while (node != null) {
+            int compare = Long.compare(key, node.key);
+            if (compare < 0) {
+                node = node.left;
+            } else if (compare > 0) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    public V put(long key, V value) {
+        var node = getEntry(key);
+        if (node != null) {
+            var oldValue = node.value;
+            node.value = value;
+            return oldValue;
+        }
+
+        root = putNew(root, key, value);
+        root.red = false;
+        size++;
+        return null;
+    }
+
+    // insert a new entry; the key must not already be in the tree under node
+    private Entry<V> putNew(Entry<V> node, long key, V value) {
+        if (node != null) {
+            if (Long.compare(key, node.key) < 0) {
+                node.left = putNew(node.left, key, value);
+            } else {
+                node.right = putNew(node.right, key, value);
+            }
+
+            if (isRed(node.right) && isBlack(node.left)) {
+                node = rotateLeft(node);
+            }
+            if (isRed(node.left) && isRed(node.left.left)) {
+                node = rotateRight(node);
+            }
+            if (isRed(node.left) && isRed(node.right)) {
+                flipColors(node);
+            }
+
+            return node;
+        }
+
+        return new Entry<>(key, value);
+    }
+
+    public V remove(long key) {
+        var node = getEntry(key);
+        if (node != null) {
+            var oldValue = node.value;
+
+            // if both children of root are black, set root to red
+            if (isBlack(root.left) && isBlack(root.right)) {
+                root.red = true;
+            }
+
+            root = delete(root, key);
+            size--;
+            if (!isEmpty()) {
+                root.red = false;
+            }
+            return oldValue;
+        }
+
+        return null;
+    }
+
+    // delete the entry with the given key rooted at node
+    private Entry<V> delete(Entry<V> node, long key) {
+        int compare = Long.compare(key, node.key);
+        if (compare < 0) {
+            if (isBlack(node.left) && isBlack(node.left.left)) {
+                node = moveRedLeft(node);
+            }
+            node.left = delete(node.left, key);
+        } else {
+            if (isRed(node.left)) {
+                node = rotateRight(node);
+                compare = Long.compare(key, node.key);
+            }
+            if (compare == 0 && (node.right == null)) {
+                return null;
+            }
+            if (isBlack(node.right) && isBlack(node.right.left)) {
+                node = moveRedRight(node);
+                compare = Long.compare(key, node.key);
+            }
+            if (compare == 0) {
+                var x = min(node.right);
+                node.key = x.key;
+                node.value = x.value;
+                node.right = deleteMin(node.right);
+            } else {
+                node.right = delete(node.right, key);
+            }
+        }
+        return balance(node);
+    }
+
+    public Entry<V> firstEntry() {
+        return (root == null) ? null : min(root);
+    }
+
+    public Entry<V> lastEntry() {
+        return (root == null) ? null : max(root);
+    }
+
+    /**
+     * Returns the least key in this map.
+     *
+     * @throws NoSuchElementException if this map is empty
+     */
+    public long firstKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return min(root).key;
+    }
+
+    /**
+     * Returns the greatest key in this map.
+     *
+     * @throws NoSuchElementException if this map is empty
+     */
+    public long lastKey() {
+        if (root == null) {
+            throw new NoSuchElementException();
+        }
+        return max(root).key;
+    }
+
+    private Entry<V> min(Entry<V> node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private Entry<V> max(Entry<V> node) {
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Removes and returns the entry with the least key, or returns null if the
+     * map is empty. The entry is the one that was in the tree, now detached.
+     */
+    public Entry<V> pollFirstEntry() {
+        if (root == null) {
+            return null;
+        }
+
+        var oldEntry = min(root);
+        if (isBlack(root.left) && isBlack(root.right)) {
+            root.red = true;
+        }
+        root = deleteMin(root);
+        size--;
+        if (!isEmpty()) {
+            root.red = false;
+        }
+        return oldEntry;
+    }
+
+    private Entry<V> deleteMin(Entry<V> node) {
+        if (node.left == null) {
+            return null;
+        }
+        if (isBlack(node.left) && isBlack(node.left.left)) {
+            node = moveRedLeft(node);
+        }
+        node.left = deleteMin(node.left);
+        return balance(node);
+    }
+
+    /**
+     * Removes and returns the entry with the greatest key, or returns null if
+     * the map is empty. The entry is the one that was in the tree, now detached.
+     */
+    public Entry<V> pollLastEntry() {
+        if (root == null) {
+            return null;
+        }
+
+        var oldEntry = max(root);
+        if (isBlack(root.left) && isBlack(root.right)) {
+            root.red = true;
+        }
+        root = deleteMax(root);
+        size--;
+        if (!isEmpty()) {
+            root.red = false;
+        }
+        return oldEntry;
+    }
+
+    // delete the entry with the maximum key rooted at node
+    private Entry<V> deleteMax(Entry<V> node) {
+        if (isRed(node.left)) {
+            node = rotateRight(node);
+        }
+
+        if (node.right == null) {
+            return null;
+        }
+
+        if (isBlack(node.right) && isBlack(node.right.left)) {
+            node = moveRedRight(node);
+        }
+
+        node.right = deleteMax(node.right);
+
+        return balance(node);
+    }
+
+    // flip the colors of a node and its two children
+    private void flipColors(Entry<V> node) {
+        node.red = !node.red;
+        node.left.red = !node.left.red;
+        node.right.red = !node.right.red;
+    }
+
+    // make a left-leaning link lean to the right
+    private Entry<V> rotateRight(Entry<V> node) {
+        var x = node.left;
+        node.left = x.right;
+        x.right = node;
+        x.red = node.red;
+        node.red = true;
+        return x;
+    }
+
+    // make a right-leaning link lean to the left
+    private Entry<V> rotateLeft(Entry<V> node) {
+        var x = node.right;
+        node.right = x.left;
+        x.left = node;
+        x.red = node.red;
+        node.red = true;
+        return x;
+    }
+
+    // Assuming that node is red and both node.left and node.left.left
+    // are black, make node.left or one of its children red.
+    private Entry<V> moveRedLeft(Entry<V> node) {
+        flipColors(node);
+        if (isRed(node.right.left)) {
+            node.right = rotateRight(node.right);
+            node = rotateLeft(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    // Assuming that node is red and both node.right and node.right.left
+    // are black, make node.right or one of its children red.
+    private Entry<V> moveRedRight(Entry<V> node) {
+        flipColors(node);
+        if (isRed(node.left.left)) {
+            node = rotateRight(node);
+            flipColors(node);
+        }
+        return node;
+    }
+
+    // restore red-black tree invariant
+    private Entry<V> balance(Entry<V> node) {
+        if (isRed(node.right) && isBlack(node.left)) {
+            node = rotateLeft(node);
+        }
+        if (isRed(node.left) && isRed(node.left.left)) {
+            node = rotateRight(node);
+        }
+        if (isRed(node.left) && isRed(node.right)) {
+            flipColors(node);
+        }
+        return node;
+    }
+
+    private boolean isRed(Entry<V> node) {
+        return node != null && node.red;
+    }
+
+    private boolean isBlack(Entry<V> node) {
+        return node == null || !node.red;
+    }
+
+    /** Returns the entry with the greatest key strictly less than key, or null */
+    public Entry<V> lowerEntry(long key) {
+        Entry<V> best = null;
+        var node = root;
+        while (node != null) {
+            if (Long.compare(key, node.key) <= 0) {
+                node = node.left;
+            } else {
+                best = node;
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the entry with the greatest key less than or equal to key, or null */
+    public Entry<V> floorEntry(long key) {
+        Entry<V> best = null;
+        var node = root;
+        while (node != null) {
+            int compare = Long.compare(key, node.key);
+            if (compare == 0) {
+                return node;
+            }
+            if (compare < 0) {
+                node = node.left;
+            } else {
+                best = node;
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the entry with the least key greater than or equal to key, or null */
+    public Entry<V> ceilingEntry(long key) {
+        Entry<V> best = null;
+        var node = root;
+        while (node != null) {
+            int compare = Long.compare(key, node.key);
+            if (compare == 0) {
+                return node;
+            }
+            if (compare > 0) {
+                node = node.right;
+            } else {
+                best = node;
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /** Returns the entry with the least key strictly greater than key, or null */
+    public Entry<V> higherEntry(long key) {
+        Entry<V> best = null;
+        var node = root;
+        while (node != null) {
+            if (Long.compare(key, node.key) >= 0) {
+                node = node.right;
+            } else {
+                best = node;
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns an iterator over the entries in ascending key order. Its
+     * {@code remove} is not supported; use the {@link #asNavigableMap()} view
+     * for that.
+     */
+    @Override
+    public Iterator<Entry<V>> iterator() {
+        return new EntryIterator(false);
+    }
+
+    /**
+     * Returns an iterator over the entries in ascending key order (descending,
+     * if {@code descending}), starting at the first entry at or past
+     * {@code from} (strictly past, if not {@code inclusive}).
+     */
+    public Iterator<Entry<V>> iterator(long from, boolean inclusive, boolean descending) {
+        var i = new EntryIterator(descending);
+        i.seek(from, inclusive);
+        return i;
+    }
+
+    /**
+     * An in-order walk that keeps the entries whose subtrees enclose the current
+     * position on an explicit stack, as in {@code TreeMap.Walk}.
+     */
+    private final class EntryIterator implements Iterator<Entry<V>> {
+        private final boolean descending;
+        private Entry<V>[] stack;
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        EntryIterator(boolean descending) {
+            this.descending = descending;
+            this.stack = (Entry<V>[]) new Entry<?>[16];
+            this.depth = 0;
+            pushSpine(root);
+        }
+
+        void seek(long key, boolean inclusive) {
+            depth = 0;
+            var node = root;
+            while (node != null) {
+                int compare = descending ? Long.compare(node.key, key) : Long.compare(key, node.key);
+                if (compare < 0) {
+                    push(node);
+                    node = near(node);
+                } else if (compare == 0 && inclusive) {
+                    push(node);
+                    return;
+                } else {
+                    node = far(node);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return depth > 0;
+        }
+
+        @Override
+        public Entry<V> next() {
+            if (depth == 0) {
+                throw new NoSuchElementException();
+            }
+            var node = stack[--depth];
+            pushSpine(far(node));
+            return node;
+        }
+
+        private Entry<V> near(Entry<V> node) {
+            return descending ? node.right : node.left;
+        }
+
+        private Entry<V> far(Entry<V> node) {
+            return descending ? node.left : node.right;
+        }
+
+        private void pushSpine(Entry<V> node) {
+            while (node != null) {
+                push(node);
+                node = near(node);
+            }
+        }
+
+        private void push(Entry<V> node) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * depth);
+            }
+            stack[depth++] = node;
+        }
+    }
+
+    /**
+     * Returns a {@code NavigableMap} view of this map with boxed keys. Changes
+     * to either are visible in the other.
+     *
+     * @return a navigable map view of this map
+     */
+    public NavigableMap<Long, V> asNavigableMap() {
+        var view = navigableMap;
+        return (view != null) ? view : (navigableMap = new BoxedView());
+    }
+
+    private final class BoxedView extends NavigableMapDetails<Long, V> {
+        @Override
+        protected Comparator<? super Long> keyOrder() {
+            return Comparator.naturalOrder();
+        }
+
+        @Override
+        protected int baseSize() {
+            return size;
+        }
+
+        @Override
+        protected V baseGet(Long key) {
+            return LongTreeMap.this.get(key);
+        }
+
+        @Override
+        protected boolean baseContainsKey(Long key) {
+            return LongTreeMap.this.containsKey(key);
+        }
+
+        @Override
+        protected V basePut(Long key, V value) {
+            return LongTreeMap.this.put(key, value);
+        }
+
+        @Override
+        protected V baseRemove(Long key) {
+            return LongTreeMap.this.remove(key);
+        }
+
+        @Override
+        protected void baseClear() {
+            LongTreeMap.this.clear();
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseFirst() {
+            return LongTreeMap.this.firstEntry();
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseLast() {
+            return LongTreeMap.this.lastEntry();
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseLower(Long key) {
+            return LongTreeMap.this.lowerEntry(key);
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseFloor(Long key) {
+            return LongTreeMap.this.floorEntry(key);
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseCeiling(Long key) {
+            return LongTreeMap.this.ceilingEntry(key);
+        }
+
+        @Override
+        protected Map.Entry<Long, V> baseHigher(Long key) {
+            return LongTreeMap.this.higherEntry(key);
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        @Override
+        protected Iterator<Map.Entry<Long, V>> baseIterator(Long from, boolean inclusive, boolean descending) {
+            Iterator i = (from == null) ? new EntryIterator(descending) : iterator(from, inclusive, descending);
+            return i;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package edu.depauw.algorithms;
 
 import java.util.Iterator;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * One way to implement a {@link Bag} is to use a {@link Map} that maps each
@@ -87,18 +88,32 @@ public class MapBag<E> implements Bag<E> {
         map.clear();
     }
 
+    /**
+     * Performs the given action once for each copy of each element, walking the
+     * underlying map's entries directly.
+     */
+    @Override
+    public void forEach(Consumer<? super E> action) {
+        for (Map.Entry<E, Integer> entry : map.entrySet()) {
+            E e = entry.getKey();
+            for (int n = entry.getValue(); n > 0; n--) {
+                action.accept(e);
+            }
+        }
+    }
+
     private class MapBagIterator implements Iterator<E> {
-        private Iterator<E> it;
+        private Iterator<Map.Entry<E, Integer>> it;
         private E current;
-        private int n;
-        private int count;
+        private int remaining;
         private int total;
 
         public MapBagIterator() {
-            this.it = map.keySet().iterator();
-            this.current = (it.hasNext()) ? it.next() : null;
-            this.n = (current != null) ? map.get(current) : 0;
-            this.count = 0;
+            // iterate over entries, so each count comes with its key instead of
+            // needing another lookup in the map
+            this.it = map.entrySet().iterator();
+            this.current = null;
+            this.remaining = 0;
             this.total = 0;
         }
 
@@ -109,12 +124,12 @@ public class MapBag<E> implements Bag<E> {
 
         @Override
         public E next() {
-            while (count >= n) {
-                current = it.next();
-                n = map.get(current);
-                count = 0;
+            while (remaining == 0) {
+                var entry = it.next();
+                current = entry.getKey();
+                remaining = entry.getValue();
             }
-            count++;
+            remaining--;
             total++;
             return current;
         }
@@ -0,0 +1,223 @@
+package edu.depauw.algorithms;
+
+import java.util.AbstractMap;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import edu.depauw.algorithms.details.NavigableMapDetails;
+
+/**
+ * Immutable navigable map, backed by a red-black tree that is never changed in
+ * place. Instead, {@link #plus(Object, Object)} and {@link #minus(Object)}
+ * return a new map that shares every entry of this one except the O(log n)
+ * entries on the path to the change, which they copy (path copying, as in
+ * Driscoll, Sarnak, Sleator, and Tarjan, "Making Data Structures Persistent",
+ * 1989). So old versions stay valid, and any number of threads may read a
+ * version while another makes new ones from it.
+ *
+ * The trees are those of {@link TreeMap}, which can hand its entries to a new
+ * persistent map in constant time with {@link TreeMap#snapshot()};
+ * {@link #toTreeMap()} goes the other way. The {@code NavigableMap} methods
+ * that would change the map throw {@code UnsupportedOperationException}.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+public final class PersistentTreeMap<K, V> extends NavigableMapDetails<K, V> {
+    private final TreeMap<K, V> tree; // never changed after construction
+
+    public PersistentTreeMap() {
+        this(new TreeMap<>());
+    }
+
+    public PersistentTreeMap(Comparator<? super K> comparator) {
+        this(new TreeMap<>(comparator));
+    }
+
+    // takes over tree, which must not be changed by anything else
+    PersistentTreeMap(TreeMap<K, V> tree) {
+        tree.freeze();
+        this.tree = tree;
+    }
+
+    /**
+     * Returns a map with the same entries as this one, except that key maps
+     * to value.
+     *
+     * @param key   the key
+     * @param value the value
+     * @return the updated map
+     */
+    public PersistentTreeMap<K, V> plus(K key, V value) {
+        var next = tree.copy();
+        next.put(key, value);
+        return new PersistentTreeMap<>(next);
+    }
+
+    /**
+     * Returns a map with the same entries as this one, except for any mapping
+     * for key. If there is none, this map is returned.
+     *
+     * @param key the key
+     * @return the updated map
+     */
+    public PersistentTreeMap<K, V> minus(Object key) {
+        if (!tree.containsKey(key)) {
+            return this;
+        }
+        var next = tree.copy();
+        next.remove(key);
+        return new PersistentTreeMap<>(next);
+    }
+
+    /**
+     * Returns a mutable map with the same entries as this one, in constant time.
+     * It copies the entries that it changes, so this map is not affected.
+     *
+     * @return a new mutable map
+     */
+    public TreeMap<K, V> toTreeMap() {
+        return tree.copy();
+    }
+
+    /**
+     * Returns the number of keys in this map that are less than the given key.
+     *
+     * @param key the key
+     * @return the rank of the key
+     */
+    public int rank(K key) {
+        return tree.rank(key);
+    }
+
+    /**
+     * Returns the key of the given rank.
+     *
+     * @param index the rank, from 0 to {@code size() - 1}
+     * @return the key with exactly {@code index} smaller keys
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public K select(int index) {
+        return tree.select(index);
+    }
+
+    // number of entries in this map that are not shared with other
+    int entriesNotIn(PersistentTreeMap<K, V> other) {
+        return tree.entriesNotIn(other.tree);
+    }
+
+    // ------------------------------------------------------------------------
+    // Primitive operations for NavigableMapDetails
+
+    @Override
+    protected Comparator<? super K> keyOrder() {
+        return tree.comparator();
+    }
+
+    @Override
+    protected int baseSize() {
+        return tree.size();
+    }
+
+    @Override
+    protected V baseGet(K key) {
+        return tree.get(key);
+    }
+
+    @Override
+    protected boolean baseContainsKey(K key) {
+        return tree.containsKey(key);
+    }
+
+    @Override
+    protected V basePut(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected V baseRemove(K key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void baseClear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected void baseCheckModifiable() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFirst() {
+        return tree.firstEntry();
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLast() {
+        return tree.lastEntry();
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseLower(K key) {
+        return tree.lowerEntry(key);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseFloor(K key) {
+        return tree.floorEntry(key);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseCeiling(K key) {
+        return tree.ceilingEntry(key);
+    }
+
+    @Override
+    protected Map.Entry<K, V> baseHigher(K key) {
+        return tree.higherEntry(key);
+    }
+
+    @Override
+    protected Iterator<Map.Entry<K, V>> baseIterator(K from, boolean inclusive, boolean descending) {
+        var cursor = tree.cursor();
+        boolean positioned;
+        if (from == null) {
+            positioned = descending ? cursor.seekLast() : cursor.seekFirst();
+        } else if (!cursor.seek(from)) {
+            positioned = descending && cursor.seekLast();
+        } else {
+            int c = keyOrder().compare(cursor.key(), from);
+            if (descending && (c > 0 || !inclusive)) {
+                positioned = cursor.prev();
+            } else if (!descending && c == 0 && !inclusive) {
+                positioned = cursor.next();
+            } else {
+                positioned = true;
+            }
+        }
+
+        boolean start = positioned;
+        return new Iterator<Map.Entry<K, V>>() {
+            private boolean more = start;
+
+            @Override
+            public boolean hasNext() {
+                return more;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (!more) {
+                    throw new NoSuchElementException();
+                }
+                var e = new AbstractMap.SimpleImmutableEntry<>(cursor.key(), cursor.value());
+                more = descending ? cursor.prev() : cursor.next();
+                return e;
+            }
+        };
+    }
+}
@@ -0,0 +1,382 @@
+package edu.depauw.algorithms;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded first-in, first-out queue for handing elements from one producer
+ * thread to one consumer thread without locks. It is a sibling of
+ * {@link ArrayDeque}, with the same circular buffer: a power-of-two array
+ * {@code data}, with a head index where the consumer takes elements and a tail
+ * index where the producer adds them. Here head and tail are counters that
+ * only increase, and are masked to find the array index, so that the queue
+ * is full when {@code tail - head} reaches the capacity.
+ *
+ * Only the producer changes tail and only the consumer changes head, so
+ * neither needs an atomic update: each side publishes its counter with a
+ * release store, after the array stores that it covers, and reads the other
+ * side's counter with an acquire load, before the array loads that it covers.
+ * Each counter is padded to a cache line of its own, so the two threads do not
+ * invalidate each other's caches when neither has touched the other's data,
+ * and each side keeps a cached copy of the other side's counter, rereading it
+ * only when the cached copy says the queue is full (or empty).
+ *
+ * The methods {@link #offer} and {@link #offerBatch} may only be called from
+ * one producer thread at a time, and {@link #poll}, {@link #peek}, and
+ * {@link #drain} from one consumer thread at a time; {@link #size} and
+ * {@link #isEmpty} may be called from any thread. Null elements are not
+ * allowed, since {@code poll} returns null for an empty queue.
+ *
+ * @param <E> the type of elements
+ */
+public class SpscArrayQueue<E> {
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    private final Object[] data;
+    private final int mask;
+    private final int capacity;
+    private final Counter head; // the consumer's counter, and its copy of tail
+    private final Counter tail; // the producer's counter, and its copy of head
+
+    private static class CounterPadding {
+        long p0, p1, p2, p3, p4, p5, p6;
+    }
+
+    private static class CounterFields extends CounterPadding {
+        long value; // read and written through VALUE by the other thread
+        long cache; // the owner's last view of the other counter
+    }
+
+    /**
+     * A counter on a cache line of its own. Superclass fields are laid out
+     * before subclass fields, so the padding on either side cannot be moved
+     * away from the counter.
+     */
+    private static final class Counter extends CounterFields {
+        long q0, q1, q2, q3, q4, q5, q6;
+    }
+
+    private static final VarHandle VALUE;
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(CounterFields.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Constructs an empty queue that holds at most the given number of elements.
+     *
+     * @param capacity the maximum number of elements
+     * @throws IllegalArgumentException if the capacity is not positive, or is
+     *                                  more than 2<sup>30</sup>
+     */
+    public SpscArrayQueue(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Illegal Capacity: " + capacity);
+        }
+        int length = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.data = new Object[length];
+        this.mask = length - 1;
+        this.capacity = capacity;
+        this.head = new Counter();
+        this.tail = new Counter();
+    }
+
+    /**
+     * Returns the maximum number of elements in this queue.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of elements in this queue. If the producer or consumer
+     * is active, the result may be out of date as soon as it is returned.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        long h = (long) VALUE.getAcquire(head);
+        long t = (long) VALUE.getAcquire(tail);
+        // head may have passed the tail that was read before it
+        return (int) Math.max(0, Math.min(capacity, t - h));
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, if it is not
+     * full. Producer only.
+     *
+     * @param e the element to add
+     * @return {@code true} if the element was added, {@code false} if the queue
+     *         was full
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        final Counter t = tail;
+        final long index = t.value;
+        if (index - t.cache >= capacity) {
+            t.cache = (long) VALUE.getAcquire(head);
+            if (index - t.cache >= capacity) {
+                return false;
+            }
+        }
+        data[(int) index & mask] = e;
+        VALUE.setRelease(t, index + 1);
+        return true;
+    }
+
+    /**
+     * Inserts as many of the elements {@code a[from]}, ..., {@code a[to - 1]}
+     * as there is room for at the tail of this queue, in order, and makes them
+     * visible to the consumer all at once. The elements are stored with at most
+     * two {@code System.arraycopy} calls. Producer only.
+     *
+     * @param a    the array of elements to add
+     * @param from the index of the first element to add
+     * @param to   the index after the last element to add
+     * @return the number of elements added
+     * @throws IndexOutOfBoundsException if the range is not within the array
+     * @throws NullPointerException      if one of the elements is null; none
+     *                                   are added in that case
+     */
+    public int offerBatch(E[] a, int from, int to) {
+        Objects.checkFromToIndex(from, to, a.length);
+        final Counter t = tail;
+        final long index = t.value;
+        int n = to - from;
+        if (index - t.cache > capacity - n) {
+            t.cache = (long) VALUE.getAcquire(head);
+            n = (int) Math.min(n, capacity - (index - t.cache));
+        }
+        for (int k = from; k < from + n; k++) {
+            Objects.requireNonNull(a[k]);
+        }
+        final int i = (int) index & mask;
+        final int front = Math.min(n, data.length - i);
+        System.arraycopy(a, from, data, i, front);
+        System.arraycopy(a, from + front, data, 0, n - front);
+        VALUE.setRelease(t, index + n);
+        return n;
+    }
+
+    /**
+     * Removes and returns the element at the head of this queue. Consumer only.
+     *
+     * @return the head of this queue, or {@code null} if it is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final Counter h = head;
+        final long index = h.value;
+        if (index >= h.cache) {
+            h.cache = (long) VALUE.getAcquire(tail);
+            if (index >= h.cache) {
+                return null;
+            }
+        }
+        final int i = (int) index & mask;
+        E e = (E) data[i];
+        data[i] = null;
+        VALUE.setRelease(h, index + 1);
+        return e;
+    }
+
+    /**
+     * Returns, without removing, the element at the head of this queue.
+     * Consumer only.
+     *
+     * @return the head of this queue, or {@code null} if it is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Counter h = head;
+        final long index = h.value;
+        if (index >= h.cache) {
+            h.cache = (long) VALUE.getAcquire(tail);
+            if (index >= h.cache) {
+                return null;
+            }
+        }
+        return (E) data[(int) index & mask];
+    }
+
+    /**
+     * Removes up to {@code max} elements from the head of this queue, passing
+     * each in turn to the given action, and then releases all of their slots
+     * to the producer at once. Consumer only.
+     *
+     * <p>
+     * If the action throws an exception, the element it was given and those
+     * before it have been removed, and the exception is rethrown.
+     *
+     * @param action the action to perform on each element
+     * @param max    the maximum number of elements to remove
+     * @return the number of elements removed
+     * @throws IllegalArgumentException if max is negative
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> action, int max) {
+        Objects.requireNonNull(action);
+        if (max < 0) {
+            throw new IllegalArgumentException("Illegal max: " + max);
+        }
+        final Counter h = head;
+        final long index = h.value;
+        if (index + max > h.cache) {
+            h.cache = (long) VALUE.getAcquire(tail);
+        }
+        final int n = (int) Math.min(max, h.cache - index);
+        int k = 0;
+        try {
+            while (k < n) {
+                final int i = (int) (index + k) & mask;
+                E e = (E) data[i];
+                data[i] = null;
+                k++;
+                action.accept(e);
+            }
+        } finally {
+            if (k > 0) {
+                VALUE.setRelease(h, index + k);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Measures the throughput of handing integers from one thread to another,
+     * through an {@code SpscArrayQueue} one at a time and in batches, and
+     * through an {@link ArrayDeque} guarded by {@code synchronized}. A thread
+     * that finds the queue full (or empty) yields, rather than spinning, so the
+     * comparison is also fair on a machine with fewer cores than threads.
+     *
+     * @param args optionally, the number of elements to transfer
+     * @throws InterruptedException if interrupted while waiting for the threads
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int count = (args.length > 0) ? Integer.parseInt(args[0]) : 20_000_000;
+        int capacity = 1 << 14;
+        int batch = 256;
+
+        Integer[] items = new Integer[1024];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = i;
+        }
+
+        for (int round = 0; round < 3; round++) {
+            var single = new SpscArrayQueue<Integer>(capacity);
+            double spsc = transfer(count, () -> {
+                for (int i = 0; i < count; i++) {
+                    while (!single.offer(items[i & 1023])) {
+                        Thread.yield();
+                    }
+                }
+            }, () -> {
+                long sum = 0;
+                for (int i = 0; i < count; i++) {
+                    Integer e;
+                    while ((e = single.poll()) == null) {
+                        Thread.yield();
+                    }
+                    sum += e;
+                }
+                return sum;
+            });
+
+            var batched = new SpscArrayQueue<Integer>(capacity);
+            double spscBatch = transfer(count, () -> {
+                for (int i = 0; i < count;) {
+                    int from = i & 1023;
+                    int to = Math.min(Math.min(from + batch, items.length), from + count - i);
+                    int n = batched.offerBatch(items, from, to);
+                    if (n == 0) {
+                        Thread.yield();
+                    }
+                    i += n;
+                }
+            }, () -> {
+                long[] sum = new long[1];
+                for (int i = 0; i < count;) {
+                    int n = batched.drain(e -> sum[0] += e, batch);
+                    if (n == 0) {
+                        Thread.yield();
+                    }
+                    i += n;
+                }
+                return sum[0];
+            });
+
+            var deque = new ArrayDeque<Integer>(capacity);
+            double locked = transfer(count, () -> {
+                for (int i = 0; i < count; i++) {
+                    synchronized (deque) {
+                        deque.addLast(items[i & 1023]);
+                    }
+                }
+            }, () -> {
+                long sum = 0;
+                for (int i = 0; i < count; i++) {
+                    Integer e;
+                    while (true) {
+                        synchronized (deque) {
+                            e = deque.pollFirst();
+                        }
+                        if (e != null) {
+                            break;
+                        }
+                        Thread.yield();
+                    }
+                    sum += e;
+                }
+                return sum;
+            });
+
+            System.out.printf("SpscArrayQueue %.1f Mops/s, batches of %d %.1f Mops/s, synchronized ArrayDeque %.1f Mops/s%n",
+                    spsc, batch, spscBatch, locked);
+        }
+    }
+
+    private static double transfer(int count, Runnable producer, LongSupplier consumer) throws InterruptedException {
+        var start = new CountDownLatch(1);
+        var thread = new Thread(() -> {
+            try {
+                start.await();
+            } catch (InterruptedException e) {
+                return;
+            }
+            producer.run();
+        });
+        thread.start();
+        long startTime = System.nanoTime();
+        start.countDown();
+        long sum = consumer.getAsLong();
+        long elapsed = System.nanoTime() - startTime;
+        thread.join();
+        long expected = (long) (count / 1024) * (1023 * 1024 / 2);
+        for (int i = count / 1024 * 1024; i < count; i++) {
+            expected += i & 1023;
+        }
+        if (sum != expected) {
+            throw new AssertionError("lost or repeated elements");
+        }
+        return (double) count * 1000 / elapsed;
+    }
+}
@@ -3,10 +3,13 @@ package edu.depauw.algorithms;
 import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.NavigableSet;
@@ -23,6 +26,17 @@ import java.util.function.Function;
 /**
  * Red-Black tree implementation based on Sedgewick, "Algorithms" (4th edition).
  *
+ * Each entry also records the number of entries in its subtree, as in
+ * Sedgewick's RedBlackBST, so that {@link #rank(Object)}, {@link #select(int)}
+ * and the {@code size()} of a submap take logarithmic time.
+ *
+ * Entries have no parent links, so a subtree can be shared between maps. Each
+ * entry records the {@link Owner} that may change it in place; any other map
+ * copies the entry, and the path down to it, before making a change. Then
+ * {@link #snapshot()} takes constant time: it hands the current entries over to
+ * an immutable {@link PersistentTreeMap}, and each later update of this map
+ * copies only the O(log n) entries it touches.
+ *
  * @param <K>
  * @param <V>
  */
@@ -30,19 +44,34 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     private Comparator<? super K> comparator;
     private Entry<K, V> root;
     private int size;
+    private Entry<K, V>[] path; // scratch stack for put, allocated on first use
+    private Owner owner; // marks the entries this map may change in place
+
+    /**
+     * The identity of a map that may change its entries in place. Once the
+     * entries are shared with a snapshot, their owner is marked shared and the
+     * map takes a new owner.
+     */
+    private static final class Owner {
+        private boolean shared;
+    }
 
     private static class Entry<K, V> implements Map.Entry<K, V> {
         private K key;
         private V value;
         private Entry<K, V> left, right;
         private boolean red;
+        private int size; // number of entries in the subtree rooted here
+        private final Owner owner; // null for an exported copy
 
-        public Entry(K key, V value) {
+        public Entry(K key, V value, Owner owner) {
             this.key = key;
             this.value = value;
             this.left = null;
             this.right = null;
             this.red = true;
+            this.size = 1;
+            this.owner = owner;
         }
 
         public Entry(Entry<K, V> entry) {
@@ -51,6 +80,19 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             this.left = null;
             this.right = null;
             this.red = false;
+            this.size = 1;
+            this.owner = null;
+        }
+
+        // a copy of entry, with the same children, for the given owner
+        private Entry(Entry<K, V> entry, Owner owner) {
+            this.key = entry.key;
+            this.value = entry.value;
+            this.left = entry.left;
+            this.right = entry.right;
+            this.red = entry.red;
+            this.size = entry.size;
+            this.owner = owner;
         }
 
         @Override
@@ -65,6 +107,9 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         public V setValue(V value) {
+            if (owner != null && owner.shared) {
+                throw new UnsupportedOperationException("entry is shared with a snapshot");
+            }
             V oldValue = this.value;
             this.value = value;
             return oldValue;
@@ -103,12 +148,14 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         this.comparator = (Comparator<? super K>) Comparator.naturalOrder();
         this.root = null;
         this.size = 0;
+        this.owner = new Owner();
     }
 
     public TreeMap(Comparator<? super K> comparator) {
         this.comparator = comparator;
         this.root = null;
         this.size = 0;
+        this.owner = new Owner();
     }
 
     public TreeMap(Map<? extends K, ? extends V> map) {
@@ -116,6 +163,157 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         putAll(map);
     }
 
+    /**
+     * Constructs a map with the same entries and ordering as the given sorted
+     * map, in linear time.
+     *
+     * @param map the sorted map whose entries are to be copied
+     */
+    @SuppressWarnings("unchecked")
+    public TreeMap(SortedMap<K, ? extends V> map) {
+        this.comparator = map.comparator() != null ? map.comparator()
+                : (Comparator<? super K>) Comparator.naturalOrder();
+        this.owner = new Owner();
+        buildFromSorted(map.size(), map.entrySet().iterator());
+    }
+
+    /**
+     * Returns a map of the given keys and values, built in linear time. The
+     * keys must be in strictly increasing order.
+     *
+     * @param keys       the keys, in increasing order
+     * @param values     the values, in the order of their keys
+     * @param comparator the ordering of the keys, or null for natural ordering
+     * @return a map from {@code keys[i]} to {@code values[i]} for each i
+     * @throws IllegalArgumentException if the arrays differ in length or the
+     *                                  keys are not in increasing order
+     */
+    public static <K, V> TreeMap<K, V> fromSorted(K[] keys, V[] values, Comparator<? super K> comparator) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("keys and values differ in length");
+        }
+        List<Map.Entry<K, V>> entries = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(keys[i], values[i]));
+        }
+        return fromSorted(entries.iterator(), comparator);
+    }
+
+    /**
+     * Returns a map of the entries from the given iterator, built in linear
+     * time. The keys must be in strictly increasing order.
+     *
+     * @param entries    the entries, in increasing order of their keys
+     * @param comparator the ordering of the keys, or null for natural ordering
+     * @return a map of the entries
+     * @throws IllegalArgumentException if the keys are not in increasing order
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> TreeMap<K, V> fromSorted(Iterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+            Comparator<? super K> comparator) {
+        TreeMap<K, V> map = comparator != null ? new TreeMap<>(comparator) : new TreeMap<>();
+        List<Map.Entry<K, V>> list = new ArrayList<>();
+        while (entries.hasNext()) {
+            var entry = entries.next();
+            K key = entry.getKey();
+            if (key == null) {
+                throw new NullPointerException();
+            }
+            if (!list.isEmpty() && map.compare(list.get(list.size() - 1).getKey(), key) >= 0) {
+                throw new IllegalArgumentException("keys are not in increasing order");
+            }
+            list.add(new AbstractMap.SimpleImmutableEntry<>(key, entry.getValue()));
+        }
+        map.buildFromSorted(list.size(), list.iterator());
+        return map;
+    }
+
+    /**
+     * Copies all of the mappings from the given map to this map. If this map is
+     * empty and the given map is a sorted map with the same ordering, the tree
+     * is built directly in linear time.
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> map) {
+        if (size == 0 && map instanceof SortedMap<?, ?> sorted && sameOrder(sorted.comparator())) {
+            buildFromSorted(map.size(), map.entrySet().iterator());
+        } else {
+            super.putAll(map);
+        }
+    }
+
+    // does a sorted map with the given comparator order its keys as this map does?
+    private boolean sameOrder(Comparator<?> other) {
+        Comparator<?> natural = Comparator.naturalOrder();
+        return Objects.equals(other != null ? other : natural, comparator);
+    }
+
+    // the largest number of keys in a 2-3 tree of height h is 3^h - 1
+    private static final long[] MAX_KEYS = new long[33];
+    static {
+        long power = 1;
+        for (int h = 0; h < MAX_KEYS.length; h++, power *= 3) {
+            MAX_KEYS[h] = power - 1;
+        }
+    }
+
+    /**
+     * Replace the contents of this map with n entries taken from the iterator,
+     * which must supply them in increasing key order. The tree is built bottom up
+     * in linear time with no comparisons and no rotations. The black height is
+     * the largest h with 2^h - 1 <= n, since a 2-3 tree of height h holds from
+     * 2^h - 1 to 3^h - 1 keys. (Coloring only the bottom level red, as
+     * java.util.TreeMap does, would make right-leaning red links.)
+     */
+    private void buildFromSorted(int n, Iterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        int height = 0;
+        while ((2L << height) - 1 <= n) {
+            height++;
+        }
+        root = build(n, height, entries);
+        size = n;
+    }
+
+    // build a left-leaning red-black tree of black height h from the next n entries
+    private Entry<K, V> build(int n, int h, Iterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        if (n == 0) {
+            return null;
+        }
+        if (n - 1 <= 2 * MAX_KEYS[h - 1]) {
+            // a 2-node: one black entry between two subtrees
+            int leftSize = (n - 1) / 2;
+            var left = build(leftSize, h - 1, entries);
+            var node = newEntry(entries.next(), false);
+            node.left = left;
+            node.right = build(n - 1 - leftSize, h - 1, entries);
+            node.size = n;
+            return node;
+        }
+
+        // a 3-node: a black entry with a red left child, between three subtrees
+        int a = (n - 2) / 3;
+        int b = (n - 2 - a) / 2;
+        var first = build(a, h - 1, entries);
+        var red = newEntry(entries.next(), true);
+        red.left = first;
+        red.right = build(b, h - 1, entries);
+        red.size = a + b + 1;
+        var node = newEntry(entries.next(), false);
+        node.left = red;
+        node.right = build(n - 2 - a - b, h - 1, entries);
+        node.size = n;
+        return node;
+    }
+
+    private Entry<K, V> newEntry(Map.Entry<? extends K, ? extends V> entry, boolean red) {
+        if (entry.getKey() == null) {
+            throw new NullPointerException();
+        }
+        var node = new Entry<K, V>(entry.getKey(), entry.getValue(), owner);
+        node.red = red;
+        return node;
+    }
+
     @Override
     public boolean containsKey(Object key) {
         var node = getEntry(key);
@@ -141,12 +339,12 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     private Entry<K, V> getEntry(Entry<K, V> node, K key) {
-        if (node != null) {
+        while (node != null) {
             int compare = compare(key, node.key);
             if (compare < 0) {
-                return getEntry(node.left, key);
+                node = node.left;
             } else if (compare > 0) {
-                return getEntry(node.right, key);
+                node = node.right;
             } else {
                 return node;
             }
@@ -166,55 +364,123 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         if (key == null) {
             throw new NullPointerException();
         }
-        var node = getEntry(key);
-        if (node != null) {
-            var oldValue = node.value;
-            node.value = value;
-            return oldValue;
+        if (root == null) {
+            root = new Entry<>(key, value, owner);
+            root.red = false;
+            size = 1;
+            return null;
         }
 
-        // It is a minor inefficiency that we re-traverse from the root if the key was
-        // not found, but the recursive code is cleaner than more efficient alternative.
-        root = putNew(root, key, value);
-        root.red = false;
-        size++;
-        return null;
-    }
-
-    /**
-     * Insert a new Entry for the given key, value. Precondition: key does not
-     * already exist in the tree under node.
-     *
-     * Red-black tree maintenance based on Sedgewick.
-     *
-     * @param node
-     * @param key
-     * @param value
-     * @return
-     */
-    private Entry<K, V> putNew(Entry<K, V> node, K key, V value) {
-        if (node != null) {
+        // one descent, remembering only the turns taken; bit i of turns is set if
+        // the path goes right at depth i
+        long turns = 0;
+        int depth = 0;
+        var node = root;
+        while (true) {
             int compare = compare(key, node.key);
-            if (compare < 0) {
-                node.left = putNew(node.left, key, value);
-            } else {
-                node.right = putNew(node.right, key, value);
+            if (compare == 0) {
+                if (node.owner != owner) {
+                    node = ownPath(turns, depth);
+                }
+                var oldValue = node.value;
+                node.value = value;
+                return oldValue;
             }
+            if (compare > 0) {
+                turns |= 1L << depth;
+            }
+            depth++;
+            var child = compare < 0 ? node.left : node.right;
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
 
+        // retrace the path, without comparisons, counting the new entry in the
+        // size of each ancestor; updates of existing keys never get here. The
+        // ancestors of an entry this map owns are owned too, so only a path
+        // that ends in a shared entry needs copying first.
+        if (node.owner != owner) {
+            ownPath(turns, depth - 1);
+        }
+        if (path == null) {
+            path = newPath();
+        }
+        node = root;
+        for (int i = 0; i < depth; i++) {
+            path[i] = node;
+            node.size++;
+            node = ((turns >>> i) & 1) == 0 ? node.left : node.right;
+        }
+        if (((turns >>> (depth - 1)) & 1) == 0) {
+            path[depth - 1].left = new Entry<>(key, value, owner);
+        } else {
+            path[depth - 1].right = new Entry<>(key, value, owner);
+        }
+
+        // restore the red-black invariants from the bottom up, as the recursive
+        // insertion in Sedgewick would on its way out. A rotation keeps the color
+        // of the link from the parent, so once a level flips no colors and leaves
+        // no two red links in a row, nothing above it can change.
+        for (int i = depth - 1; i >= 0; i--) {
+            var original = path[i];
+            node = original;
             if (isRed(node.right) && isBlack(node.left)) {
                 node = rotateLeft(node);
             }
             if (isRed(node.left) && isRed(node.left.left)) {
                 node = rotateRight(node);
             }
-            if (isRed(node.left) && isRed(node.right)) {
+            boolean flipped = isRed(node.left) && isRed(node.right);
+            if (flipped) {
                 flipColors(node);
             }
+            if (node != original) {
+                if (i == 0) {
+                    root = node;
+                } else if (path[i - 1].left == original) {
+                    path[i - 1].left = node;
+                } else {
+                    path[i - 1].right = node;
+                }
+            }
+            if (!flipped && !(node.red && isRed(node.left))) {
+                break;
+            }
+        }
+        Arrays.fill(path, 0, depth, null);
+        root.red = false;
+        size++;
+        return null;
+    }
 
-            return node;
+    // copy the entries on the path with the given turns that this map does not
+    // own, and return the last one
+    private Entry<K, V> ownPath(long turns, int depth) {
+        var node = root = own(root);
+        for (int i = 0; i < depth; i++) {
+            if (((turns >>> i) & 1) != 0) {
+                node = node.right = own(node.right);
+            } else {
+                node = node.left = own(node.left);
+            }
         }
+        return node;
+    }
+
+    // the entry itself if this map owns it, or else a copy that it owns; the
+    // caller links the result in place of the entry
+    private Entry<K, V> own(Entry<K, V> node) {
+        return (node.owner == owner) ? node : new Entry<>(node, owner);
+    }
 
-        return new Entry<>(key, value);
+    // a left-leaning red-black tree of n entries is at most 2 lg n high, so a
+    // path in a map of up to Integer.MAX_VALUE entries has its entries fit in
+    // this array and its turns fit in the bits of a long
+    @SuppressWarnings("unchecked")
+    private static <K, V> Entry<K, V>[] newPath() {
+        return (Entry<K, V>[]) new Entry<?, ?>[64];
     }
 
     @SuppressWarnings("unchecked")
@@ -226,6 +492,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
             // if both children of root are black, set root to red
             if (isBlack(root.left) && isBlack(root.right)) {
+                root = own(root);
                 root.red = true;
             }
 
@@ -242,6 +509,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
     // delete the key-value pair with the given key rooted at h
     private Entry<K, V> delete(Entry<K, V> node, K key) {
+        node = own(node);
         int compare = compare(key, node.key);
         if (compare < 0) {
             if (isBlack(node.left) && isBlack(node.left.left)) {
@@ -273,7 +541,11 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     @Override
-    public Entry<K, V> firstEntry() {
+    public Map.Entry<K, V> firstEntry() {
+        return liveEntryOrNull(getFirstEntry());
+    }
+
+    private Entry<K, V> getFirstEntry() {
         if (root == null) {
             return null;
         }
@@ -282,15 +554,18 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     private Entry<K, V> min(Entry<K, V> node) {
-        if (node.left == null) {
-            return node;
+        while (node.left != null) {
+            node = node.left;
         }
-
-        return min(node.left);
+        return node;
     }
 
     @Override
-    public Entry<K, V> lastEntry() {
+    public Map.Entry<K, V> lastEntry() {
+        return liveEntryOrNull(getLastEntry());
+    }
+
+    private Entry<K, V> getLastEntry() {
         if (root == null) {
             return null;
         }
@@ -299,11 +574,10 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     private Entry<K, V> max(Entry<K, V> node) {
-        if (node.right == null) {
-            return node;
+        while (node.right != null) {
+            node = node.right;
         }
-
-        return max(node.right);
+        return node;
     }
 
     @Override
@@ -312,9 +586,10 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             return null;
         }
 
-        var oldEntry = exportEntry(firstEntry());
+        var oldEntry = exportEntry(getFirstEntry());
 
         if (isBlack(root.left) && isBlack(root.right)) {
+            root = own(root);
             root.red = true;
         }
         root = deleteMin(root);
@@ -330,6 +605,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         if (node.left == null) {
             return null;
         }
+        node = own(node);
         if (isBlack(node.left) && isBlack(node.left.left)) {
             node = moveRedLeft(node);
         }
@@ -343,9 +619,10 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             return null;
         }
 
-        var oldEntry = exportEntry(lastEntry());
+        var oldEntry = exportEntry(getLastEntry());
 
         if (isBlack(root.left) && isBlack(root.right)) {
+            root = own(root);
             root.red = true;
         }
         root = deleteMax(root);
@@ -359,6 +636,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
     // delete the key-value pair with the maximum key rooted at node
     private Entry<K, V> deleteMax(Entry<K, V> node) {
+        node = own(node);
         if (isRed(node.left)) {
             node = rotateRight(node);
         }
@@ -376,30 +654,41 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         return balance(node);
     }
 
-    // flip the colors of a Entry<K, V> and its two children
+    // flip the colors of a Entry<K, V> and its two children; node must be owned
+    // by this map, and the children are copied if they are not
     void flipColors(Entry<K, V> node) {
+        if (node.left.owner != owner) {
+            node.left = own(node.left);
+        }
+        if (node.right.owner != owner) {
+            node.right = own(node.right);
+        }
         node.red = !node.red;
         node.left.red = !node.left.red;
         node.right.red = !node.right.red;
     }
 
-    // make a left-leaning link lean to the right
+    // make a left-leaning link lean to the right; node must be owned by this map
     private Entry<K, V> rotateRight(Entry<K, V> node) {
-        var x = node.left;
+        var x = own(node.left);
         node.left = x.right;
         x.right = node;
         x.red = node.red;
         node.red = true;
+        x.size = node.size;
+        node.size = subtreeSize(node.left) + subtreeSize(node.right) + 1;
         return x;
     }
 
-    // make a right-leaning link lean to the left
+    // make a right-leaning link lean to the left; node must be owned by this map
     private Entry<K, V> rotateLeft(Entry<K, V> node) {
-        var x = node.right;
+        var x = own(node.right);
         node.right = x.left;
         x.left = node;
         x.red = node.red;
         node.red = true;
+        x.size = node.size;
+        node.size = subtreeSize(node.left) + subtreeSize(node.right) + 1;
         return x;
     }
 
@@ -437,9 +726,14 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         if (isRed(node.left) && isRed(node.right)) {
             flipColors(node);
         }
+        node.size = subtreeSize(node.left) + subtreeSize(node.right) + 1;
         return node;
     }
 
+    private static int subtreeSize(Entry<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
     private boolean isRed(Entry<K, V> node) {
         return node != null && node.red;
     }
@@ -448,44 +742,253 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         return node == null || !node.red;
     }
 
-    // Based on https://gist.github.com/rcaloras/36f9e5f94f4334e0827c5b52ec0d8115
-    private Entry<K, V> successor(Entry<K, V> node) {
-        if (node.right != null) {
-            return min(node.right);
+    /**
+     * An in-order walk over the tree, in ascending or descending key order. The
+     * entries still to be visited whose subtrees enclose the current position are
+     * kept on an explicit stack, so that each step takes amortized constant time
+     * and makes no key comparisons. (Parent links would do the same, but would
+     * stop an entry from being shared between trees.) Only positioning with
+     * {@code seek} compares keys.
+     */
+    final class Walk {
+        private final boolean descending;
+        private Entry<K, V>[] stack;
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        Walk(boolean descending) {
+            this.descending = descending;
+            this.stack = (Entry<K, V>[]) new Entry<?, ?>[16];
+            this.depth = 0;
+        }
+
+        // position at the lowest entry (the highest, if descending)
+        void first() {
+            depth = 0;
+            pushSpine(root);
+        }
+
+        // position at the first entry in walk order that is at or past key
+        // (strictly past, if not inclusive)
+        void seek(K key, boolean inclusive) {
+            depth = 0;
+            var node = root;
+            while (node != null) {
+                int compare = compare(key, node.key);
+                if (descending) {
+                    compare = -compare;
+                }
+                if (compare < 0) {
+                    push(node);
+                    node = near(node);
+                } else if (compare == 0 && inclusive) {
+                    push(node);
+                    return;
+                } else {
+                    node = far(node);
+                }
+            }
         }
 
-        return searchSucc(node, root, null);
-    }
+        // end the walk
+        void clear() {
+            depth = 0;
+        }
 
-    private Entry<K, V> searchSucc(Entry<K, V> node, Entry<K, V> current, Entry<K, V> candidate) {
-        if (current.equals(node)) {
-            return candidate;
+        // the entry at the current position, or null if the walk is over
+        Entry<K, V> peek() {
+            return (depth == 0) ? null : stack[depth - 1];
         }
 
-        if (compare(node.key, current.key) < 0) {
-            return searchSucc(node, current.left, current);
-        } else {
-            return searchSucc(node, current.right, candidate);
+        // move past the current entry, which must exist, and return it
+        Entry<K, V> advance() {
+            var node = stack[--depth];
+            pushSpine(far(node));
+            return node;
+        }
+
+        private Entry<K, V> near(Entry<K, V> node) {
+            return descending ? node.right : node.left;
         }
-    }
 
-    private Entry<K, V> predecessor(Entry<K, V> node) {
-        if (node.left != null) {
-            return max(node.left);
+        private Entry<K, V> far(Entry<K, V> node) {
+            return descending ? node.left : node.right;
+        }
+
+        private void pushSpine(Entry<K, V> node) {
+            while (node != null) {
+                push(node);
+                node = near(node);
+            }
         }
 
-        return searchPred(node, root, null);
+        private void push(Entry<K, V> node) {
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, 2 * depth);
+            }
+            stack[depth++] = node;
+        }
     }
 
-    private Entry<K, V> searchPred(Entry<K, V> node, Entry<K, V> current, Entry<K, V> candidate) {
-        if (current.equals(node)) {
-            return candidate;
+    /**
+     * Returns a new cursor over this map, positioned at no entry. Use one of the
+     * {@code seek} methods to place it.
+     *
+     * @return a cursor over this map
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * A reusable position in a map that can move to the next or previous entry
+     * and read or replace the value there, without creating any entry objects.
+     * Seeking takes logarithmic time, and a run of moves in one direction takes
+     * amortized constant time per move. Turning around costs one more seek.
+     *
+     * A cursor that has moved past either end, or has not yet been placed, is
+     * positioned at no entry. Then {@code key}, {@code value} and
+     * {@code setValue} throw {@code NoSuchElementException}, and {@code next}
+     * and {@code prev} return false until a {@code seek} places the cursor
+     * again. Any change to the set of keys in the map, other than through this
+     * cursor's {@code setValue}, leaves the cursor's position undefined until
+     * the next {@code seek}.
+     */
+    public final class Cursor {
+        private final Walk ascending;
+        private Walk descending; // created on the first move backwards
+        private Walk walk; // the walk positioned at the current entry, or null
+
+        private Cursor() {
+            this.ascending = new Walk(false);
+            this.descending = null;
+            this.walk = null;
         }
 
-        if (compare(node.key, current.key) < 0) {
-            return searchPred(node, current.left, candidate);
-        } else {
-            return searchPred(node, current.right, current);
+        /**
+         * Moves to the entry with the least key greater than or equal to the
+         * given key.
+         *
+         * @param key the key to seek
+         * @return true if there is such an entry
+         */
+        public boolean seek(K key) {
+            if (key == null) {
+                throw new NullPointerException();
+            }
+            ascending.seek(key, true);
+            return settle(ascending);
+        }
+
+        /**
+         * Moves to the entry with the least key.
+         *
+         * @return true if the map is not empty
+         */
+        public boolean seekFirst() {
+            ascending.first();
+            return settle(ascending);
+        }
+
+        /**
+         * Moves to the entry with the greatest key.
+         *
+         * @return true if the map is not empty
+         */
+        public boolean seekLast() {
+            var walk = descendingWalk();
+            walk.first();
+            return settle(walk);
+        }
+
+        /**
+         * Moves to the entry with the next greater key.
+         *
+         * @return true if there is such an entry
+         */
+        public boolean next() {
+            return move(ascending);
+        }
+
+        /**
+         * Moves to the entry with the next smaller key.
+         *
+         * @return true if there is such an entry
+         */
+        public boolean prev() {
+            return move(descendingWalk());
+        }
+
+        /**
+         * Returns the key of the current entry.
+         *
+         * @return the current key
+         * @throws NoSuchElementException if the cursor is at no entry
+         */
+        public K key() {
+            return current().key;
+        }
+
+        /**
+         * Returns the value of the current entry.
+         *
+         * @return the current value
+         * @throws NoSuchElementException if the cursor is at no entry
+         */
+        public V value() {
+            return current().value;
+        }
+
+        /**
+         * Replaces the value of the current entry.
+         *
+         * @param value the new value
+         * @return the old value
+         * @throws NoSuchElementException if the cursor is at no entry
+         */
+        public V setValue(V value) {
+            var node = current();
+            if (node.owner == owner) {
+                return node.setValue(value);
+            }
+            // the entry is shared with a snapshot, so put a copy in its place
+            // and find that instead
+            var oldValue = put(node.key, value);
+            walk.seek(node.key, true);
+            return oldValue;
+        }
+
+        private Entry<K, V> current() {
+            if (walk == null) {
+                throw new NoSuchElementException();
+            }
+            return walk.peek();
+        }
+
+        // step past the current entry in the direction of the given walk,
+        // repositioning that walk first if the cursor was moving the other way
+        private boolean move(Walk toward) {
+            if (walk == null) {
+                return false;
+            }
+            if (walk == toward) {
+                toward.advance();
+            } else {
+                toward.seek(walk.peek().key, false);
+            }
+            return settle(toward);
+        }
+
+        private boolean settle(Walk positioned) {
+            walk = (positioned.peek() != null) ? positioned : null;
+            return walk != null;
+        }
+
+        private Walk descendingWalk() {
+            if (descending == null) {
+                descending = new Walk(true);
+            }
+            return descending;
         }
     }
 
@@ -507,16 +1010,20 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
     @Override
     public K firstKey() {
-        return key(firstEntry());
+        return key(getFirstEntry());
     }
 
     @Override
     public K lastKey() {
-        return key(lastEntry());
+        return key(getLastEntry());
     }
 
     @Override
-    public Entry<K, V> lowerEntry(K key) {
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return liveEntryOrNull(getLowerEntry(key));
+    }
+
+    private Entry<K, V> getLowerEntry(K key) {
         if (root == null) {
             return null;
         }
@@ -527,29 +1034,29 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     // the largest key in the subtree rooted at x strictly less than the given
     // key
     private Entry<K, V> lower(Entry<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-
-        int compare = compare(key, node.key);
-        if (compare <= 0) {
-            return lower(node.left, key);
-        }
-        var t = lower(node.right, key);
-        if (t != null) {
-            return t;
-        } else {
-            return node;
+        Entry<K, V> best = null;
+        while (node != null) {
+            if (compare(key, node.key) <= 0) {
+                node = node.left;
+            } else {
+                best = node;
+                node = node.right;
+            }
         }
+        return best;
     }
 
     @Override
     public K lowerKey(K key) {
-        return keyOrNull(lowerEntry(key));
+        return keyOrNull(getLowerEntry(key));
     }
 
     @Override
-    public Entry<K, V> floorEntry(K key) {
+    public Map.Entry<K, V> floorEntry(K key) {
+        return liveEntryOrNull(getFloorEntry(key));
+    }
+
+    private Entry<K, V> getFloorEntry(K key) {
         if (root == null) {
             return null;
         }
@@ -560,32 +1067,33 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     // the largest key in the subtree rooted at x less than or equal to the given
     // key
     private Entry<K, V> floor(Entry<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-
-        int compare = compare(key, node.key);
-        if (compare == 0) {
-            return node;
-        }
-        if (compare < 0) {
-            return floor(node.left, key);
-        }
-        var t = floor(node.right, key);
-        if (t != null) {
-            return t;
-        } else {
-            return node;
+        Entry<K, V> best = null;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            if (compare == 0) {
+                return node;
+            }
+            if (compare < 0) {
+                node = node.left;
+            } else {
+                best = node;
+                node = node.right;
+            }
         }
+        return best;
     }
 
     @Override
     public K floorKey(K key) {
-        return keyOrNull(floorEntry(key));
+        return keyOrNull(getFloorEntry(key));
     }
 
     @Override
-    public Entry<K, V> ceilingEntry(K key) {
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return liveEntryOrNull(getCeilingEntry(key));
+    }
+
+    private Entry<K, V> getCeilingEntry(K key) {
         if (root == null) {
             return null;
         }
@@ -596,32 +1104,33 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     // the smallest entry in the subtree rooted at x greater than or equal to the
     // given key
     private Entry<K, V> ceiling(Entry<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-
-        int compare = compare(key, node.key);
-        if (compare == 0) {
-            return node;
-        }
-        if (compare > 0) {
-            return ceiling(node.right, key);
-        }
-        var t = ceiling(node.left, key);
-        if (t != null) {
-            return t;
-        } else {
-            return node;
+        Entry<K, V> best = null;
+        while (node != null) {
+            int compare = compare(key, node.key);
+            if (compare == 0) {
+                return node;
+            }
+            if (compare > 0) {
+                node = node.right;
+            } else {
+                best = node;
+                node = node.left;
+            }
         }
+        return best;
     }
 
     @Override
     public K ceilingKey(K key) {
-        return keyOrNull(ceilingEntry(key));
+        return keyOrNull(getCeilingEntry(key));
     }
 
     @Override
-    public Entry<K, V> higherEntry(K key) {
+    public Map.Entry<K, V> higherEntry(K key) {
+        return liveEntryOrNull(getHigherEntry(key));
+    }
+
+    private Entry<K, V> getHigherEntry(K key) {
         if (root == null) {
             return null;
         }
@@ -632,25 +1141,21 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     // the smallest key in the subtree rooted at x strictly greater than the given
     // key
     private Entry<K, V> higher(Entry<K, V> node, K key) {
-        if (node == null) {
-            return null;
-        }
-
-        int compare = compare(key, node.key);
-        if (compare >= 0) {
-            return higher(node.right, key);
-        }
-        var t = higher(node.left, key);
-        if (t != null) {
-            return t;
-        } else {
-            return node;
+        Entry<K, V> best = null;
+        while (node != null) {
+            if (compare(key, node.key) >= 0) {
+                node = node.right;
+            } else {
+                best = node;
+                node = node.left;
+            }
         }
+        return best;
     }
 
     @Override
     public K higherKey(K key) {
-        return keyOrNull(higherEntry(key));
+        return keyOrNull(getHigherEntry(key));
     }
 
     @Override
@@ -658,12 +1163,172 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         return size;
     }
 
+    /**
+     * Returns the number of keys in this map strictly less than {@code key}.
+     * The key need not be in the map.
+     *
+     * @param key the key
+     * @return the number of keys less than {@code key}
+     */
+    public int rank(K key) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        return countBelow(root, key, false);
+    }
+
+    /**
+     * Returns the key of the given rank, that is, the key with exactly
+     * {@code index} smaller keys in this map.
+     *
+     * @param index the rank, from 0 to {@code size() - 1}
+     * @return the key of rank {@code index}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= index < size()}
+     */
+    public K select(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return select(root, index).key;
+    }
+
+    private Entry<K, V> select(Entry<K, V> node, int index) {
+        int leftSize = subtreeSize(node.left);
+        if (index < leftSize) {
+            return select(node.left, index);
+        } else if (index > leftSize) {
+            return select(node.right, index - leftSize - 1);
+        } else {
+            return node;
+        }
+    }
+
+    // number of keys under node less than key, or not greater if inclusive
+    private int countBelow(Entry<K, V> node, K key, boolean inclusive) {
+        if (node == null) {
+            return 0;
+        }
+        int compare = compare(key, node.key);
+        if (compare < 0 || (compare == 0 && !inclusive)) {
+            return countBelow(node.left, key, inclusive);
+        }
+        return subtreeSize(node.left) + 1 + countBelow(node.right, key, inclusive);
+    }
+
+    void checkInvariants() {
+        assert root == null || !root.red;
+        assert subtreeSize(root) == size;
+        checkSubtree(root, null, null);
+    }
+
+    // check the subtree at node, whose keys are strictly between lo and hi
+    // (where null is unbounded): it is ordered and left-leaning, its sizes are
+    // right, and no red entry has a red child; return its black height
+    private int checkSubtree(Entry<K, V> node, K lo, K hi) {
+        if (node == null) {
+            return 0;
+        }
+        assert lo == null || compare(lo, node.key) < 0;
+        assert hi == null || compare(node.key, hi) < 0;
+        assert !isRed(node.right);
+        assert !(node.red && isRed(node.left));
+        assert node.size == subtreeSize(node.left) + subtreeSize(node.right) + 1;
+        int leftHeight = checkSubtree(node.left, lo, node.key);
+        int rightHeight = checkSubtree(node.right, node.key, hi);
+        assert leftHeight == rightHeight;
+        return leftHeight + (node.red ? 0 : 1);
+    }
+
     @Override
     public void clear() {
         root = null;
         size = 0;
     }
 
+    /**
+     * Returns an immutable copy of this map, in constant time. The copy shares
+     * all of the entries of this map; afterwards, each update of this map copies
+     * the entries it would change, so it makes O(log n) new entries.
+     *
+     * @return a persistent map with the current contents of this map
+     */
+    public PersistentTreeMap<K, V> snapshot() {
+        freeze();
+        return new PersistentTreeMap<>(copy());
+    }
+
+    /**
+     * Marks the current entries as shared, so that they are not changed in
+     * place any more: each map that holds them, this one included, copies them
+     * before changing them. The entries handed out by its iterators and its
+     * navigation methods, such as {@code ceilingEntry}, are then copies, and
+     * {@code setValue} on them puts a new value in the map.
+     */
+    void freeze() {
+        owner.shared = true;
+        owner = new Owner();
+    }
+
+    // a new map over the same entries as this one, which must be frozen
+    TreeMap<K, V> copy() {
+        var copy = new TreeMap<K, V>(comparator);
+        copy.root = root;
+        copy.size = size;
+        return copy;
+    }
+
+    // number of entries in this map's tree that are not in the tree of other,
+    // which shows how much an update copied
+    int entriesNotIn(TreeMap<K, V> other) {
+        Set<Entry<K, V>> shared = Collections.newSetFromMap(new IdentityHashMap<>());
+        collect(other.root, shared);
+        return countNotIn(root, shared);
+    }
+
+    private void collect(Entry<K, V> node, Set<Entry<K, V>> entries) {
+        if (node != null) {
+            entries.add(node);
+            collect(node.left, entries);
+            collect(node.right, entries);
+        }
+    }
+
+    private int countNotIn(Entry<K, V> node, Set<Entry<K, V>> entries) {
+        if (node == null || entries.contains(node)) {
+            return 0;
+        }
+        return 1 + countNotIn(node.left, entries) + countNotIn(node.right, entries);
+    }
+
+    // the entry to hand out for node from an iterator or a navigation method:
+    // node itself, unless it is shared and so must not change
+    private Map.Entry<K, V> liveEntry(Entry<K, V> node) {
+        return (node.owner == owner) ? node : new SharedEntry(node);
+    }
+
+    private Map.Entry<K, V> liveEntryOrNull(Entry<K, V> node) {
+        return (node == null) ? null : liveEntry(node);
+    }
+
+    /**
+     * A copy of a shared entry, handed out by an iterator or a navigation
+     * method. Setting its value puts the new
+     * value in this map, which copies the entry first.
+     */
+    private final class SharedEntry extends AbstractMap.SimpleEntry<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        SharedEntry(Entry<K, V> node) {
+            super(node.key, node.value);
+        }
+
+        @Override
+        public V setValue(V value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
     // ------------------------------------------------------------------------
     // Views -- Ignore everything from this point on if you don't want the gory
     // details
@@ -868,7 +1533,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     class Values extends AbstractCollection<V> {
         @Override
         public Iterator<V> iterator() {
-            return new ValueIterator(firstEntry());
+            return new ValueIterator(false);
         }
 
         @Override
@@ -883,9 +1548,9 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         public boolean remove(Object o) {
-            for (Entry<K, V> e = firstEntry(); e != null; e = successor(e)) {
-                if (Objects.equals(e.getValue(), o)) {
-                    TreeMap.this.remove(e.getKey());
+            for (Iterator<V> i = iterator(); i.hasNext();) {
+                if (Objects.equals(i.next(), o)) {
+                    i.remove();
                     return true;
                 }
             }
@@ -899,14 +1564,14 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         public Spliterator<V> spliterator() {
-            return new ValueSpliterator(TreeMap.this, null, null, 0, -1);
+            return new ValueSpliterator(null, false);
         }
     }
 
     class EntrySet extends AbstractSet<Map.Entry<K, V>> {
         @Override
         public Iterator<Map.Entry<K, V>> iterator() {
-            return new EntryIterator(firstEntry());
+            return new EntryIterator(false);
         }
 
         @Override
@@ -945,7 +1610,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         public Spliterator<Map.Entry<K, V>> spliterator() {
-            return new EntrySpliterator(TreeMap.this, null, null, 0, -1);
+            return new EntrySpliterator(null, false);
         }
     }
 
@@ -957,11 +1622,11 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
      */
 
     Iterator<K> keyIterator() {
-        return new KeyIterator(firstEntry());
+        return new KeyIterator(false);
     }
 
     Iterator<K> descendingKeyIterator() {
-        return new DescendingKeyIterator(lastEntry());
+        return new KeyIterator(true);
     }
 
     final class KeySet extends AbstractSet<K> implements NavigableSet<K> {
@@ -1112,37 +1777,26 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
      * Base class for TreeMap Iterators
      */
     abstract class PrivateEntryIterator<T> implements Iterator<T> {
-        Entry<K, V> next;
+        final Walk walk;
         Entry<K, V> lastReturned;
 
-        PrivateEntryIterator(Entry<K, V> first) {
+        PrivateEntryIterator(boolean descending) {
+            walk = new Walk(descending);
+            walk.first();
             lastReturned = null;
-            next = first;
-        }
-
-        @Override
-        public final boolean hasNext() {
-            return next != null;
         }
-
-        final Entry<K, V> nextEntry() {
-            Entry<K, V> e = next;
-            if (e == null) {
-                throw new NoSuchElementException();
-            }
-            next = successor(e);
-            lastReturned = e;
-            return e;
+
+        @Override
+        public final boolean hasNext() {
+            return walk.peek() != null;
         }
 
-        final Entry<K, V> prevEntry() {
-            Entry<K, V> e = next;
-            if (e == null) {
+        final Entry<K, V> nextEntry() {
+            if (walk.peek() == null) {
                 throw new NoSuchElementException();
             }
-            next = predecessor(e);
-            lastReturned = e;
-            return e;
+            lastReturned = walk.advance();
+            return lastReturned;
         }
 
         @Override
@@ -1150,29 +1804,32 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             if (lastReturned == null) {
                 throw new IllegalStateException();
             }
-            // deleted entries are replaced by their successors
-            if (lastReturned.left != null && lastReturned.right != null) {
-                next = lastReturned;
-            }
+            // removal may rebuild the path and move keys between entries, so
+            // find the next key again afterwards
+            var next = walk.peek();
+            K nextKey = (next == null) ? null : next.key;
             TreeMap.this.remove(lastReturned.getKey());
             lastReturned = null;
+            if (next != null) {
+                walk.seek(nextKey, true);
+            }
         }
     }
 
     final class EntryIterator extends PrivateEntryIterator<Map.Entry<K, V>> {
-        EntryIterator(Entry<K, V> first) {
-            super(first);
+        EntryIterator(boolean descending) {
+            super(descending);
         }
 
         @Override
         public Map.Entry<K, V> next() {
-            return nextEntry();
+            return liveEntry(nextEntry());
         }
     }
 
     final class ValueIterator extends PrivateEntryIterator<V> {
-        ValueIterator(Entry<K, V> first) {
-            super(first);
+        ValueIterator(boolean descending) {
+            super(descending);
         }
 
         @Override
@@ -1182,8 +1839,8 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     final class KeyIterator extends PrivateEntryIterator<K> {
-        KeyIterator(Entry<K, V> first) {
-            super(first);
+        KeyIterator(boolean descending) {
+            super(descending);
         }
 
         @Override
@@ -1192,26 +1849,6 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
         }
     }
 
-    final class DescendingKeyIterator extends PrivateEntryIterator<K> {
-        DescendingKeyIterator(Entry<K, V> first) {
-            super(first);
-        }
-
-        @Override
-        public K next() {
-            return prevEntry().key;
-        }
-
-        @Override
-        public void remove() {
-            if (lastReturned == null) {
-                throw new IllegalStateException();
-            }
-            TreeMap.this.remove(lastReturned.getKey());
-            lastReturned = null;
-        }
-    }
-
     // SubMaps
 
     /**
@@ -1304,13 +1941,13 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
          */
 
         final TreeMap.Entry<K, V> absLowest() {
-            TreeMap.Entry<K, V> e = (fromStart ? m.firstEntry()
-                    : (loInclusive ? m.ceilingEntry(lo) : m.higherEntry(lo)));
+            TreeMap.Entry<K, V> e = (fromStart ? m.getFirstEntry()
+                    : (loInclusive ? m.getCeilingEntry(lo) : m.getHigherEntry(lo)));
             return (e == null || tooHigh(e.key)) ? null : e;
         }
 
         final TreeMap.Entry<K, V> absHighest() {
-            TreeMap.Entry<K, V> e = (toEnd ? m.lastEntry() : (hiInclusive ? m.floorEntry(hi) : m.lowerEntry(hi)));
+            TreeMap.Entry<K, V> e = (toEnd ? m.getLastEntry() : (hiInclusive ? m.getFloorEntry(hi) : m.getLowerEntry(hi)));
             return (e == null || tooLow(e.key)) ? null : e;
         }
 
@@ -1318,7 +1955,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             if (tooLow(key)) {
                 return absLowest();
             }
-            TreeMap.Entry<K, V> e = m.ceilingEntry(key);
+            TreeMap.Entry<K, V> e = m.getCeilingEntry(key);
             return (e == null || tooHigh(e.key)) ? null : e;
         }
 
@@ -1326,7 +1963,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             if (tooLow(key)) {
                 return absLowest();
             }
-            TreeMap.Entry<K, V> e = m.higherEntry(key);
+            TreeMap.Entry<K, V> e = m.getHigherEntry(key);
             return (e == null || tooHigh(e.key)) ? null : e;
         }
 
@@ -1334,7 +1971,7 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             if (tooHigh(key)) {
                 return absHighest();
             }
-            TreeMap.Entry<K, V> e = m.floorEntry(key);
+            TreeMap.Entry<K, V> e = m.getFloorEntry(key);
             return (e == null || tooLow(e.key)) ? null : e;
         }
 
@@ -1342,18 +1979,48 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             if (tooHigh(key)) {
                 return absHighest();
             }
-            TreeMap.Entry<K, V> e = m.lowerEntry(key);
+            TreeMap.Entry<K, V> e = m.getLowerEntry(key);
             return (e == null || tooLow(e.key)) ? null : e;
         }
 
+        /** Returns an ascending walk from the absolute lowest entry, like absLowest */
+        final Walk absAscendingWalk() {
+            Walk walk = m.new Walk(false);
+            if (fromStart) {
+                walk.first();
+            } else {
+                walk.seek(lo, loInclusive);
+            }
+            TreeMap.Entry<K, V> e = walk.peek();
+            if (e != null && tooHigh(e.key)) {
+                walk.clear();
+            }
+            return walk;
+        }
+
+        /** Returns a descending walk from the absolute highest entry, like absHighest */
+        final Walk absDescendingWalk() {
+            Walk walk = m.new Walk(true);
+            if (toEnd) {
+                walk.first();
+            } else {
+                walk.seek(hi, hiInclusive);
+            }
+            TreeMap.Entry<K, V> e = walk.peek();
+            if (e != null && tooLow(e.key)) {
+                walk.clear();
+            }
+            return walk;
+        }
+
         /** Returns the absolute high fence for ascending traversal */
         final TreeMap.Entry<K, V> absHighFence() {
-            return (toEnd ? null : (hiInclusive ? m.higherEntry(hi) : m.ceilingEntry(hi)));
+            return (toEnd ? null : (hiInclusive ? m.getHigherEntry(hi) : m.getCeilingEntry(hi)));
         }
 
         /** Return the absolute low fence for descending traversal */
         final TreeMap.Entry<K, V> absLowFence() {
-            return (fromStart ? null : (loInclusive ? m.lowerEntry(lo) : m.floorEntry(lo)));
+            return (fromStart ? null : (loInclusive ? m.getLowerEntry(lo) : m.getFloorEntry(lo)));
         }
 
         // Abstract methods defined in ascending vs descending classes
@@ -1371,10 +2038,15 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         abstract TreeMap.Entry<K, V> subLower(K key);
 
+        /** Returns true if this submap runs in descending key order */
+        abstract boolean isDescending();
+
         /** Returns ascending iterator from the perspective of this submap */
         abstract Iterator<K> keyIterator();
 
-        abstract Spliterator<K> keySpliterator();
+        final Spliterator<K> keySpliterator() {
+            return new KeySpliterator(this, isDescending());
+        }
 
         /** Returns descending iterator from the perspective of this submap */
         abstract Iterator<K> descendingKeyIterator();
@@ -1388,7 +2060,10 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         public int size() {
-            return (fromStart && toEnd) ? m.size() : entrySet().size();
+            int end = toEnd ? m.size() : m.countBelow(m.root, hi, hiInclusive);
+            int start = fromStart ? 0 : m.countBelow(m.root, lo, !loInclusive);
+            // an empty range with both ends exclusive at a present key counts -1
+            return Math.max(end - start, 0);
         }
 
         @Override
@@ -1578,21 +2253,63 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             return tailMap(fromKey, true);
         }
 
+        transient Collection<V> valuesView;
+
+        @Override
+        public Collection<V> values() {
+            Collection<V> vs = valuesView;
+            return (vs != null) ? vs : (valuesView = new ValuesView());
+        }
+
         // View classes
 
+        final class ValuesView extends AbstractCollection<V> {
+            @Override
+            public Iterator<V> iterator() {
+                Iterator<Map.Entry<K, V>> i = entrySet().iterator();
+                return new Iterator<V>() {
+                    @Override
+                    public boolean hasNext() {
+                        return i.hasNext();
+                    }
+
+                    @Override
+                    public V next() {
+                        return i.next().getValue();
+                    }
+
+                    @Override
+                    public void remove() {
+                        i.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return NavigableSubMap.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return NavigableSubMap.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                NavigableSubMap.this.clear();
+            }
+
+            @Override
+            public Spliterator<V> spliterator() {
+                return new ValueSpliterator(NavigableSubMap.this, isDescending());
+            }
+        }
+
         abstract class EntrySetView extends AbstractSet<Map.Entry<K, V>> {
             @Override
             public int size() {
-                if (fromStart && toEnd) {
-                    return m.size();
-                }
-                int size = 0;
-                Iterator<?> i = iterator();
-                while (i.hasNext()) {
-                    size++;
-                    i.next();
-                }
-                return size;
+                return NavigableSubMap.this.size();
             }
 
             @Override
@@ -1630,199 +2347,79 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
                 }
                 return false;
             }
+
+            @Override
+            public Spliterator<Map.Entry<K, V>> spliterator() {
+                return new EntrySpliterator(NavigableSubMap.this, isDescending());
+            }
         }
 
         /**
          * Iterators for SubMaps
          */
         abstract class SubMapIterator<T> implements Iterator<T> {
+            final Walk walk;
             TreeMap.Entry<K, V> lastReturned;
-            TreeMap.Entry<K, V> next;
             final Object fenceKey;
 
-            SubMapIterator(TreeMap.Entry<K, V> first, TreeMap.Entry<K, V> fence) {
+            SubMapIterator(Walk walk, TreeMap.Entry<K, V> fence) {
+                this.walk = walk;
                 lastReturned = null;
-                next = first;
                 fenceKey = fence == null ? UNBOUNDED : fence.key;
             }
 
             @Override
             public final boolean hasNext() {
+                TreeMap.Entry<K, V> next = walk.peek();
                 return next != null && next.key != fenceKey;
             }
 
             final TreeMap.Entry<K, V> nextEntry() {
-                TreeMap.Entry<K, V> e = next;
-                if (e == null || e.key == fenceKey) {
-                    throw new NoSuchElementException();
-                }
-                next = successor(e);
-                lastReturned = e;
-                return e;
-            }
-
-            final TreeMap.Entry<K, V> prevEntry() {
-                TreeMap.Entry<K, V> e = next;
+                TreeMap.Entry<K, V> e = walk.peek();
                 if (e == null || e.key == fenceKey) {
                     throw new NoSuchElementException();
                 }
-                next = predecessor(e);
-                lastReturned = e;
+                lastReturned = walk.advance();
                 return e;
             }
 
-            final void removeAscending() {
+            @Override
+            public final void remove() {
                 if (lastReturned == null) {
                     throw new IllegalStateException();
                 }
-                // deleted entries are replaced by their successors
-//                if (lastReturned.left != null && lastReturned.right != null) {
-//                    next = lastReturned;
-//                }
+                // removal may rebuild the path and move keys between entries, so
+                // find the next key again afterwards
+                TreeMap.Entry<K, V> next = walk.peek();
+                K nextKey = (next == null) ? null : next.key;
                 m.remove(lastReturned.getKey());
                 lastReturned = null;
-            }
-
-            final void removeDescending() {
-                if (lastReturned == null) {
-                    throw new IllegalStateException();
+                if (next != null) {
+                    walk.seek(nextKey, true);
                 }
-                m.remove(lastReturned.getKey());
-                lastReturned = null;
             }
-
         }
 
         final class SubMapEntryIterator extends SubMapIterator<Map.Entry<K, V>> {
-            SubMapEntryIterator(TreeMap.Entry<K, V> first, TreeMap.Entry<K, V> fence) {
-                super(first, fence);
-            }
-
-            @Override
-            public Map.Entry<K, V> next() {
-                return nextEntry();
-            }
-
-            @Override
-            public void remove() {
-                removeAscending();
-            }
-        }
-
-        final class DescendingSubMapEntryIterator extends SubMapIterator<Map.Entry<K, V>> {
-            DescendingSubMapEntryIterator(TreeMap.Entry<K, V> last, TreeMap.Entry<K, V> fence) {
-                super(last, fence);
+            SubMapEntryIterator(Walk walk, TreeMap.Entry<K, V> fence) {
+                super(walk, fence);
             }
 
             @Override
             public Map.Entry<K, V> next() {
-                return prevEntry();
-            }
-
-            @Override
-            public void remove() {
-                removeDescending();
+                return liveEntry(nextEntry());
             }
         }
 
-        // Implement minimal Spliterator as KeySpliterator backup
-        final class SubMapKeyIterator extends SubMapIterator<K> implements Spliterator<K> {
-            SubMapKeyIterator(TreeMap.Entry<K, V> first, TreeMap.Entry<K, V> fence) {
-                super(first, fence);
+        final class SubMapKeyIterator extends SubMapIterator<K> {
+            SubMapKeyIterator(Walk walk, TreeMap.Entry<K, V> fence) {
+                super(walk, fence);
             }
 
             @Override
             public K next() {
                 return nextEntry().key;
             }
-
-            @Override
-            public void remove() {
-                removeAscending();
-            }
-
-            @Override
-            public Spliterator<K> trySplit() {
-                return null;
-            }
-
-            @Override
-            public void forEachRemaining(Consumer<? super K> action) {
-                while (hasNext()) {
-                    action.accept(next());
-                }
-            }
-
-            @Override
-            public boolean tryAdvance(Consumer<? super K> action) {
-                if (hasNext()) {
-                    action.accept(next());
-                    return true;
-                }
-                return false;
-            }
-
-            @Override
-            public long estimateSize() {
-                return Long.MAX_VALUE;
-            }
-
-            @Override
-            public int characteristics() {
-                return Spliterator.DISTINCT | Spliterator.ORDERED | Spliterator.SORTED;
-            }
-
-            @Override
-            public final Comparator<? super K> getComparator() {
-                return NavigableSubMap.this.comparator();
-            }
-        }
-
-        final class DescendingSubMapKeyIterator extends SubMapIterator<K> implements Spliterator<K> {
-            DescendingSubMapKeyIterator(TreeMap.Entry<K, V> last, TreeMap.Entry<K, V> fence) {
-                super(last, fence);
-            }
-
-            @Override
-            public K next() {
-                return prevEntry().key;
-            }
-
-            @Override
-            public void remove() {
-                removeDescending();
-            }
-
-            @Override
-            public Spliterator<K> trySplit() {
-                return null;
-            }
-
-            @Override
-            public void forEachRemaining(Consumer<? super K> action) {
-                while (hasNext()) {
-                    action.accept(next());
-                }
-            }
-
-            @Override
-            public boolean tryAdvance(Consumer<? super K> action) {
-                if (hasNext()) {
-                    action.accept(next());
-                    return true;
-                }
-                return false;
-            }
-
-            @Override
-            public long estimateSize() {
-                return Long.MAX_VALUE;
-            }
-
-            @Override
-            public int characteristics() {
-                return Spliterator.DISTINCT | Spliterator.ORDERED;
-            }
         }
     }
 
@@ -1832,6 +2429,11 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
         }
 
+        @Override
+        boolean isDescending() {
+            return false;
+        }
+
         @Override
         public Comparator<? super K> comparator() {
             return m.comparator();
@@ -1873,23 +2475,18 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         Iterator<K> keyIterator() {
-            return new SubMapKeyIterator(absLowest(), absHighFence());
-        }
-
-        @Override
-        Spliterator<K> keySpliterator() {
-            return new SubMapKeyIterator(absLowest(), absHighFence());
+            return new SubMapKeyIterator(absAscendingWalk(), absHighFence());
         }
 
         @Override
         Iterator<K> descendingKeyIterator() {
-            return new DescendingSubMapKeyIterator(absHighest(), absLowFence());
+            return new SubMapKeyIterator(absDescendingWalk(), absLowFence());
         }
 
         final class AscendingEntrySetView extends EntrySetView {
             @Override
             public Iterator<Map.Entry<K, V>> iterator() {
-                return new SubMapEntryIterator(absLowest(), absHighFence());
+                return new SubMapEntryIterator(absAscendingWalk(), absHighFence());
             }
         }
 
@@ -1936,6 +2533,11 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
             super(m, fromStart, lo, loInclusive, toEnd, hi, hiInclusive);
         }
 
+        @Override
+        boolean isDescending() {
+            return true;
+        }
+
         private final Comparator<? super K> reverseComparator = Collections.reverseOrder(m.comparator);
 
         @Override
@@ -1979,23 +2581,18 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
 
         @Override
         Iterator<K> keyIterator() {
-            return new DescendingSubMapKeyIterator(absHighest(), absLowFence());
-        }
-
-        @Override
-        Spliterator<K> keySpliterator() {
-            return new DescendingSubMapKeyIterator(absHighest(), absLowFence());
+            return new SubMapKeyIterator(absDescendingWalk(), absLowFence());
         }
 
         @Override
         Iterator<K> descendingKeyIterator() {
-            return new SubMapKeyIterator(absLowest(), absHighFence());
+            return new SubMapKeyIterator(absAscendingWalk(), absHighFence());
         }
 
         final class DescendingEntrySetView extends EntrySetView {
             @Override
             public Iterator<Map.Entry<K, V>> iterator() {
-                return new DescendingSubMapEntryIterator(absHighest(), absLowFence());
+                return new SubMapEntryIterator(absDescendingWalk(), absLowFence());
             }
         }
 
@@ -2037,364 +2634,348 @@ public class TreeMap<K, V> extends AbstractMap<K, V> implements NavigableMap<K,
     }
 
     /**
-     * Currently, we support Spliterator-based versions only for the full map, in
-     * either plain of descending form, otherwise relying on defaults because size
-     * estimation for submaps would dominate costs. The type tests needed to check
-     * these for key views are not very nice but avoid disrupting existing class
-     * structures. Callers must use plain default spliterators if this returns null.
+     * Returns a spliterator over the keys of {@code m}, which must be this map or
+     * one of its submaps.
      */
     Spliterator<K> keySpliteratorFor(NavigableMap<K, V> m) {
         if (m instanceof TreeMap) {
             TreeMap<K, V> t = (TreeMap<K, V>) m;
             return t.keySpliterator();
         }
-        if (m instanceof DescendingSubMap) {
-            DescendingSubMap dm = (DescendingSubMap) m;
-            TreeMap<K, ?> tm = dm.m;
-            if (dm == tm.descendingMap) {
-                @SuppressWarnings("unchecked")
-                TreeMap<K, V> t = (TreeMap<K, V>) tm;
-                return t.descendingKeySpliterator();
-            }
-        }
         NavigableSubMap sm = (NavigableSubMap) m;
         return sm.keySpliterator();
     }
 
     final Spliterator<K> keySpliterator() {
-        return new KeySpliterator(this, null, null, 0, -1);
-    }
-
-    final Spliterator<K> descendingKeySpliterator() {
-        return new DescendingKeySpliterator(this, null, null, 0, -2);
+        return new KeySpliterator(null, false);
     }
 
     /**
-     * Base class for spliterators. Iteration starts at a given origin and continues
-     * up to but not including a given fence (or null for end). At top-level, for
-     * ascending cases, the first split uses the root as left-fence/right-origin.
-     * From there, right-hand splits replace the current fence with its left child,
-     * also serving as origin for the split-off spliterator. Left-hands are
-     * symmetric. Descending versions place the origin at the end and invert
-     * ascending split rules. This base class is non-committal about directionality,
-     * or whether the top-level spliterator covers the whole tree. This means that
-     * the actual split mechanics are located in subclasses. Some of the subclass
-     * trySplit methods are identical (except for return types), but not nicely
-     * factorable.
+     * Base class for spliterators. The elements still to be traversed are kept as
+     * a stack of items, the next one on top, where each item is either a single
+     * entry or a whole subtree. A spliterator for the whole map starts as the
+     * single item for the root. A spliterator for a submap starts as the
+     * O(log n) entries and subtrees that exactly cover its range, found by
+     * following the paths to its two bounds; these are the only key comparisons
+     * a spliterator ever makes. Both are late-binding: the items are found on
+     * first use.
      *
-     * Currently, subclass versions exist only for the full map (including
-     * descending keys via its descendingMap). Others are possible but currently not
-     * worthwhile because submaps require O(n) computations to determine size, which
-     * substantially limits potential speed-ups of using custom Spliterators versus
-     * default mechanics.
+     * To split, a spliterator hands the items before the middle element (in
+     * encounter order) to a new spliterator for the prefix, and keeps the rest.
+     * If the item holding the middle element is a whole subtree that is too
+     * large to fall on either side, it is first opened into its near subtree,
+     * its root, and its far subtree, so splits fall at subtree roots, each
+     * split divides the elements roughly in half, and the halves of a fresh
+     * spliterator are the two children of the root. Traversal opens subtrees
+     * along their near spines, in amortized constant time per element.
      *
-     * To bootstrap initialization, external constructors use negative size
-     * estimates: -1 for ascend, -2 for descend.
+     * Since every subtree knows its size, the sizes of a spliterator and of
+     * both halves of every split are exact.
      */
-    static class TreeMapSpliterator<K, V> {
-        final TreeMap<K, V> tree;
-        TreeMap.Entry<K, V> current; // traverser; initially first node in range
-        TreeMap.Entry<K, V> fence; // one past last, or null
-        int side; // 0: top, -1: is a left split, +1: right
-        int est; // size estimate (exact only for top-level)
-
-        TreeMapSpliterator(TreeMap<K, V> tree, TreeMap.Entry<K, V> origin, TreeMap.Entry<K, V> fence, int side,
-                int est) {
-            this.tree = tree;
-            this.current = origin;
-            this.fence = fence;
-            this.side = side;
-            this.est = est;
-        }
-
-        final int getEstimate() { // force initialization
-            int s;
-            TreeMap<K, V> t;
-            if ((s = est) < 0) {
-                if ((t = tree) != null) {
-                    current = (s == -1) ? t.firstEntry() : t.lastEntry();
-                    s = est = t.size;
-                } else {
-                    s = est = 0;
+    abstract class TreeMapSpliterator<T> implements Spliterator<T> {
+        final NavigableSubMap range; // bounds, or null for the whole map
+        final boolean descending;
+        private Entry<K, V>[] items; // pending items, the next one on top
+        private boolean[] whole; // whole[i] if items[i] stands for its entire subtree
+        private int depth;
+        private long est; // number of entries remaining, or -1 if not yet bound
+
+        @SuppressWarnings("unchecked")
+        TreeMapSpliterator(NavigableSubMap range, boolean descending) {
+            this.range = range;
+            this.descending = descending;
+            this.items = (Entry<K, V>[]) new Entry<?, ?>[16];
+            this.whole = new boolean[16];
+            this.depth = 0;
+            this.est = -1;
+        }
+
+        /** Returns an empty spliterator of the same kind, to receive a prefix */
+        abstract TreeMapSpliterator<T> newPrefix();
+
+        /** Returns the element for an entry */
+        abstract T element(Entry<K, V> e);
+
+        private void bind() {
+            if (est >= 0) {
+                return;
+            }
+            if (range == null || (range.fromStart && range.toEnd)) {
+                if (root != null) {
+                    push(root, true);
                 }
+                est = size;
+            } else {
+                boolean checkStart = descending ? !range.toEnd : !range.fromStart;
+                boolean checkEnd = descending ? !range.fromStart : !range.toEnd;
+                cover(root, checkStart, checkEnd);
+                // cover lists the items in encounter order; put the first on top
+                for (int i = 0, j = depth - 1; i < j; i++, j--) {
+                    var e = items[i];
+                    items[i] = items[j];
+                    items[j] = e;
+                    boolean w = whole[i];
+                    whole[i] = whole[j];
+                    whole[j] = w;
+                }
+                est = count(0, depth);
             }
-            return s;
         }
 
-        public final long estimateSize() {
-            return getEstimate();
+        // list, in encounter order, the items covering the part of the range in
+        // the subtree at node, checking only the bounds that can cut it
+        private void cover(Entry<K, V> node, boolean checkStart, boolean checkEnd) {
+            if (node == null) {
+                return;
+            }
+            if (!checkStart && !checkEnd) {
+                push(node, true);
+            } else if (checkStart && (descending ? range.tooHigh(node.key) : range.tooLow(node.key))) {
+                cover(far(node), checkStart, checkEnd);
+            } else if (checkEnd && (descending ? range.tooLow(node.key) : range.tooHigh(node.key))) {
+                cover(near(node), checkStart, checkEnd);
+            } else {
+                cover(near(node), checkStart, false);
+                push(node, false);
+                cover(far(node), false, checkEnd);
+            }
         }
-    }
 
-    final class KeySpliterator extends TreeMapSpliterator<K, V> implements Spliterator<K> {
-        KeySpliterator(TreeMap<K, V> tree, TreeMap.Entry<K, V> origin, TreeMap.Entry<K, V> fence, int side, int est) {
-            super(tree, origin, fence, side, est);
+        private Entry<K, V> near(Entry<K, V> node) {
+            return descending ? node.right : node.left;
         }
 
-        @Override
-        public KeySpliterator trySplit() {
-            if (est < 0) {
-                getEstimate(); // force initialization
+        private Entry<K, V> far(Entry<K, V> node) {
+            return descending ? node.left : node.right;
+        }
+
+        private void push(Entry<K, V> node, boolean isWhole) {
+            if (depth == items.length) {
+                items = Arrays.copyOf(items, 2 * depth);
+                whole = Arrays.copyOf(whole, 2 * depth);
             }
-            int d = side;
-            TreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null : // empty
-                    (d == 0) ? tree.root : // was top
-                            (d > 0) ? e.right : // was right
-                                    (d < 0 && f != null) ? f.left : // was left
-                                            null);
-            if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) { // e not already past s
-                side = 1;
-                return new KeySpliterator(tree, e, current = s, -1, est >>>= 1);
+            items[depth] = node;
+            whole[depth] = isWhole;
+            depth++;
+        }
+
+        // remove and return the next entry, or null if there is none
+        private Entry<K, V> advance() {
+            while (depth > 0) {
+                var node = items[--depth];
+                if (!whole[depth]) {
+                    return node;
+                }
+                // open the subtree along its near spine
+                while (node != null) {
+                    if (far(node) != null) {
+                        push(far(node), true);
+                    }
+                    push(node, false);
+                    node = near(node);
+                }
             }
             return null;
         }
 
+        // number of entries in items[from .. to)
+        private long count(int from, int to) {
+            long total = 0;
+            for (int i = from; i < to; i++) {
+                total += whole[i] ? items[i].size : 1;
+            }
+            return total;
+        }
+
+        // replace the whole subtree at items[i] with its far subtree, its root,
+        // and its near subtree, keeping the encounter order of the stack
+        private void open(int i) {
+            var node = items[i];
+            int n = (far(node) != null ? 1 : 0) + 1 + (near(node) != null ? 1 : 0);
+            if (depth + n - 1 > items.length) {
+                items = Arrays.copyOf(items, 2 * (depth + n));
+                whole = Arrays.copyOf(whole, 2 * (depth + n));
+            }
+            System.arraycopy(items, i + 1, items, i + n, depth - i - 1);
+            System.arraycopy(whole, i + 1, whole, i + n, depth - i - 1);
+            depth += n - 1;
+            int j = i;
+            if (far(node) != null) {
+                items[j] = far(node);
+                whole[j++] = true;
+            }
+            items[j] = node;
+            whole[j++] = false;
+            if (near(node) != null) {
+                items[j] = near(node);
+                whole[j] = true;
+            }
+        }
+
+        @Override
+        public final Spliterator<T> trySplit() {
+            bind();
+            // keep the items at the bottom of the stack, which come last, and
+            // hand the others to the prefix, cutting the stack as near to the
+            // middle element as a quarter of the size. If no cut is that near,
+            // open the subtree that holds the middle element and try again.
+            long half = est / 2;
+            int keep;
+            while (true) {
+                int i = 0;
+                long below = 0;
+                while (i < depth && below + count(i, i + 1) <= half) {
+                    below += count(i, i + 1);
+                    i++;
+                }
+                if (i == depth) {
+                    return null;
+                }
+                long above = below + count(i, i + 1);
+                // the valid cuts keep from 1 to depth - 1 items
+                keep = -1;
+                if (i >= 1 && (i + 1 > depth - 1 || half - below <= above - half)) {
+                    keep = i;
+                } else if (i + 1 <= depth - 1) {
+                    keep = i + 1;
+                }
+                long off = (keep == i) ? half - below : above - half;
+                if (keep >= 0 && off <= est / 4) {
+                    break;
+                }
+                if (!whole[i] || items[i].size == 1) {
+                    if (keep < 0) {
+                        return null;
+                    }
+                    break;
+                }
+                open(i);
+            }
+
+            TreeMapSpliterator<T> prefix = newPrefix();
+            prefix.items = Arrays.copyOfRange(items, keep, Math.max(depth, keep + 16));
+            prefix.whole = Arrays.copyOfRange(whole, keep, Math.max(depth, keep + 16));
+            prefix.depth = depth - keep;
+            prefix.est = prefix.count(0, prefix.depth);
+            Arrays.fill(items, keep, depth, null);
+            depth = keep;
+            est -= prefix.est;
+            return prefix;
+        }
+
         @Override
-        public void forEachRemaining(Consumer<? super K> action) {
+        public final void forEachRemaining(Consumer<? super T> action) {
             if (action == null) {
                 throw new NullPointerException();
             }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            TreeMap.Entry<K, V> f = fence, e = current;
-            if (e != null && e != f) {
-                current = f; // exhaust
-                do {
-                    action.accept(e.key);
-                    e = successor(e);
-                } while (e != null && e != f);
+            bind();
+            for (var e = advance(); e != null; e = advance()) {
+                est--;
+                action.accept(element(e));
             }
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super K> action) {
-            TreeMap.Entry<K, V> e;
+        public final boolean tryAdvance(Consumer<? super T> action) {
             if (action == null) {
                 throw new NullPointerException();
             }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            if ((e = current) == null || e == fence) {
+            bind();
+            var e = advance();
+            if (e == null) {
                 return false;
             }
-            current = successor(e);
-            action.accept(e.key);
+            est--;
+            action.accept(element(e));
             return true;
         }
 
         @Override
-        public int characteristics() {
-            return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.SORTED
-                    | Spliterator.ORDERED;
+        public final long estimateSize() {
+            bind();
+            return est;
         }
 
-        @Override
-        public final Comparator<? super K> getComparator() {
-            return tree.comparator;
+        /** Returns the given characteristics, plus SIZED and SUBSIZED */
+        final int characteristics(int others) {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | others;
         }
-
     }
 
-    final class DescendingKeySpliterator extends TreeMapSpliterator<K, V> implements Spliterator<K> {
-        DescendingKeySpliterator(TreeMap<K, V> tree, TreeMap.Entry<K, V> origin, TreeMap.Entry<K, V> fence, int side,
-                int est) {
-            super(tree, origin, fence, side, est);
+    final class KeySpliterator extends TreeMapSpliterator<K> {
+        KeySpliterator(NavigableSubMap range, boolean descending) {
+            super(range, descending);
         }
 
         @Override
-        public DescendingKeySpliterator trySplit() {
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            int d = side;
-            TreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null : // empty
-                    (d == 0) ? tree.root : // was top
-                            (d < 0) ? e.left : // was left
-                                    (d > 0 && f != null) ? f.right : // was right
-                                            null);
-            if (s != null && s != e && s != f && tree.compare(e.key, s.key) > 0) { // e not already past s
-                side = 1;
-                return new DescendingKeySpliterator(tree, e, current = s, -1, est >>>= 1);
-            }
-            return null;
+        TreeMapSpliterator<K> newPrefix() {
+            return new KeySpliterator(range, descending);
         }
 
         @Override
-        public void forEachRemaining(Consumer<? super K> action) {
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            TreeMap.Entry<K, V> f = fence, e = current;
-            if (e != null && e != f) {
-                current = f; // exhaust
-                do {
-                    action.accept(e.key);
-                    e = predecessor(e);
-                } while (e != null && e != f);
-            }
+        K element(Entry<K, V> e) {
+            return e.key;
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super K> action) {
-            TreeMap.Entry<K, V> e;
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            if ((e = current) == null || e == fence) {
-                return false;
-            }
-            current = predecessor(e);
-            action.accept(e.key);
-            return true;
+        public int characteristics() {
+            return characteristics(descending ? Spliterator.DISTINCT | Spliterator.ORDERED
+                    : Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED);
         }
 
         @Override
-        public int characteristics() {
-            return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.ORDERED;
+        public Comparator<? super K> getComparator() {
+            return comparator;
         }
     }
 
-    final class ValueSpliterator extends TreeMapSpliterator<K, V> implements Spliterator<V> {
-        ValueSpliterator(TreeMap<K, V> tree, TreeMap.Entry<K, V> origin, TreeMap.Entry<K, V> fence, int side, int est) {
-            super(tree, origin, fence, side, est);
-        }
-
-        @Override
-        public ValueSpliterator trySplit() {
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            int d = side;
-            TreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null : // empty
-                    (d == 0) ? tree.root : // was top
-                            (d > 0) ? e.right : // was right
-                                    (d < 0 && f != null) ? f.left : // was left
-                                            null);
-            if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) { // e not already past s
-                side = 1;
-                return new ValueSpliterator(tree, e, current = s, -1, est >>>= 1);
-            }
-            return null;
+    final class ValueSpliterator extends TreeMapSpliterator<V> {
+        ValueSpliterator(NavigableSubMap range, boolean descending) {
+            super(range, descending);
         }
 
         @Override
-        public void forEachRemaining(Consumer<? super V> action) {
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            TreeMap.Entry<K, V> f = fence, e = current;
-            if (e != null && e != f) {
-                current = f; // exhaust
-                do {
-                    action.accept(e.value);
-                    e = successor(e);
-                } while (e != null && e != f);
-            }
+        TreeMapSpliterator<V> newPrefix() {
+            return new ValueSpliterator(range, descending);
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super V> action) {
-            TreeMap.Entry<K, V> e;
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            if ((e = current) == null || e == fence) {
-                return false;
-            }
-            current = successor(e);
-            action.accept(e.value);
-            return true;
+        V element(Entry<K, V> e) {
+            return e.value;
         }
 
         @Override
         public int characteristics() {
-            return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.ORDERED;
+            return characteristics(Spliterator.ORDERED);
         }
     }
 
-    final class EntrySpliterator extends TreeMapSpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
-        EntrySpliterator(TreeMap<K, V> tree, TreeMap.Entry<K, V> origin, TreeMap.Entry<K, V> fence, int side, int est) {
-            super(tree, origin, fence, side, est);
-        }
-
-        @Override
-        public EntrySpliterator trySplit() {
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            int d = side;
-            TreeMap.Entry<K, V> e = current, f = fence, s = ((e == null || e == f) ? null : // empty
-                    (d == 0) ? tree.root : // was top
-                            (d > 0) ? e.right : // was right
-                                    (d < 0 && f != null) ? f.left : // was left
-                                            null);
-            if (s != null && s != e && s != f && tree.compare(e.key, s.key) < 0) { // e not already past s
-                side = 1;
-                return new EntrySpliterator(tree, e, current = s, -1, est >>>= 1);
-            }
-            return null;
+    final class EntrySpliterator extends TreeMapSpliterator<Map.Entry<K, V>> {
+        EntrySpliterator(NavigableSubMap range, boolean descending) {
+            super(range, descending);
         }
 
         @Override
-        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            TreeMap.Entry<K, V> f = fence, e = current;
-            if (e != null && e != f) {
-                current = f; // exhaust
-                do {
-                    action.accept(e);
-                    e = successor(e);
-                } while (e != null && e != f);
-            }
+        TreeMapSpliterator<Map.Entry<K, V>> newPrefix() {
+            return new EntrySpliterator(range, descending);
         }
 
         @Override
-        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
-            TreeMap.Entry<K, V> e;
-            if (action == null) {
-                throw new NullPointerException();
-            }
-            if (est < 0) {
-                getEstimate(); // force initialization
-            }
-            if ((e = current) == null || e == fence) {
-                return false;
-            }
-            current = successor(e);
-            action.accept(e);
-            return true;
+        Map.Entry<K, V> element(Entry<K, V> e) {
+            return liveEntry(e);
         }
 
         @Override
         public int characteristics() {
-            return (side == 0 ? Spliterator.SIZED : 0) | Spliterator.DISTINCT | Spliterator.SORTED
-                    | Spliterator.ORDERED;
+            return characteristics(descending ? Spliterator.DISTINCT | Spliterator.ORDERED
+                    : Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED);
         }
 
         @Override
         public Comparator<Map.Entry<K, V>> getComparator() {
             // Adapt or create a key-based comparator
-            if (tree.comparator != null) {
-                return Map.Entry.comparingByKey(tree.comparator);
+            if (comparator != null) {
+                return Map.Entry.comparingByKey(comparator);
             } else {
                 return (Comparator<Map.Entry<K, V>>) (e1, e2) -> {
                     @SuppressWarnings("unchecked")
@@ -0,0 +1,778 @@
+package edu.depauw.algorithms.details;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+
+/**
+ * A skeletal {@link NavigableMap} over an ordered map that supplies only a few
+ * primitive operations on its whole key range: lookup, update, the six
+ * navigation queries, and an iterator that can start anywhere. Everything else,
+ * including the submap, descending, and key set views, is built here on top of
+ * those operations. The underlying map must not allow null keys.
+ *
+ * Each instance is a view with optional bounds and a direction; the instance
+ * the subclass creates is the unbounded ascending one. The size of a bounded
+ * view takes time linear in the number of entries in its range.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of mapped values
+ */
+public abstract class NavigableMapDetails<K, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private final NavigableMapDetails<K, V> base; // the unbounded ascending view, which views forward to
+    private final boolean fromStart, toEnd;
+    private final K lo, hi;
+    private final boolean loInclusive, hiInclusive;
+    private final boolean descending;
+
+    protected NavigableMapDetails() {
+        this.base = this;
+        this.fromStart = true;
+        this.toEnd = true;
+        this.lo = null;
+        this.hi = null;
+        this.loInclusive = false;
+        this.hiInclusive = false;
+        this.descending = false;
+    }
+
+    private NavigableMapDetails(NavigableMapDetails<K, V> base, boolean fromStart, K lo, boolean loInclusive,
+            boolean toEnd, K hi, boolean hiInclusive, boolean descending) {
+        this.base = base;
+        this.fromStart = fromStart;
+        this.lo = lo;
+        this.loInclusive = loInclusive;
+        this.toEnd = toEnd;
+        this.hi = hi;
+        this.hiInclusive = hiInclusive;
+        this.descending = descending;
+    }
+
+    // ------------------------------------------------------------------------
+    // Primitive operations on the whole underlying map, in ascending order
+
+    /** Returns the ordering of the underlying keys; never null */
+    protected abstract Comparator<? super K> keyOrder();
+
+    protected abstract int baseSize();
+
+    protected abstract V baseGet(K key);
+
+    protected abstract boolean baseContainsKey(K key);
+
+    protected abstract V basePut(K key, V value);
+
+    /** Removes the mapping for a key that is present, and returns its value */
+    protected abstract V baseRemove(K key);
+
+    protected abstract void baseClear();
+
+    /**
+     * Removes the mapping for a key if it is still mapped to the given value,
+     * and returns whether it did. The default assumes that nothing else can
+     * have changed the mapping since it was read, as in a map confined to one
+     * thread; a concurrent map overrides this to remove it atomically.
+     */
+    protected boolean baseRemoveMapping(K key, V value) {
+        baseRemove(key);
+        return true;
+    }
+
+    /**
+     * Throws {@code UnsupportedOperationException} if the underlying map cannot
+     * be changed, for the operations that would otherwise not notice when they
+     * find nothing to change.
+     */
+    protected void baseCheckModifiable() {
+    }
+
+    protected abstract Map.Entry<K, V> baseFirst();
+
+    protected abstract Map.Entry<K, V> baseLast();
+
+    protected abstract Map.Entry<K, V> baseLower(K key);
+
+    protected abstract Map.Entry<K, V> baseFloor(K key);
+
+    protected abstract Map.Entry<K, V> baseCeiling(K key);
+
+    protected abstract Map.Entry<K, V> baseHigher(K key);
+
+    /**
+     * Returns an iterator over the live entries of the underlying map, in
+     * ascending order (descending, if {@code descending}), starting at
+     * {@code from} (just past it, if not {@code inclusive}), or at the first
+     * entry if {@code from} is null. Its {@code remove} need not be supported.
+     */
+    protected abstract Iterator<Map.Entry<K, V>> baseIterator(K from, boolean inclusive, boolean descending);
+
+    // ------------------------------------------------------------------------
+    // Bounds, in absolute (ascending) terms
+
+    private int compare(K a, K b) {
+        return keyOrder().compare(a, b);
+    }
+
+    private boolean tooLow(K key) {
+        if (!fromStart) {
+            int c = compare(key, lo);
+            return c < 0 || (c == 0 && !loInclusive);
+        }
+        return false;
+    }
+
+    private boolean tooHigh(K key) {
+        if (!toEnd) {
+            int c = compare(key, hi);
+            return c > 0 || (c == 0 && !hiInclusive);
+        }
+        return false;
+    }
+
+    private boolean inRange(K key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    private boolean inClosedRange(K key) {
+        return (fromStart || compare(key, lo) >= 0) && (toEnd || compare(hi, key) >= 0);
+    }
+
+    private boolean inRange(K key, boolean inclusive) {
+        return inclusive ? inRange(key) : inClosedRange(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean inRangeObject(Object key) {
+        return key != null && inRange((K) key);
+    }
+
+    private Map.Entry<K, V> absLowest() {
+        var e = fromStart ? baseFirst() : (loInclusive ? baseCeiling(lo) : baseHigher(lo));
+        return (e == null || tooHigh(e.getKey())) ? null : e;
+    }
+
+    private Map.Entry<K, V> absHighest() {
+        var e = toEnd ? baseLast() : (hiInclusive ? baseFloor(hi) : baseLower(hi));
+        return (e == null || tooLow(e.getKey())) ? null : e;
+    }
+
+    private Map.Entry<K, V> absCeiling(K key) {
+        if (tooLow(key)) {
+            return absLowest();
+        }
+        var e = baseCeiling(key);
+        return (e == null || tooHigh(e.getKey())) ? null : e;
+    }
+
+    private Map.Entry<K, V> absHigher(K key) {
+        if (tooLow(key)) {
+            return absLowest();
+        }
+        var e = baseHigher(key);
+        return (e == null || tooHigh(e.getKey())) ? null : e;
+    }
+
+    private Map.Entry<K, V> absFloor(K key) {
+        if (tooHigh(key)) {
+            return absHighest();
+        }
+        var e = baseFloor(key);
+        return (e == null || tooLow(e.getKey())) ? null : e;
+    }
+
+    private Map.Entry<K, V> absLower(K key) {
+        if (tooHigh(key)) {
+            return absHighest();
+        }
+        var e = baseLower(key);
+        return (e == null || tooLow(e.getKey())) ? null : e;
+    }
+
+    private boolean isUnbounded() {
+        return fromStart && toEnd;
+    }
+
+    private static <K, V> Map.Entry<K, V> exportEntry(Map.Entry<K, V> e) {
+        return (e == null) ? null : new AbstractMap.SimpleImmutableEntry<>(e);
+    }
+
+    private static <K> K keyOrNull(Map.Entry<K, ?> e) {
+        return (e == null) ? null : e.getKey();
+    }
+
+    private static <K> K key(Map.Entry<K, ?> e) {
+        if (e == null) {
+            throw new NoSuchElementException();
+        }
+        return e.getKey();
+    }
+
+    // ------------------------------------------------------------------------
+    // Map methods
+
+    @Override
+    public int size() {
+        if (isUnbounded()) {
+            return baseSize();
+        }
+        int size = 0;
+        for (var i = entryIterator(); i.hasNext(); i.next()) {
+            size++;
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return isUnbounded() ? baseSize() == 0 : absLowest() == null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean containsKey(Object key) {
+        return inRangeObject(key) && baseContainsKey((K) key);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        return inRangeObject(key) ? baseGet((K) key) : null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException();
+        }
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("key out of range");
+        }
+        return basePut(key, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V remove(Object key) {
+        return containsKey(key) ? baseRemove((K) key) : null;
+    }
+
+    @Override
+    public void clear() {
+        if (isUnbounded()) {
+            baseClear();
+        } else {
+            for (var i = entryIterator(); i.hasNext();) {
+                i.next();
+                i.remove();
+            }
+        }
+    }
+
+    // ------------------------------------------------------------------------
+    // Navigation, in the direction of this view
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? Collections.reverseOrder(keyOrder()) : keyOrder();
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return exportEntry(descending ? absHighest() : absLowest());
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return exportEntry(descending ? absLowest() : absHighest());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        baseCheckModifiable();
+        for (;;) {
+            var e = firstEntry();
+            if (e == null || baseRemoveMapping(e.getKey(), e.getValue())) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        baseCheckModifiable();
+        for (;;) {
+            var e = lastEntry();
+            if (e == null || baseRemoveMapping(e.getKey(), e.getValue())) {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return exportEntry(descending ? absHigher(key) : absLower(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return exportEntry(descending ? absCeiling(key) : absFloor(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return exportEntry(descending ? absFloor(key) : absCeiling(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return exportEntry(descending ? absLower(key) : absHigher(key));
+    }
+
+    @Override
+    public K firstKey() {
+        return key(descending ? absHighest() : absLowest());
+    }
+
+    @Override
+    public K lastKey() {
+        return key(descending ? absLowest() : absHighest());
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(descending ? absHigher(key) : absLower(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(descending ? absCeiling(key) : absFloor(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(descending ? absFloor(key) : absCeiling(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(descending ? absLower(key) : absHigher(key));
+    }
+
+    // ------------------------------------------------------------------------
+    // Views
+
+    private NavigableMapDetails<K, V> view(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi,
+            boolean hiInclusive, boolean descending) {
+        NavigableMapDetails<K, V> root = base;
+        return new NavigableMapDetails<K, V>(base, fromStart, lo, loInclusive, toEnd, hi, hiInclusive, descending) {
+            @Override
+            protected Comparator<? super K> keyOrder() {
+                return root.keyOrder();
+            }
+
+            @Override
+            protected int baseSize() {
+                return root.baseSize();
+            }
+
+            @Override
+            protected V baseGet(K key) {
+                return root.baseGet(key);
+            }
+
+            @Override
+            protected boolean baseContainsKey(K key) {
+                return root.baseContainsKey(key);
+            }
+
+            @Override
+            protected V basePut(K key, V value) {
+                return root.basePut(key, value);
+            }
+
+            @Override
+            protected V baseRemove(K key) {
+                return root.baseRemove(key);
+            }
+
+            @Override
+            protected void baseClear() {
+                root.baseClear();
+            }
+
+            @Override
+            protected boolean baseRemoveMapping(K key, V value) {
+                return root.baseRemoveMapping(key, value);
+            }
+
+            @Override
+            protected void baseCheckModifiable() {
+                root.baseCheckModifiable();
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseFirst() {
+                return root.baseFirst();
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseLast() {
+                return root.baseLast();
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseLower(K key) {
+                return root.baseLower(key);
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseFloor(K key) {
+                return root.baseFloor(key);
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseCeiling(K key) {
+                return root.baseCeiling(key);
+            }
+
+            @Override
+            protected Map.Entry<K, V> baseHigher(K key) {
+                return root.baseHigher(key);
+            }
+
+            @Override
+            protected Iterator<Map.Entry<K, V>> baseIterator(K from, boolean inclusive, boolean descending) {
+                return root.baseIterator(from, inclusive, descending);
+            }
+        };
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return view(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, !descending);
+    }
+
+    // bounds are given in absolute terms, and must lie within this view
+    private NavigableMap<K, V> bounded(boolean fromStart, K lo, boolean loInclusive, boolean toEnd, K hi,
+            boolean hiInclusive) {
+        if (!fromStart) {
+            Objects.requireNonNull(lo);
+            if (!inRange(lo, loInclusive)) {
+                throw new IllegalArgumentException("fromKey out of range");
+            }
+        } else {
+            fromStart = this.fromStart;
+            lo = this.lo;
+            loInclusive = this.loInclusive;
+        }
+        if (!toEnd) {
+            Objects.requireNonNull(hi);
+            if (!inRange(hi, hiInclusive)) {
+                throw new IllegalArgumentException("toKey out of range");
+            }
+        } else {
+            toEnd = this.toEnd;
+            hi = this.hi;
+            hiInclusive = this.hiInclusive;
+        }
+        return view(fromStart, lo, loInclusive, toEnd, hi, hiInclusive, descending);
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (comparator().compare(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return descending ? bounded(false, toKey, toInclusive, false, fromKey, fromInclusive)
+                : bounded(false, fromKey, fromInclusive, false, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return descending ? bounded(false, toKey, inclusive, true, null, false)
+                : bounded(true, null, false, false, toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return descending ? bounded(true, null, false, false, fromKey, inclusive)
+                : bounded(false, fromKey, inclusive, true, null, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<Map.Entry<K, V>>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return entryIterator();
+            }
+
+            @Override
+            public int size() {
+                return NavigableMapDetails.this.size();
+            }
+
+            @Override
+            public boolean isEmpty() {
+                return NavigableMapDetails.this.isEmpty();
+            }
+
+            @Override
+            public void clear() {
+                NavigableMapDetails.this.clear();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof Map.Entry<?, ?> e && containsKey(e.getKey())
+                        && Objects.equals(get(e.getKey()), e.getValue());
+            }
+
+            @SuppressWarnings("unchecked")
+            @Override
+            public boolean remove(Object o) {
+                if (contains(o)) {
+                    var e = (Map.Entry<K, V>) o;
+                    return baseRemoveMapping(e.getKey(), e.getValue());
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Iterates over the entries of this view, in its direction. Removal goes
+     * through the map and then seeks past the removed key, since removing an
+     * entry may move other entries within the underlying map.
+     */
+    private Iterator<Map.Entry<K, V>> entryIterator() {
+        return new Iterator<Map.Entry<K, V>>() {
+            private Iterator<Map.Entry<K, V>> i = descending
+                    ? baseIterator(toEnd ? null : hi, hiInclusive, true)
+                    : baseIterator(fromStart ? null : lo, loInclusive, false);
+            private Map.Entry<K, V> next = advance();
+            private K lastKey = null;
+
+            private Map.Entry<K, V> advance() {
+                if (!i.hasNext()) {
+                    return null;
+                }
+                var e = i.next();
+                return (descending ? tooLow(e.getKey()) : tooHigh(e.getKey())) ? null : e;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Map.Entry<K, V> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                var e = next;
+                lastKey = e.getKey();
+                next = advance();
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                if (lastKey == null) {
+                    throw new IllegalStateException();
+                }
+                baseRemove(lastKey);
+                i = baseIterator(lastKey, false, descending);
+                next = advance();
+                lastKey = null;
+            }
+        };
+    }
+
+    /**
+     * The navigable key set of a map view.
+     */
+    private static final class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+        private final NavigableMapDetails<K, ?> m;
+
+        KeySet(NavigableMapDetails<K, ?> m) {
+            this.m = m;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            var i = m.entryIterator();
+            return new Iterator<K>() {
+                @Override
+                public boolean hasNext() {
+                    return i.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return i.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    i.remove();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return m.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return m.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return m.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (m.containsKey(o)) {
+                m.remove(o);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void clear() {
+            m.clear();
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+
+        @Override
+        public K first() {
+            return m.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return m.lastKey();
+        }
+
+        @Override
+        public K lower(K e) {
+            return m.lowerKey(e);
+        }
+
+        @Override
+        public K floor(K e) {
+            return m.floorKey(e);
+        }
+
+        @Override
+        public K ceiling(K e) {
+            return m.ceilingKey(e);
+        }
+
+        @Override
+        public K higher(K e) {
+            return m.higherKey(e);
+        }
+
+        @Override
+        public K pollFirst() {
+            return keyOrNull(m.pollFirstEntry());
+        }
+
+        @Override
+        public K pollLast() {
+            return keyOrNull(m.pollLastEntry());
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return m.descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return m.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return m.headMap(toElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return m.tailMap(fromElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
@@ -6,9 +6,9 @@
 package edu.depauw.algorithms.graph;
 
 import java.util.Collections;
-import java.util.Deque;
+import java.util.PrimitiveIterator;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code BFS} class represents a data type for finding
@@ -31,7 +31,15 @@ import edu.depauw.algorithms.ArrayDeque;
  *  @author Kevin Wayne
  */
 public class BFS {
-    private boolean[] marked;  // marked[v] = is there an s-v path
+    // Tuning for the direction-optimizing search, after Beamer et al. but
+    // counting vertices instead of edges: switch to bottom-up once the frontier
+    // exceeds 1/ALPHA of the unvisited vertices, and back to top-down once it
+    // falls below 1/BETA of all vertices
+    private static final int ALPHA = 14;
+    private static final int BETA = 24;
+
+    private final BitsetMarks marked;  // marked.get(v) = is there an s-v path
+    private int count;                 // number of marked vertices
     private boolean halt;
 
     /**
@@ -40,7 +48,7 @@ public class BFS {
      * @param G the graph
      */
     public BFS(Graph G) {
-        marked = new boolean[G.V()];
+        marked = new BitsetMarks(G.V());
         halt = false;
     }
 
@@ -51,26 +59,132 @@ public class BFS {
 
     // breadth-first search from multiple sources
     public void bfs(Graph G, Iterable<Integer> sources, BFSClient strategy) {
-        Deque<Integer> q = new ArrayDeque<Integer>();
+        IntArrayDeque q = new IntArrayDeque();
         
         for (int s : sources) {
         	strategy.processVertex(G, s);
-            marked[s] = true;
-            q.add(s);
+            if (!marked.get(s)) {
+                marked.set(s);
+                count++;
+            }
+            q.addLast(s);
         }
 
         while (!q.isEmpty() && !halt) {
-            int v = q.remove();
-            for (int w : G.adj(v)) {
+            int v = q.removeFirst();
+            PrimitiveIterator.OfInt it = G.adjInts(v);
+            while (it.hasNext()) {
+                int w = it.nextInt();
             	strategy.processEdge(G, v, w);
-                if (!marked[w]) {
-                    marked[w] = true;
-                    q.add(w);
+                if (!marked.get(w)) {
+                    marked.set(w);
+                    count++;
+                    q.addLast(w);
                 }
             }
         }
     }
 
+    // direction-optimizing breadth-first search from a single source
+    public void bfs(Graph G, Graph reverse, int s, BFSClient strategy) {
+        bfs(G, reverse, Collections.singleton(s), strategy);
+    }
+
+    /**
+     * Direction-optimizing breadth-first search from multiple sources. Each
+     * level is expanded top-down, by scanning the edges out of the frontier,
+     * while the frontier is small; once it holds a large share of the
+     * unvisited vertices, levels are expanded bottom-up instead, with every
+     * unvisited vertex scanning its edges in {@code reverse} until it finds a
+     * parent in the frontier. On low-diameter graphs this skips most of the
+     * edge inspections of the middle levels.
+     * <p>
+     * Vertices are discovered at the same distances as with
+     * {@link #bfs(Graph, Iterable, BFSClient)}, but a bottom-up level only
+     * reports the edge that discovers each vertex to
+     * {@link BFSClient#processEdge}. Clients whose
+     * {@link BFSClient#needsAllEdges()} is {@code true} therefore get a plain
+     * top-down search.
+     *
+     * @param G        the graph
+     * @param reverse  the reverse of {@code G}, or {@code G} itself if it is
+     *                 undirected
+     * @param sources  the starting vertices
+     * @param strategy additional processing for each vertex and edge
+     */
+    public void bfs(Graph G, Graph reverse, Iterable<Integer> sources, BFSClient strategy) {
+        if (strategy.needsAllEdges()) {
+            bfs(G, sources, strategy);
+            return;
+        }
+
+        int V = marked.size();
+        int[] frontier = new int[V];
+        int[] next = new int[V];
+        boolean[] inFrontier = new boolean[V];
+        int n = 0;
+
+        for (int s : sources) {
+            strategy.processVertex(G, s);
+            if (!marked.get(s)) {
+                marked.set(s);
+                count++;
+                frontier[n++] = s;
+            }
+        }
+
+        boolean bottomUp = false;
+        while (n > 0 && !halt) {
+            if (!bottomUp && n > (V - count) / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && n < V / BETA) {
+                bottomUp = false;
+            }
+
+            int m = 0;
+            if (bottomUp) {
+                for (int i = 0; i < n; i++) {
+                    inFrontier[frontier[i]] = true;
+                }
+                for (int w = 0; w < V && !halt; w++) {
+                    if (marked.get(w)) continue;
+                    PrimitiveIterator.OfInt it = reverse.adjInts(w);
+                    while (it.hasNext()) {
+                        int v = it.nextInt();
+                        if (inFrontier[v]) {
+                            strategy.processEdge(G, v, w);
+                            marked.set(w);
+                            next[m++] = w;
+                            break;
+                        }
+                    }
+                }
+                for (int i = 0; i < n; i++) {
+                    inFrontier[frontier[i]] = false;
+                }
+            } else {
+                for (int i = 0; i < n && !halt; i++) {
+                    int v = frontier[i];
+                    PrimitiveIterator.OfInt it = G.adjInts(v);
+                    while (it.hasNext()) {
+                        int w = it.nextInt();
+                        strategy.processEdge(G, v, w);
+                        if (!marked.get(w)) {
+                            marked.set(w);
+                            next[m++] = w;
+                        }
+                    }
+                }
+            }
+            count += m;
+
+            int[] temp = frontier;
+            frontier = next;
+            next = temp;
+            n = m;
+        }
+    }
+
     /**
      * Is there a path between the source vertex {@code s} (or sources) and vertex {@code v}?
      * @param v the vertex
@@ -79,12 +193,12 @@ public class BFS {
      */
     public boolean marked(int v) {
         validateVertex(v);
-        return marked[v];
+        return marked.get(v);
     }
 
     // throw an IllegalArgumentException unless {@code 0 <= v < V}
     public void validateVertex(int v) {
-        int V = marked.length;
+        int V = marked.size();
         if (v < 0 || v >= V)
             throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
     }
@@ -108,6 +222,16 @@ public class BFS {
         }
     }
 
+    /**
+     * Unmark every vertex and clear any halt, so that this object can be used
+     * for a fresh search of the same graph. Takes &Theta;(1) time.
+     */
+    public void reset() {
+        marked.clear();
+        count = 0;
+        halt = false;
+    }
+
     /**
      * Signal an early exit from the search.
      */
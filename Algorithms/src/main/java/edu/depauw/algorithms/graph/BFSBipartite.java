@@ -7,10 +7,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code BipartiteX} class represents a data type for
@@ -42,7 +41,7 @@ public class BFSBipartite implements BFSClient {
     private boolean isBipartite;   // is the graph bipartite?
     private boolean[] color;       // color[v] gives vertices on one side of bipartition
     private int[] edgeTo;          // edgeTo[v] = last edge on path to v
-    private Deque<Integer> cycle;  // odd-length cycle
+    private IntArrayDeque cycle;  // odd-length cycle
 
     /**
      * Determines whether an undirected graph is bipartite and finds either a
@@ -76,19 +75,19 @@ public class BFSBipartite implements BFSClient {
             // and let x be closest node to v and w common to two paths
             // then (w-x path) + (x-v path) + (edge v-w) is an odd-length cycle
             // Note: distTo[v] == distTo[w];
-            cycle = new ArrayDeque<>();
-            Deque<Integer> stack = new ArrayDeque<>();
+            cycle = new IntArrayDeque();
+            IntArrayDeque stack = new IntArrayDeque();
             int x = v, y = w;
             while (x != y) {
                 stack.push(x);
-                cycle.add(y);
+                cycle.addLast(y);
                 x = edgeTo[x];
                 y = edgeTo[y];
             }
             stack.push(x);
             while (!stack.isEmpty())
-                cycle.add(stack.pop());
-            cycle.add(w);
+                cycle.addLast(stack.pop());
+            cycle.addLast(w);
             
             bfs.halt();
 		}
@@ -6,4 +6,17 @@ public interface BFSClient {
 
 	void processVertex(Graph g, int s);
 
+	/**
+	 * Does this client need {@code processEdge} to be called for every edge the
+	 * search could examine? Clients that only look at the edges that discover
+	 * new vertices (the edges of the breadth-first tree) may return
+	 * {@code false}, which allows a direction-optimizing search to skip the
+	 * rest; see {@link BFS#bfs(Graph, Graph, Iterable, BFSClient)}.
+	 * 
+	 * @return {@code true} unless only tree edges are needed
+	 */
+	default boolean needsAllEdges() {
+		return true;
+	}
+
 }
@@ -25,10 +25,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code BreadthFirstPaths} class represents a data type for finding
@@ -97,6 +96,51 @@ public class BFSPaths implements BFSClient {
         bfs.bfs(G, sources, this);
     }
 
+    /**
+     * Computes the shortest path between the source vertex {@code s}
+     * and every other vertex in the graph {@code G}, using a
+     * direction-optimizing search that also follows edges of {@code reverse}.
+     * @param G the graph
+     * @param reverse the reverse of {@code G}, or {@code G} itself if it is undirected
+     * @param s the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public BFSPaths(Graph G, Graph reverse, int s) {
+    	bfs = new BFS(G);
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            distTo[v] = INFINITY;
+        bfs.validateVertex(s);
+        distTo[s] = 0;
+        bfs.bfs(G, reverse, s, this);
+    }
+
+    /**
+     * Computes the shortest path between any one of the source vertices in {@code sources}
+     * and every other vertex in graph {@code G}, using a direction-optimizing
+     * search that also follows edges of {@code reverse}.
+     * @param G the graph
+     * @param reverse the reverse of {@code G}, or {@code G} itself if it is undirected
+     * @param sources the source vertices
+     * @throws IllegalArgumentException if {@code sources} is {@code null}
+     * @throws IllegalArgumentException if {@code sources} contains no vertices
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} for each vertex
+     *         {@code s} in {@code sources}
+     */
+    public BFSPaths(Graph G, Graph reverse, Iterable<Integer> sources) {
+    	bfs = new BFS(G);
+        distTo = new int[G.V()];
+        edgeTo = new int[G.V()];
+        for (int v = 0; v < G.V(); v++)
+            distTo[v] = INFINITY;
+        bfs.validateVertices(sources);
+        for (int s : sources) {
+        	distTo[s] = 0;
+        }
+        bfs.bfs(G, reverse, sources, this);
+    }
+
 	@Override
 	public void processEdge(Graph g, int v, int w) {
 		if (!bfs.marked(w)) {
@@ -110,6 +154,11 @@ public class BFSPaths implements BFSClient {
 		// Do nothing
 	}
 
+	@Override
+	public boolean needsAllEdges() {
+		return false;
+	}
+
     /**
      * Is there a path between the source vertex {@code s} (or sources) and vertex {@code v}?
      * @param v the vertex
@@ -144,7 +193,7 @@ public class BFSPaths implements BFSClient {
     public Iterable<Integer> pathTo(int v) {
         bfs.validateVertex(v);
         if (!hasPathTo(v)) return null;
-        Deque<Integer> path = new ArrayDeque<>();
+        IntArrayDeque path = new IntArrayDeque();
         int x;
         for (x = v; distTo[x] != 0; x = edgeTo[x])
             path.push(x);
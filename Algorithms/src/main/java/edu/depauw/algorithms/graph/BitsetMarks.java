@@ -0,0 +1,88 @@
+package edu.depauw.algorithms.graph;
+
+import java.util.Arrays;
+
+/**
+ * The {@code BitsetMarks} class is the set of marked vertices used by the
+ * search engines {@link DFS} and {@link BFS}. The marks are packed 64 to a
+ * {@code long}, so the array for a graph of 16 million vertices fits in 2 MB
+ * instead of the 16 MB of a {@code boolean[]}.
+ * <p>
+ * Each word also carries the generation in which it was last written, and a
+ * word from an older generation reads as all zeros. This makes
+ * {@link #clear()} a matter of starting a new generation, so one search object
+ * can be reused for many sources without an &Theta;(<em>V</em>) pass between
+ * them.
+ * <p>
+ * This implementation uses &Theta;(<em>V</em>) bits of space: one bit per
+ * vertex plus one {@code int} per 64 vertices. All operations take &Theta;(1)
+ * time, except that one call to {@code clear} in every 2<sup>32</sup> wipes
+ * the arrays.
+ */
+public class BitsetMarks {
+    private final int V;         // number of vertices
+    private final long[] words;  // bit v of words[v / 64] is the mark of v
+    private final int[] stamps;  // stamps[i] = generation in which words[i] was last written
+    private int generation;      // current generation
+
+    /**
+     * Initializes an empty set of marks for the vertices 0 through {@code V} - 1.
+     *
+     * @param  V the number of vertices
+     * @throws IllegalArgumentException if {@code V < 0}
+     */
+    public BitsetMarks(int V) {
+        if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+        this.V = V;
+        this.words = new long[(V + 63) >>> 6];
+        this.stamps = new int[words.length];
+        this.generation = 0;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return the number of vertices
+     */
+    public int size() {
+        return V;
+    }
+
+    /**
+     * Is vertex {@code v} marked? The vertex is not validated.
+     *
+     * @param  v the vertex
+     * @return {@code true} if {@code v} has been marked since the last
+     *         {@code clear}, {@code false} otherwise
+     */
+    public boolean get(int v) {
+        int i = v >>> 6;
+        return stamps[i] == generation && (words[i] & (1L << v)) != 0;
+    }
+
+    /**
+     * Marks vertex {@code v}. The vertex is not validated.
+     *
+     * @param v the vertex
+     */
+    public void set(int v) {
+        int i = v >>> 6;
+        if (stamps[i] != generation) {
+            stamps[i] = generation;
+            words[i] = 0;
+        }
+        words[i] |= 1L << v;
+    }
+
+    /**
+     * Unmarks every vertex.
+     */
+    public void clear() {
+        generation++;
+        if (generation == 0) {
+            // wrapped around, so old stamps could look current again
+            Arrays.fill(words, 0);
+            Arrays.fill(stamps, 0);
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package edu.depauw.algorithms.graph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Scanner;
+import java.util.function.IntConsumer;
+
+/**
+ * The {@code CsrGraph} class represents an immutable graph of vertices named 0
+ * through <em>V</em> - 1, stored in <em>compressed sparse row</em> form. The
+ * neighbors of vertex <em>v</em> are {@code targets[offsets[v]]} through
+ * {@code targets[offsets[v+1] - 1]}, so the whole graph occupies two
+ * {@code int} arrays instead of a {@link edu.depauw.algorithms.Bag} of boxed
+ * {@code Integer}s per vertex.
+ * <p>
+ * A {@code CsrGraph} is either copied from another {@link Graph} (for example,
+ * a {@link Digraph} or an {@link UndirectedGraph}), in which case each vertex
+ * keeps the neighbor order of the original, or assembled with a
+ * {@link Builder}. Once built it is frozen: {@link #addEdge(int, int)} throws
+ * {@code UnsupportedOperationException}.
+ * <p>
+ * The primitive neighbor iteration methods {@link #adjInts(int)} and
+ * {@link #forEachNeighbor(int, IntConsumer)} read the arrays directly, and
+ * {@link #degree(int)} and {@link #neighbor(int, int)} give random access to
+ * an adjacency list; none of them box the vertices.
+ * <p>
+ * This implementation uses &Theta;(<em>V</em> + <em>E</em>) space. Copying a
+ * graph, building, and {@link #reverse()} take &Theta;(<em>V</em> +
+ * <em>E</em>) time; all other instance methods take &Theta;(1) time.
+ */
+public class CsrGraph implements Graph {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    private final int V;          // number of vertices in this graph
+    private final int E;          // number of edges in this graph
+    private final int[] offsets;  // neighbors of v are targets[offsets[v] .. offsets[v+1])
+    private final int[] targets;  // concatenated adjacency lists
+
+    /**
+     * Initializes a compressed copy of the graph {@code G}. Each adjacency
+     * list keeps the iteration order of {@code G.adj(v)}.
+     *
+     * @param  G the graph to copy
+     * @throws IllegalArgumentException if {@code G} is {@code null}
+     */
+    public CsrGraph(Graph G) {
+        if (G == null) throw new IllegalArgumentException("argument is null");
+        this.V = G.V();
+        this.E = G.E();
+        this.offsets = new int[V + 1];
+
+        // first pass counts, second pass fills
+        for (int v = 0; v < V; v++) {
+            int degree = 0;
+            PrimitiveIterator.OfInt it = G.adjInts(v);
+            while (it.hasNext()) {
+                it.nextInt();
+                degree++;
+            }
+            offsets[v + 1] = offsets[v] + degree;
+        }
+        this.targets = new int[offsets[V]];
+        for (int v = 0; v < V; v++) {
+            int i = offsets[v];
+            PrimitiveIterator.OfInt it = G.adjInts(v);
+            while (it.hasNext()) {
+                targets[i++] = it.nextInt();
+            }
+        }
+    }
+
+    private CsrGraph(int V, int E, int[] offsets, int[] targets) {
+        this.V = V;
+        this.E = E;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Returns the number of vertices in this graph.
+     *
+     * @return the number of vertices in this graph
+     */
+    @Override
+    public int V() {
+        return V;
+    }
+
+    /**
+     * Returns the number of edges in this graph.
+     *
+     * @return the number of edges in this graph
+     */
+    @Override
+    public int E() {
+        return E;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Unsupported, because a {@code CsrGraph} is immutable; use a
+     * {@link Builder} instead.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void addEdge(int v, int w) {
+        throw new UnsupportedOperationException("CsrGraph is immutable");
+    }
+
+    /**
+     * Returns the vertices adjacent from vertex {@code v}. Iterating over this
+     * view boxes each vertex; prefer {@link #adjInts(int)} or
+     * {@link #forEachNeighbor(int, IntConsumer)} in performance-critical code.
+     *
+     * @param  v the vertex
+     * @return the vertices adjacent from vertex {@code v}, as an iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    @Override
+    public Iterable<Integer> adj(int v) {
+        validateVertex(v);
+        return () -> adjInts(v);
+    }
+
+    /**
+     * Returns the vertices adjacent from vertex {@code v} as a primitive
+     * iterator.
+     *
+     * @param  v the vertex
+     * @return an iterator over the vertices adjacent from vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    @Override
+    public PrimitiveIterator.OfInt adjInts(int v) {
+        validateVertex(v);
+        return new NeighborIterator(offsets[v], offsets[v + 1]);
+    }
+
+    /**
+     * Performs the given action on each vertex adjacent from vertex {@code v},
+     * in adjacency order.
+     *
+     * @param  v the vertex
+     * @param  action the action to perform on each neighbor
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action) {
+        validateVertex(v);
+        for (int i = offsets[v], end = offsets[v + 1]; i < end; i++) {
+            action.accept(targets[i]);
+        }
+    }
+
+    /**
+     * Returns the number of vertices adjacent from vertex {@code v} (its
+     * outdegree, or its degree if this is a copy of an undirected graph).
+     *
+     * @param  v the vertex
+     * @return the length of the adjacency list of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int degree(int v) {
+        validateVertex(v);
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Returns the {@code i}th vertex adjacent from vertex {@code v}.
+     *
+     * @param  v the vertex
+     * @param  i the position in the adjacency list of {@code v}
+     * @return the {@code i}th neighbor of {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IndexOutOfBoundsException unless {@code 0 <= i < degree(v)}
+     */
+    public int neighbor(int v, int i) {
+        validateVertex(v);
+        if (i < 0 || i >= offsets[v + 1] - offsets[v])
+            throw new IndexOutOfBoundsException("Index: " + i + ", Degree: " + (offsets[v + 1] - offsets[v]));
+        return targets[offsets[v] + i];
+    }
+
+    // unchecked accessors for the traversal engines in this package: the
+    // neighbors of v are target(i) for start(v) <= i < end(v)
+
+    int start(int v) {
+        return offsets[v];
+    }
+
+    int end(int v) {
+        return offsets[v + 1];
+    }
+
+    int target(int i) {
+        return targets[i];
+    }
+
+    /**
+     * Returns the reverse of this graph, with every edge v→w replaced by w→v.
+     * The adjacency list of each vertex in the result is in increasing order
+     * of the original tail vertex.
+     *
+     * @return the reverse of this graph
+     */
+    public CsrGraph reverse() {
+        int[] reverseOffsets = new int[V + 1];
+        for (int w : targets) {
+            reverseOffsets[w + 1]++;
+        }
+        for (int v = 0; v < V; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] next = Arrays.copyOf(reverseOffsets, V);
+        int[] reverseTargets = new int[targets.length];
+        for (int v = 0; v < V; v++) {
+            for (int i = offsets[v], end = offsets[v + 1]; i < end; i++) {
+                reverseTargets[next[targets[i]]++] = v;
+            }
+        }
+        return new CsrGraph(V, E, reverseOffsets, reverseTargets);
+    }
+
+    /**
+     * Returns a string representation of the graph.
+     *
+     * @return the number of vertices <em>V</em>, followed by the number of edges <em>E</em>,
+     *         followed by the <em>V</em> adjacency lists
+     */
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+        s.append(V + " vertices, " + E + " edges " + NEWLINE);
+        for (int v = 0; v < V; v++) {
+            s.append(String.format("%d: ", v));
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                s.append(String.format("%d ", targets[i]));
+            }
+            s.append(NEWLINE);
+        }
+        return s.toString();
+    }
+
+    private class NeighborIterator implements PrimitiveIterator.OfInt {
+        private int cursor;     // index in targets of the next neighbor
+        private final int end;  // one past the last neighbor
+
+        NeighborIterator(int start, int end) {
+            this.cursor = start;
+            this.end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor < end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            return targets[cursor++];
+        }
+    }
+
+    /**
+     * A {@code Builder} accumulates edges and then produces a {@link CsrGraph}
+     * in a single counting-sort pass. The edges of each vertex appear in the
+     * order they were added.
+     */
+    public static class Builder {
+        private static final int DEFAULT_CAPACITY = 16;
+
+        private final int V;
+        private final boolean directed;
+        private int E;
+        private int[] from;  // tails of the arcs added so far
+        private int[] to;    // heads of the arcs added so far
+        private int arcs;    // number of arcs (two per undirected edge)
+
+        /**
+         * Initializes a builder for a directed graph with {@code V} vertices.
+         *
+         * @param  V the number of vertices
+         * @throws IllegalArgumentException if {@code V < 0}
+         */
+        public Builder(int V) {
+            this(V, true);
+        }
+
+        /**
+         * Initializes a builder for a graph with {@code V} vertices. If
+         * {@code directed} is false, each edge v-w is stored as both v→w and
+         * w→v, as in {@link UndirectedGraph}.
+         *
+         * @param  V the number of vertices
+         * @param  directed whether edges are directed
+         * @throws IllegalArgumentException if {@code V < 0}
+         */
+        public Builder(int V, boolean directed) {
+            if (V < 0) throw new IllegalArgumentException("Number of vertices must be non-negative");
+            this.V = V;
+            this.directed = directed;
+            this.E = 0;
+            this.from = new int[DEFAULT_CAPACITY];
+            this.to = new int[DEFAULT_CAPACITY];
+            this.arcs = 0;
+        }
+
+        /**
+         * Adds the edge v→w (or v-w, if undirected) to the graph being built.
+         *
+         * @param  v the tail vertex
+         * @param  w the head vertex
+         * @return this builder
+         * @throws IllegalArgumentException unless both {@code 0 <= v < V} and {@code 0 <= w < V}
+         */
+        public Builder addEdge(int v, int w) {
+            if (v < 0 || v >= V)
+                throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+            if (w < 0 || w >= V)
+                throw new IllegalArgumentException("vertex " + w + " is not between 0 and " + (V-1));
+            E++;
+            addArc(v, w);
+            if (!directed) {
+                addArc(w, v);
+            }
+            return this;
+        }
+
+        private void addArc(int v, int w) {
+            if (arcs == from.length) {
+                from = Arrays.copyOf(from, 2 * arcs);
+                to = Arrays.copyOf(to, 2 * arcs);
+            }
+            from[arcs] = v;
+            to[arcs] = w;
+            arcs++;
+        }
+
+        /**
+         * Returns a {@link CsrGraph} containing the edges added so far. The
+         * builder may continue to be used afterwards.
+         *
+         * @return the graph
+         */
+        public CsrGraph build() {
+            int[] offsets = new int[V + 1];
+            for (int i = 0; i < arcs; i++) {
+                offsets[from[i] + 1]++;
+            }
+            for (int v = 0; v < V; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] next = Arrays.copyOf(offsets, V);
+            int[] targets = new int[arcs];
+            for (int i = 0; i < arcs; i++) {
+                targets[next[from[i]]++] = to[i];
+            }
+            return new CsrGraph(V, E, offsets, targets);
+        }
+    }
+
+    /**
+     * Unit tests the {@code CsrGraph} data type.
+     *
+     * @param args the command-line arguments
+     * @throws FileNotFoundException
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(args[0]));
+        CsrGraph G = new CsrGraph(new Digraph(in));
+        in.close();
+        System.out.println(G);
+        System.out.println(G.reverse());
+    }
+}
@@ -1,11 +1,11 @@
 package edu.depauw.algorithms.graph;
 
 public abstract class DFS {
-    protected boolean[] marked; // marked[v] = is there an s-v path?
+    protected final BitsetMarks marked; // marked.get(v) = is there an s-v path?
     protected boolean halt;
 
     public DFS(Graph G) {
-        marked = new boolean[G.V()];
+        marked = new BitsetMarks(G.V());
         halt = false;
     }
 
@@ -27,7 +27,7 @@ public abstract class DFS {
      */
     public boolean marked(int v) {
         validateVertex(v);
-        return marked[v];
+        return marked.get(v);
     }
 
     /**
@@ -36,7 +36,7 @@ public abstract class DFS {
      * @param v the presumed vertex
      */
     public void validateVertex(int v) {
-        int V = marked.length;
+        int V = marked.size();
         if (v < 0 || v >= V)
             throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V - 1));
     }
@@ -64,6 +64,15 @@ public abstract class DFS {
         }
     }
 
+    /**
+     * Unmark every vertex and clear any halt, so that this object can be used
+     * for a fresh search of the same graph. Takes &Theta;(1) time.
+     */
+    public void reset() {
+        marked.clear();
+        halt = false;
+    }
+
     /**
      * Signal an early exit from the search.
      */
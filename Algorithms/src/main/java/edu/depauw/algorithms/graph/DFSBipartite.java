@@ -7,10 +7,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  * The {@code DFSBipartite} class represents a data type for determining whether
@@ -39,7 +38,7 @@ public class DFSBipartite implements DFSClient {
     private boolean isBipartite; // is the graph bipartite?
     private boolean[] color; // color[v] gives vertices on one side of bipartition
     private int[] edgeTo; // edgeTo[v] = last edge on path to v
-    private Deque<Integer> cycle; // odd-length cycle
+    private IntArrayDeque cycle; // odd-length cycle
 
     /**
      * Determines whether an undirected graph is bipartite and finds either a
@@ -48,7 +47,7 @@ public class DFSBipartite implements DFSClient {
      * @param G the graph
      */
     public DFSBipartite(UndirectedGraph G) {
-        dfs = new NonrecDFS(G);
+        dfs = new IntStackDFS(G);
         isBipartite = true;
         color = new boolean[G.V()];
         edgeTo = new int[G.V()];
@@ -78,7 +77,7 @@ public class DFSBipartite implements DFSClient {
             color[w] = !color[v];
         } else if (color[w] == color[v]) {
             isBipartite = false;
-            cycle = new ArrayDeque<>();
+            cycle = new IntArrayDeque();
             cycle.push(w); // don't need this unless you want to include start vertex twice
             for (int x = v; x != w; x = edgeTo[x]) {
                 cycle.push(x);
@@ -22,12 +22,11 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.List;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
 import edu.depauw.algorithms.ArrayList;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code DFSCC} class represents a data type for
@@ -70,7 +69,7 @@ public class DFSCC implements DFSClient {
      * @param G the undirected graph
      */
     public DFSCC(UndirectedGraph G) {
-        dfs = new NonrecDFS(G);
+        dfs = new IntStackDFS(G);
         id = new int[G.V()];
         size = new int[G.V()];
         count = 0;
@@ -165,12 +164,12 @@ public class DFSCC implements DFSClient {
         System.out.println(m + " components");
 
         // compute list of vertices in each connected component
-        List<Deque<Integer>> components = new ArrayList<>(m);
+        List<IntArrayDeque> components = new ArrayList<>(m);
         for (int i = 0; i < m; i++) {
-            components.add(i, new ArrayDeque<>());
+            components.add(i, new IntArrayDeque());
         }
         for (int v = 0; v < G.V(); v++) {
-            components.get(cc.id(v)).add(v);
+            components.get(cc.id(v)).addLast(v);
         }
 
         // print results
@@ -14,10 +14,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  * The {@code DFSDirectedCycle} class represents a data type for determining
@@ -45,7 +44,7 @@ public class DFSDirectedCycle implements DFSClient {
     private DFS dfs;
     private int[] edgeTo; // edgeTo[v] = previous vertex on path to v
     private boolean[] onStack; // onStack[v] = is vertex on the stack?
-    private Deque<Integer> cycle; // directed cycle (or null if no such cycle)
+    private IntArrayDeque cycle; // directed cycle (or null if no such cycle)
 
     /**
      * Determines whether the digraph {@code G} has a directed cycle and, if so,
@@ -54,7 +53,7 @@ public class DFSDirectedCycle implements DFSClient {
      * @param G the digraph
      */
     public DFSDirectedCycle(Digraph G) {
-        dfs = new NonrecDFS(G);
+        dfs = new IntStackDFS(G);
         onStack = new boolean[G.V()];
         edgeTo = new int[G.V()];
         for (int v = 0; v < G.V(); v++)
@@ -77,7 +76,7 @@ public class DFSDirectedCycle implements DFSClient {
         if (!dfs.marked(w)) {
             edgeTo[w] = v;
         } else if (onStack[w]) {
-            cycle = new ArrayDeque<>();
+            cycle = new IntArrayDeque();
             for (int x = v; x != w; x = edgeTo[x]) {
                 cycle.push(x);
             }
@@ -16,12 +16,11 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.List;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
 import edu.depauw.algorithms.ArrayList;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code DFSGabowSCC} class represents a data type for
@@ -59,18 +58,18 @@ public class DFSGabowSCC implements DFSClient {
     private int[] preorder;          // preorder[v] = preorder of v
     private int pre;                 // preorder number counter
     private int count;               // number of strongly-connected components
-    private Deque<Integer> stack1;
-    private Deque<Integer> stack2;
+    private IntArrayDeque stack1;
+    private IntArrayDeque stack2;
 
 
     /**
      * Computes the strong components of the digraph {@code G}.
      * @param G the digraph
      */
-    public DFSGabowSCC(Digraph G) {
-        dfs = new NonrecDFS(G);
-        stack1 = new ArrayDeque<>();
-        stack2 = new ArrayDeque<>();
+    public DFSGabowSCC(Graph G) {
+        dfs = new IntStackDFS(G);
+        stack1 = new IntArrayDeque();
+        stack2 = new IntArrayDeque();
         id = new int[G.V()];
         preorder = new int[G.V()];
         for (int v = 0; v < G.V(); v++)
@@ -101,11 +101,24 @@ public class DFSKosarajuSharirSCC implements DFSClient {
      * @param G the digraph
      */
     public DFSKosarajuSharirSCC(Digraph G) {
+        this(G, G.reverse());
+    }
+
+    /**
+     * Computes the strong components of the compressed digraph {@code G}.
+     * @param G the digraph
+     */
+    public DFSKosarajuSharirSCC(CsrGraph G) {
+        this(G, G.reverse());
+    }
+
+    // run the two passes, given G and its reverse R
+    private DFSKosarajuSharirSCC(Graph G, Graph R) {
         // compute reverse postorder of reverse graph
-        Iterable<Integer> post = new DFSOrder(G.reverse()).reversePost();
+        Iterable<Integer> post = new DFSOrder(R).reversePost();
 
         // run DFS on G, using reverse postorder to guide calculation
-        dfs = new NonrecDFS(G);
+        dfs = new IntStackDFS(G);
         id = new int[G.V()];
         for (int v : post) {
             if (!dfs.marked(v)) {
@@ -28,10 +28,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code DFSOrder} class represents a data type for
@@ -56,8 +55,8 @@ public class DFSOrder implements DFSClient {
     private DFS dfs;
     private int[] pre;                 // pre[v]    = preorder  number of v
     private int[] post;                // post[v]   = postorder number of v
-    private Deque<Integer> preorder;   // vertices in preorder
-    private Deque<Integer> postorder;  // vertices in postorder
+    private IntArrayDeque preorder;   // vertices in preorder
+    private IntArrayDeque postorder;  // vertices in postorder
     private int preCounter;            // counter or preorder numbering
     private int postCounter;           // counter for postorder numbering
 
@@ -65,12 +64,12 @@ public class DFSOrder implements DFSClient {
      * Determines a depth-first order for the digraph {@code G}.
      * @param G the digraph
      */
-    public DFSOrder(Digraph G) {
-        dfs = new NonrecDFS(G);
+    public DFSOrder(Graph G) {
+        dfs = new IntStackDFS(G);
         pre    = new int[G.V()];
         post   = new int[G.V()];
-        postorder = new ArrayDeque<Integer>();
-        preorder  = new ArrayDeque<Integer>();
+        postorder = new IntArrayDeque();
+        preorder  = new IntArrayDeque();
         for (int v = 0; v < G.V(); v++)
             if (!dfs.marked(v)) dfs.dfs(G, v, this);
     }
@@ -78,12 +77,12 @@ public class DFSOrder implements DFSClient {
     @Override
     public void visitPreorder(Graph G, int v) {
         pre[v] = preCounter++;
-        preorder.add(v);
+        preorder.addLast(v);
     }
 
     @Override
     public void visitPostorder(Graph G, int v) {
-        postorder.add(v);
+        postorder.addLast(v);
         post[v] = postCounter++;
     }
 
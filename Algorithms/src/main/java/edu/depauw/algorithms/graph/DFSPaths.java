@@ -38,10 +38,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.IntArrayDeque;
 
 /**
  *  The {@code DFSPaths} class represents a data type for finding
@@ -120,7 +119,7 @@ public class DFSPaths implements DFSClient {
     public Iterable<Integer> pathTo(int v) {
         dfs.validateVertex(v);
         if (!hasPathTo(v)) return null;
-        Deque<Integer> path = new ArrayDeque<>();
+        IntArrayDeque path = new IntArrayDeque();
         for (int x = v; x != s; x = edgeTo[x])
             path.push(x);
         path.push(s);
@@ -16,11 +16,9 @@ package edu.depauw.algorithms.graph;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Deque;
 import java.util.List;
 import java.util.Scanner;
 
-import edu.depauw.algorithms.ArrayDeque;
 import edu.depauw.algorithms.ArrayList;
 
 /**
@@ -56,54 +54,66 @@ public class DFSTarjanSCC implements DFSClient {
     private DFS dfs;
     private int[] id;                // id[v] = id of strong component containing v
     private int[] low;               // low[v] = low number of v
-    private int pre;                 // preorder number counter
+    private int[] pre;               // pre[v] = preorder number of v
+    private int[] parent;            // parent[v] = vertex whose edge discovered v, or -1
+    private int preCount;            // preorder number counter
     private int count;               // number of strongly-connected components
-    private Deque<Integer> stack;
+    private int[] stack;             // vertices not yet assigned to a component
+    private int top;                 // number of vertices on the stack
 
 
     /**
      * Computes the strong components of the digraph {@code G}.
      * @param G the digraph
      */
-    public DFSTarjanSCC(Digraph G) {
-        dfs = new NonrecDFS(G);
-        stack = new ArrayDeque<>();
+    public DFSTarjanSCC(Graph G) {
+        dfs = new IntStackDFS(G);
+        stack = new int[G.V()];
         id = new int[G.V()];
         low = new int[G.V()];
+        pre = new int[G.V()];
+        parent = new int[G.V()];
         for (int v = 0; v < G.V(); v++) {
-            if (!dfs.marked(v)) dfs.dfs(G, v, this);
+            if (!dfs.marked(v)) {
+                parent[v] = -1;
+                dfs.dfs(G, v, this);
+            }
         }
     }
 
     @Override
     public void visitPreorder(Graph G, int v) {
-        low[v] = pre++;
-        stack.push(v);
+        pre[v] = preCount++;
+        low[v] = pre[v];
+        stack[top++] = v;
     }
 
     @Override
     public void visitPostorder(Graph G, int v) {
-        int min = low[v];
-        for (int w : G.adj(v)) {
-            if (low[w] < min) min = low[w];
+        // every edge out of v has already been folded into low[v], by
+        // processEdge or by the postorder visits of its children
+        if (low[v] == pre[v]) {
+            int w;
+            do {
+                w = stack[--top];
+                id[w] = count;
+                low[w] = G.V();
+            } while (w != v);
+            count++;
         }
-        
-        if (min < low[v]) {
-            low[v] = min;
-            return;
+        if (parent[v] >= 0 && low[v] < low[parent[v]]) {
+            low[parent[v]] = low[v];
         }
-        int w;
-        do {
-            w = stack.pop();
-            id[w] = count;
-            low[w] = G.V();
-        } while (w != v);
-        count++;        
     }
 
     @Override
     public void processEdge(Graph G, int v, int w) {
-        // Do nothing
+        if (!dfs.marked(w)) {
+            // tree edge; low[w] is passed up when w is finished
+            parent[w] = v;
+        } else if (low[w] < low[v]) {
+            low[v] = low[w];
+        }
     }
 
     /**
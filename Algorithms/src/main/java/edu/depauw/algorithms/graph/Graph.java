@@ -1,5 +1,9 @@
 package edu.depauw.algorithms.graph;
 
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
 public interface Graph {
     /**
      * Returns the number of vertices in this graph.
@@ -32,4 +36,44 @@ public interface Graph {
      * @throws IllegalArgumentException unless {@code 0 <= v < V}
      */
     Iterable<Integer> adj(int v);
-}
\ No newline at end of file
+
+    /**
+     * Returns the vertices adjacent to vertex {@code v} as a primitive iterator,
+     * so that traversals need not unbox each neighbor. The default
+     * implementation adapts {@link #adj(int)}; implementations that store
+     * primitive adjacency lists should override it.
+     *
+     * @param  v the vertex
+     * @return an iterator over the vertices adjacent to vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    default PrimitiveIterator.OfInt adjInts(int v) {
+        Iterator<Integer> it = adj(v).iterator();
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return it.next();
+            }
+        };
+    }
+
+    /**
+     * Performs the given action on each vertex adjacent to vertex {@code v}, in
+     * the same order as {@link #adj(int)}.
+     *
+     * @param  v the vertex
+     * @param  action the action to perform on each neighbor
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    default void forEachNeighbor(int v, IntConsumer action) {
+        PrimitiveIterator.OfInt it = adjInts(v);
+        while (it.hasNext()) {
+            action.accept(it.nextInt());
+        }
+    }
+}
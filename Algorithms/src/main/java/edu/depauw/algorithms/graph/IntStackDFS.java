@@ -0,0 +1,88 @@
+package edu.depauw.algorithms.graph;
+
+/**
+ * The {@code IntStackDFS} class is a nonrecursive depth-first search engine
+ * that produces no garbage while it runs. Where {@link NonrecDFS} pushes a
+ * record holding a neighbor iterator for every vertex it discovers, this
+ * version keeps the current path in two preallocated {@code int} arrays: the
+ * vertex at each depth, and a cursor into the {@link CsrGraph} adjacency
+ * array of that vertex marking its next unexplored edge.
+ * <p>
+ * The search runs over the compressed sparse row form of the graph. If the
+ * graph is already a {@code CsrGraph} it is used directly; otherwise a
+ * compressed copy is made on the first call to {@code dfs} and reused by
+ * later calls with the same graph, so a client that sweeps every vertex pays
+ * for the copy once. The copy is rebuilt if the graph has gained edges since.
+ * The client callbacks always receive the original graph.
+ * <p>
+ * Each pass takes &Theta;(<em>V</em> + <em>E</em>) time in the worst case and
+ * allocates nothing beyond the one-time copy. It uses &Theta;(<em>V</em>)
+ * extra space for the stacks, plus &Theta;(<em>V</em> + <em>E</em>) for the
+ * copy when the graph is not already compressed.
+ */
+public class IntStackDFS extends DFS {
+    private final int[] vertexStack;  // vertexStack[d] = vertex at depth d of the current path
+    private final int[] cursorStack;  // cursorStack[d] = index of its next edge in the CSR targets
+    private Graph source;             // graph that csr was compressed from
+    private CsrGraph csr;             // compressed form of source
+
+    /**
+     * Prepares to search the graph {@code G}.
+     *
+     * @param G the graph
+     */
+    public IntStackDFS(Graph G) {
+        super(G);
+        vertexStack = new int[G.V()];
+        cursorStack = new int[G.V()];
+    }
+
+    /**
+     * Perform one pass of depth first search from {@code v}.
+     *
+     * @param G        the graph
+     * @param s        the starting vertex
+     * @param strategy additional processing for each vertex and edge
+     */
+    public void dfs(Graph G, int s, DFSClient strategy) {
+        CsrGraph C = compressed(G);
+        int top = 0;
+
+        strategy.visitPreorder(G, s);
+        marked.set(s);
+        vertexStack[0] = s;
+        cursorStack[0] = C.start(s);
+
+        while (top >= 0 && !halt) {
+            int v = vertexStack[top];
+            int i = cursorStack[top];
+            if (i < C.end(v)) {
+                cursorStack[top] = i + 1;
+                int w = C.target(i);
+                strategy.processEdge(G, v, w);
+                if (!marked.get(w)) {
+                    strategy.visitPreorder(G, w);
+                    marked.set(w);
+                    top++;
+                    vertexStack[top] = w;
+                    cursorStack[top] = C.start(w);
+                }
+            } else {
+                top--;
+                strategy.visitPostorder(G, v);
+            }
+        }
+    }
+
+    // return G in compressed form, reusing the previous copy when possible
+    private CsrGraph compressed(Graph G) {
+        if (G instanceof CsrGraph C) {
+            return C;
+        }
+        if (G != source || G.E() != csr.E()) {
+            source = G;
+            csr = new CsrGraph(G);
+        }
+        return csr;
+    }
+}
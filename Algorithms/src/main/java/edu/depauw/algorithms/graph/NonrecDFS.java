@@ -21,7 +21,7 @@
 package edu.depauw.algorithms.graph;
 
 import java.util.Deque;
-import java.util.Iterator;
+import java.util.PrimitiveIterator;
 
 import edu.depauw.algorithms.ArrayDeque;
 
@@ -32,7 +32,8 @@ import edu.depauw.algorithms.ArrayDeque;
  * {@link BFSPaths}.
  * <p>
  * This implementation uses a nonrecursive version of depth-first search with an
- * explicit stack. See {@link RecDFS} for the classic recursive version. The
+ * explicit stack. See {@link RecDFS} for the classic recursive version, and
+ * {@link IntStackDFS} for a version that allocates nothing per vertex. The
  * constructor takes &Theta;(<em>V</em> + <em>E</em>) time in the worst case,
  * where <em>V</em> is the number of vertices and <em>E</em> is the number of
  * edges. Each instance method takes &Theta;(1) time. It uses
@@ -58,7 +59,7 @@ public class NonrecDFS extends DFS {
         super(G);
     }
     
-    private record VIPair(int v, Iterator<Integer> it) {}
+    private record VIPair(int v, PrimitiveIterator.OfInt it) {}
 
     /**
      * Perform one pass of depth first search from {@code v}.
@@ -71,18 +72,18 @@ public class NonrecDFS extends DFS {
         Deque<VIPair> stack = new ArrayDeque<>();
         
         strategy.visitPreorder(G, s);
-        marked[s] = true;
-        stack.push(new VIPair(s, G.adj(s).iterator()));
+        marked.set(s);
+        stack.push(new VIPair(s, G.adjInts(s)));
         
         while (!stack.isEmpty() && !halt) {
             var p = stack.peek();
             if (p.it.hasNext()) {
-                int w = p.it.next();
+                int w = p.it.nextInt();
                 strategy.processEdge(G, p.v, w);
-                if (!marked[w]) {
+                if (!marked.get(w)) {
                     strategy.visitPreorder(G, w);
-                    marked[w] = true;
-                    stack.push(new VIPair(w, G.adj(w).iterator()));
+                    marked.set(w);
+                    stack.push(new VIPair(w, G.adjInts(w)));
                 }
             } else {
                 stack.pop();
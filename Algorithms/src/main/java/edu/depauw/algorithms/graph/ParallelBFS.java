@@ -0,0 +1,343 @@
+package edu.depauw.algorithms.graph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+import edu.depauw.algorithms.IntArrayDeque;
+
+/**
+ * The {@code ParallelBFS} class finds shortest paths (number of edges) from a
+ * source vertex <em>s</em> (or a set of source vertices) to every other
+ * vertex, like {@link BFSPaths}, but expands each level of the search in
+ * parallel on a {@link ForkJoinPool}.
+ * <p>
+ * The search is level-synchronous. The frontier is cut into chunks of
+ * consecutive vertices, and each level takes two parallel passes over the
+ * chunks. The first pass offers every unvisited neighbor to the frontier
+ * vertex that comes first in the frontier, with an atomic minimum on its
+ * position. The second pass lets each frontier vertex claim the neighbors it
+ * won, in adjacency order: it sets their bits in a shared atomic bitset,
+ * records {@code edgeTo} and {@code distTo}, and appends them to the buffer of
+ * its chunk. Concatenating the chunk buffers in order gives the next frontier.
+ * Since a vertex is always claimed by the earliest frontier vertex adjacent to
+ * it, and the frontier order is the order a queue would produce, the results
+ * are exactly those of {@code BFSPaths}, whatever the number of threads.
+ * <p>
+ * The search runs over the compressed sparse row form of the graph, copying it
+ * first if it is not already a {@link CsrGraph}. The constructor takes
+ * &Theta;(<em>V</em> + <em>E</em>) work in the worst case, spread over the
+ * threads of the pool one level at a time. Each instance method takes
+ * &Theta;(1) time. It uses &Theta;(<em>V</em>) extra space (not including the
+ * graph or its copy).
+ */
+public class ParallelBFS {
+    private static final int INFINITY = Integer.MAX_VALUE;
+    private static final int GRAIN = 512;  // frontier vertices per chunk
+
+    private final CsrGraph G;
+    private final int[] edgeTo;                // edgeTo[v] = previous edge on shortest s-v path
+    private final int[] distTo;                // distTo[v] = number of edges shortest s-v path
+    private final AtomicLongArray marked;      // bit v is set if there is an s-v path
+    private final AtomicIntegerArray claimant; // claimant[w] = first frontier position adjacent to w
+
+    private int[] frontier;                    // current level, in queue order
+    private int n;                             // size of the current level
+    private int[][] buffers;                   // buffers[c] = vertices discovered by chunk c
+    private int[] counts;                      // counts[c] = number of vertices in buffers[c]
+
+    /**
+     * Computes the shortest path between the source vertex {@code s} and every
+     * other vertex in the graph {@code G}, using the common pool.
+     *
+     * @param G the graph
+     * @param s the source vertex
+     * @throws IllegalArgumentException unless {@code 0 <= s < V}
+     */
+    public ParallelBFS(Graph G, int s) {
+        this(G, Collections.singleton(s), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the shortest path between any one of the source vertices in
+     * {@code sources} and every other vertex in graph {@code G}, using the
+     * common pool.
+     *
+     * @param G       the graph
+     * @param sources the source vertices
+     * @throws IllegalArgumentException if {@code sources} is {@code null}
+     * @throws IllegalArgumentException if {@code sources} contains no vertices
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} for each vertex
+     *                                  {@code s} in {@code sources}
+     */
+    public ParallelBFS(Graph G, Iterable<Integer> sources) {
+        this(G, sources, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the shortest path between any one of the source vertices in
+     * {@code sources} and every other vertex in graph {@code G}, using the
+     * threads of {@code pool}.
+     *
+     * @param G       the graph
+     * @param sources the source vertices
+     * @param pool    the pool to run the search on
+     * @throws IllegalArgumentException if {@code sources} is {@code null}
+     * @throws IllegalArgumentException if {@code sources} contains no vertices
+     * @throws IllegalArgumentException unless {@code 0 <= s < V} for each vertex
+     *                                  {@code s} in {@code sources}
+     */
+    public ParallelBFS(Graph G, Iterable<Integer> sources, ForkJoinPool pool) {
+        int V = G.V();
+        this.G = (G instanceof CsrGraph C) ? C : new CsrGraph(G);
+        this.edgeTo = new int[V];
+        this.distTo = new int[V];
+        this.marked = new AtomicLongArray((V + 63) >>> 6);
+        this.claimant = new AtomicIntegerArray(V);
+        Arrays.fill(distTo, INFINITY);
+        validateVertices(sources);
+
+        frontier = new int[V];
+        n = 0;
+        for (int s : sources) {
+            if (mark(s)) {
+                distTo[s] = 0;
+                frontier[n++] = s;
+            }
+        }
+        buffers = new int[0][];
+        counts = new int[0];
+
+        int[] next = new int[V];
+        while (n > 0) {
+            int chunks = (n + GRAIN - 1) / GRAIN;
+            if (buffers.length < chunks) {
+                buffers = Arrays.copyOf(buffers, chunks);
+                counts = new int[chunks];
+                for (int c = 0; c < chunks; c++) {
+                    if (buffers[c] == null) buffers[c] = new int[GRAIN];
+                }
+            }
+            forEachChunk(pool, chunks, this::offer);
+            forEachChunk(pool, chunks, this::claim);
+
+            int m = 0;
+            for (int c = 0; c < chunks; c++) {
+                System.arraycopy(buffers[c], 0, next, m, counts[c]);
+                m += counts[c];
+            }
+            int[] temp = frontier;
+            frontier = next;
+            next = temp;
+            n = m;
+        }
+        frontier = null;
+        buffers = null;
+        counts = null;
+    }
+
+    // run action on each chunk index in [0, chunks), in parallel if there are several
+    private static void forEachChunk(ForkJoinPool pool, int chunks, IntConsumer action) {
+        if (chunks == 1) {
+            action.accept(0);
+        } else {
+            pool.invoke(new ChunkRange(0, chunks, action));
+        }
+    }
+
+    // first pass: offer each unvisited neighbor to the earliest frontier position
+    private void offer(int c) {
+        for (int i = c * GRAIN, end = Math.min(n, i + GRAIN); i < end; i++) {
+            int v = frontier[i];
+            for (int j = G.start(v), last = G.end(v); j < last; j++) {
+                int w = G.target(j);
+                if (isMarked(w)) continue;
+                int current = claimant.get(w);
+                // claimant is zero on first touch, so positions are stored plus one
+                while ((current == 0 || current > i + 1) && !claimant.compareAndSet(w, current, i + 1)) {
+                    current = claimant.get(w);
+                }
+            }
+        }
+    }
+
+    // second pass: each frontier vertex takes the neighbors it won, in adjacency order
+    private void claim(int c) {
+        int[] buffer = buffers[c];
+        int count = 0;
+        for (int i = c * GRAIN, end = Math.min(n, i + GRAIN); i < end; i++) {
+            int v = frontier[i];
+            for (int j = G.start(v), last = G.end(v); j < last; j++) {
+                int w = G.target(j);
+                if (claimant.get(w) == i + 1 && mark(w)) {
+                    edgeTo[w] = v;
+                    distTo[w] = distTo[v] + 1;
+                    if (count == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, 2 * count);
+                    }
+                    buffer[count++] = w;
+                }
+            }
+        }
+        buffers[c] = buffer;
+        counts[c] = count;
+    }
+
+    private boolean isMarked(int v) {
+        return (marked.get(v >>> 6) & (1L << v)) != 0;
+    }
+
+    // set the bit for v; return true if it was previously clear
+    private boolean mark(int v) {
+        long bit = 1L << v;
+        return (marked.getAndAccumulate(v >>> 6, bit, (word, b) -> word | b) & bit) == 0;
+    }
+
+    // splits a range of chunk indices in half until single chunks remain
+    private static class ChunkRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final transient IntConsumer action;
+
+        ChunkRange(int lo, int hi, IntConsumer action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                action.accept(lo);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ChunkRange(lo, mid, action), new ChunkRange(mid, hi, action));
+            }
+        }
+    }
+
+    /**
+     * Is there a path between the source vertex {@code s} (or sources) and vertex {@code v}?
+     * @param v the vertex
+     * @return {@code true} if there is a path, and {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public boolean hasPathTo(int v) {
+        validateVertex(v);
+        return isMarked(v);
+    }
+
+    /**
+     * Returns the number of edges in a shortest path between the source vertex {@code s}
+     * (or sources) and vertex {@code v}?
+     * @param v the vertex
+     * @return the number of edges in such a shortest path
+     *         (or {@code Integer.MAX_VALUE} if there is no such path)
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int distTo(int v) {
+        validateVertex(v);
+        return distTo[v];
+    }
+
+    /**
+     * Returns the vertex before {@code v} on a shortest path from the source
+     * vertex {@code s} (or sources); this is the same vertex {@link BFSPaths}
+     * chooses.
+     * @param v the vertex
+     * @return the previous vertex on a shortest path to {@code v}, or
+     *         {@code -1} if {@code v} is a source or not reachable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int edgeTo(int v) {
+        validateVertex(v);
+        if (distTo[v] == 0 || distTo[v] == INFINITY) return -1;
+        return edgeTo[v];
+    }
+
+    /**
+     * Returns a shortest path between the source vertex {@code s} (or sources)
+     * and {@code v}, or {@code null} if no such path.
+     * @param  v the vertex
+     * @return the sequence of vertices on a shortest path, as an Iterable
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public Iterable<Integer> pathTo(int v) {
+        validateVertex(v);
+        if (!hasPathTo(v)) return null;
+        IntArrayDeque path = new IntArrayDeque();
+        int x;
+        for (x = v; distTo[x] != 0; x = edgeTo[x])
+            path.push(x);
+        path.push(x);
+        return path;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = distTo.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    // throw an IllegalArgumentException if vertices is null, has zero vertices,
+    // or has a vertex not between 0 and V-1
+    private void validateVertices(Iterable<Integer> vertices) {
+        if (vertices == null) {
+            throw new IllegalArgumentException("argument is null");
+        }
+        int vertexCount = 0;
+        for (Integer v : vertices) {
+            vertexCount++;
+            if (v == null) {
+                throw new IllegalArgumentException("vertex is null");
+            }
+            validateVertex(v);
+        }
+        if (vertexCount == 0) {
+            throw new IllegalArgumentException("zero vertices");
+        }
+    }
+
+    /**
+     * Unit tests the {@code ParallelBFS} data type, checking it against
+     * {@link BFSPaths}.
+     *
+     * @param args the command-line arguments
+     * @throws FileNotFoundException
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(args[0]));
+        Graph G = new UndirectedGraph(in);
+        in.close();
+
+        int s = Integer.parseInt(args[1]);
+        ParallelBFS bfs = new ParallelBFS(G, s);
+        BFSPaths check = new BFSPaths(G, s);
+
+        for (int v = 0; v < G.V(); v++) {
+            if (bfs.hasPathTo(v)) {
+                System.out.printf("%d to %d (%d):  ", s, v, bfs.distTo(v));
+                for (int x : bfs.pathTo(v)) {
+                    if (x == s) System.out.print(x);
+                    else        System.out.print("-" + x);
+                }
+                System.out.println();
+            }
+            else {
+                System.out.printf("%d to %d (-):  not connected\n", s, v);
+            }
+            if (bfs.distTo(v) != check.distTo(v)) {
+                System.out.println("distTo differs from BFSPaths at " + v);
+            }
+        }
+    }
+}
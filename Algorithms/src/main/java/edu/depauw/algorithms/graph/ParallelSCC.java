@@ -0,0 +1,394 @@
+package edu.depauw.algorithms.graph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+import edu.depauw.algorithms.ArrayDeque;
+import edu.depauw.algorithms.ArrayList;
+
+/**
+ * The {@code ParallelSCC} class determines the strong components in a digraph,
+ * with the same API as {@link DFSTarjanSCC}, using the threads of a
+ * {@link ForkJoinPool}.
+ * <p>
+ * The search starts with a parallel <em>trim</em> phase. A vertex with no
+ * edges in, or none out, other than self-loops, is a strong component by
+ * itself; removing it may expose more such vertices, so the trim peels them
+ * off level by level, much like a topological sort, with the in- and
+ * out-degrees of the remaining vertices kept as atomic counters.
+ * <p>
+ * The vertices that survive are split by the <em>forward-backward</em>
+ * algorithm of Fleischer, Hendrickson, and Pinar. Each subproblem is a set of
+ * vertices with a common color. From a pivot in the set, a forward search and a
+ * backward search (each level-synchronous and parallel when the frontier is
+ * large) find the descendants <em>F</em> and the ancestors <em>B</em> of the
+ * pivot; <em>F</em> &cap; <em>B</em> is the strong component of the pivot, and
+ * every other strong component lies entirely within <em>F</em> &minus;
+ * <em>B</em>, <em>B</em> &minus; <em>F</em>, or the rest. These three become
+ * new subproblems with fresh colors, and are solved in parallel. Colors are
+ * never reused, so searches in different subproblems cannot interfere. The
+ * rest keeps its color and is split again in a loop, and small subproblems
+ * are kept on a work list rather than solved recursively, so graphs with many
+ * small strong components do not exhaust the stack.
+ * <p>
+ * Component ids are assigned in the order components are found, which depends
+ * on the scheduling; they are not the ids that {@code DFSTarjanSCC} would
+ * give. The trim takes &Theta;(<em>V</em> + <em>E</em>) work. The
+ * forward-backward phase takes &Theta;((<em>V</em> + <em>E</em>) log
+ * <em>V</em>) expected work on typical graphs, but &Theta;(<em>V</em>(<em>V</em>
+ * + <em>E</em>)) in the worst case. Each instance method takes &Theta;(1) time.
+ * It uses &Theta;(<em>V</em> + <em>E</em>) extra space, for a compressed copy
+ * of the digraph and its reverse.
+ */
+public class ParallelSCC {
+    private static final int GRAIN = 1024;  // vertices per chunk, and smallest subproblem to fork
+    private static final int LIVE = 0;      // color of vertices left after the trim
+    private static final int TRIMMED = -1;  // color of vertices removed by the trim
+
+    private final CsrGraph G;
+    private final CsrGraph R;               // reverse of G
+    private final int[] id;                 // id[v] = id of strong component containing v
+    private final AtomicIntegerArray color; // color[v] = subproblem containing v
+    private final AtomicInteger colors;     // source of fresh colors
+    private final AtomicInteger count;      // number of strong components found so far
+
+    /**
+     * Computes the strong components of the digraph {@code G}, using the
+     * common pool.
+     * @param G the digraph
+     */
+    public ParallelSCC(Graph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the strong components of the digraph {@code G}, using the
+     * threads of {@code pool}.
+     * @param G the digraph
+     * @param pool the pool to run the search on
+     */
+    public ParallelSCC(Graph G, ForkJoinPool pool) {
+        this.G = (G instanceof CsrGraph C) ? C : new CsrGraph(G);
+        this.R = this.G.reverse();
+        int V = G.V();
+        this.id = new int[V];
+        this.color = new AtomicIntegerArray(V);
+        this.colors = new AtomicInteger(LIVE + 1);
+        this.count = new AtomicInteger();
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                trim();
+                Buffer live = new Buffer();
+                for (int v = 0; v < V; v++) {
+                    if (color.get(v) == LIVE) live.add(v);
+                }
+                new Subproblem(null, new Part(LIVE, live.toArray())).invoke();
+            }
+        });
+    }
+
+    // peel off, level by level, the vertices with no other in-neighbors or
+    // no other out-neighbors among the vertices still present
+    private void trim() {
+        int V = G.V();
+        AtomicIntegerArray indegree = new AtomicIntegerArray(V);
+        AtomicIntegerArray outdegree = new AtomicIntegerArray(V);
+        int[] all = new int[V];
+        for (int v = 0; v < V; v++) {
+            all[v] = v;
+        }
+
+        int[] frontier = level(all, V, (v, out) -> {
+            int in = 0;
+            for (int j = R.start(v), end = R.end(v); j < end; j++) {
+                if (R.target(j) != v) in++;
+            }
+            int on = 0;
+            for (int j = G.start(v), end = G.end(v); j < end; j++) {
+                if (G.target(j) != v) on++;
+            }
+            indegree.set(v, in);
+            outdegree.set(v, on);
+            if ((in == 0 || on == 0) && claim(v)) out.add(v);
+        });
+
+        while (frontier.length > 0) {
+            frontier = level(frontier, frontier.length, (v, out) -> {
+                for (int j = G.start(v), end = G.end(v); j < end; j++) {
+                    int w = G.target(j);
+                    if (w != v && indegree.decrementAndGet(w) == 0 && claim(w)) out.add(w);
+                }
+                for (int j = R.start(v), end = R.end(v); j < end; j++) {
+                    int u = R.target(j);
+                    if (u != v && outdegree.decrementAndGet(u) == 0 && claim(u)) out.add(u);
+                }
+            });
+        }
+    }
+
+    // remove v by the trim, as a strong component by itself, unless it is already gone
+    private boolean claim(int v) {
+        if (!color.compareAndSet(v, LIVE, TRIMMED)) return false;
+        id[v] = count.getAndIncrement();
+        return true;
+    }
+
+    // search g from source through vertices colored from1 or from2, recoloring
+    // them to1 or to2 respectively; return the vertices reached, source first
+    private int[] reach(CsrGraph g, int source, int from1, int to1, int from2, int to2) {
+        Buffer reached = new Buffer();
+        reached.add(source);
+        int[] frontier = { source };
+        while (frontier.length > 0) {
+            frontier = level(frontier, frontier.length, (v, out) -> {
+                for (int j = g.start(v), end = g.end(v); j < end; j++) {
+                    int w = g.target(j);
+                    int c = color.get(w);
+                    if (c == from1 && color.compareAndSet(w, from1, to1)
+                            || c == from2 && color.compareAndSet(w, from2, to2)) {
+                        out.add(w);
+                    }
+                }
+            });
+            reached.addAll(frontier);
+        }
+        return reached.toArray();
+    }
+
+    // apply visit to each of the first n vertices of frontier, in parallel if
+    // there are many, and return everything they add to their buffers
+    private static int[] level(int[] frontier, int n, Visit visit) {
+        if (n <= GRAIN) {
+            Buffer out = new Buffer();
+            for (int i = 0; i < n; i++) {
+                visit.visit(frontier[i], out);
+            }
+            return out.toArray();
+        }
+
+        int chunks = (n + GRAIN - 1) / GRAIN;
+        Buffer[] outs = new Buffer[chunks];
+        new ChunkRange(0, chunks, c -> {
+            Buffer out = new Buffer();
+            for (int i = c * GRAIN, end = Math.min(n, i + GRAIN); i < end; i++) {
+                visit.visit(frontier[i], out);
+            }
+            outs[c] = out;
+        }).invoke();
+
+        Buffer next = new Buffer();
+        for (Buffer out : outs) {
+            next.addAll(out.toArray());
+        }
+        return next.toArray();
+    }
+
+    // the vertices of one subproblem, which all have the same color
+    private record Part(int c, int[] vertices) {}
+
+    // Solves a subproblem and everything split from it. Each split leaves the
+    // rest of the subproblem with its color, so the loop over its vertices
+    // picks the next pivot from the rest without rebuilding it; the parts
+    // F - B and B - F are forked if they are large and otherwise kept on a
+    // local work list. No task waits for another, so the stack depth does not
+    // grow with the number of components.
+    private class Subproblem extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+
+        private transient Part part;  // dropped once started, as the completer chain outlives it
+
+        Subproblem(Subproblem parent, Part part) {
+            super(parent);
+            this.part = part;
+        }
+
+        @Override
+        public void compute() {
+            ArrayDeque<Part> work = new ArrayDeque<>();
+            work.push(part);
+            part = null;
+            while (!work.isEmpty()) {
+                Part p = work.pop();
+                for (int pivot : p.vertices()) {
+                    if (color.get(pivot) == p.c()) split(p.c(), pivot, work);
+                }
+            }
+            tryComplete();
+        }
+
+        // find the strong component of pivot among the vertices colored c, and
+        // hand off the descendants and ancestors that are not in it
+        private void split(int c, int pivot, ArrayDeque<Part> work) {
+            int sccId = count.getAndIncrement();
+
+            // forward: c -> cF; backward: c -> cB, cF -> cS
+            int cF = colors.getAndIncrement();
+            int cB = colors.getAndIncrement();
+            int cS = colors.getAndIncrement();
+            color.set(pivot, cF);
+            int[] forward = reach(G, pivot, c, cF, c, cF);  // only one transition
+            color.set(pivot, cS);
+            int[] backward = reach(R, pivot, c, cB, cF, cS);
+
+            Buffer descendants = new Buffer();
+            for (int v : forward) {
+                if (color.get(v) == cF) descendants.add(v);
+                else id[v] = sccId;
+            }
+            Buffer ancestors = new Buffer();
+            for (int v : backward) {
+                if (color.get(v) == cB) ancestors.add(v);
+            }
+            handOff(new Part(cF, descendants.toArray()), work);
+            handOff(new Part(cB, ancestors.toArray()), work);
+        }
+
+        private void handOff(Part p, ArrayDeque<Part> work) {
+            int n = p.vertices().length;
+            if (n == 1) {
+                id[p.vertices()[0]] = count.getAndIncrement();
+            } else if (n >= GRAIN) {
+                addToPendingCount(1);
+                new Subproblem(this, p).fork();
+            } else if (n > 0) {
+                work.push(p);
+            }
+        }
+    }
+
+    // processes one frontier vertex, adding any vertices it discovers to out
+    private interface Visit {
+        void visit(int v, Buffer out);
+    }
+
+    // a growable array of vertices
+    private static class Buffer {
+        private int[] a = new int[16];
+        private int n = 0;
+
+        void add(int v) {
+            if (n == a.length) a = Arrays.copyOf(a, 2 * n);
+            a[n++] = v;
+        }
+
+        void addAll(int[] vs) {
+            if (n + vs.length > a.length) a = Arrays.copyOf(a, Math.max(2 * a.length, n + vs.length));
+            System.arraycopy(vs, 0, a, n, vs.length);
+            n += vs.length;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(a, n);
+        }
+    }
+
+    // splits a range of chunk indices in half until single chunks remain
+    private static class ChunkRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;
+        private final transient IntConsumer action;
+
+        ChunkRange(int lo, int hi, IntConsumer action) {
+            this.lo = lo;
+            this.hi = hi;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                action.accept(lo);
+            } else {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new ChunkRange(lo, mid, action), new ChunkRange(mid, hi, action));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of strong components.
+     * @return the number of strong components
+     */
+    public int count() {
+        return count.get();
+    }
+
+    /**
+     * Are vertices {@code v} and {@code w} in the same strong component?
+     * @param  v one vertex
+     * @param  w the other vertex
+     * @return {@code true} if vertices {@code v} and {@code w} are in the same
+     *         strong component, and {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException unless {@code 0 <= w < V}
+     */
+    public boolean stronglyConnected(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        return id[v] == id[w];
+    }
+
+    /**
+     * Returns the component id of the strong component containing vertex {@code v}.
+     * @param  v the vertex
+     * @return the component id of the strong component containing vertex {@code v}
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    public int id(int v) {
+        validateVertex(v);
+        return id[v];
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = id.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Unit tests the {@code ParallelSCC} data type.
+     *
+     * @param args the command-line arguments
+     * @throws FileNotFoundException
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(args[0]));
+        Digraph G = new Digraph(in);
+        in.close();
+        ParallelSCC scc = new ParallelSCC(G);
+
+        // number of connected components
+        int m = scc.count();
+        System.out.println(m + " components");
+
+        // compute list of vertices in each strong component
+        List<List<Integer>> components = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            components.add(i, new ArrayList<>());
+        }
+        for (int v = 0; v < G.V(); v++) {
+            components.get(scc.id(v)).add(v);
+        }
+
+        // print results
+        for (int i = 0; i < m; i++) {
+            for (int v : components.get(i)) {
+                System.out.print(v + " ");
+            }
+            System.out.println();
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package edu.depauw.algorithms.graph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.Scanner;
+
+/**
+ * The {@code ReachabilityIndex} class answers the same {@code reachable}
+ * queries as {@link TransitiveClosure}, from an index that takes space linear
+ * in the size of the digraph rather than quadratic in its number of vertices.
+ * <p>
+ * The strong components are condensed with {@link DFSTarjanSCC} into a DAG,
+ * stored as a {@link CsrGraph}, and each component gets <em>d</em> randomized
+ * interval labels in the style of GRAIL (Yildirim, Chaoji, and Zaki). For each
+ * label, a depth-first traversal with random root order and random child
+ * rotation assigns every component <em>c</em> its postorder rank, and the
+ * label of <em>c</em> is the interval from the smallest rank among the
+ * components it reaches up to its own rank. If <em>c</em> reaches <em>e</em>
+ * then every label of <em>c</em> contains the matching label of <em>e</em>, so
+ * a single label that fails to contain the other proves that there is no path.
+ * Two more cuts are answered without search: the Tarjan ids are a reverse
+ * topological order, so there is no path to a component with a larger id, and
+ * the preorder and postorder numbers of one {@link DFSOrder} traversal of the
+ * DAG prove a path whenever the target is a descendant in its search tree.
+ * <p>
+ * The remaining queries fall back to a depth-first search of the DAG that
+ * never enters a component whose labels rule out the target. In practice, and
+ * especially when the answer is no, most queries end in &Theta;(<em>d</em>)
+ * time without searching.
+ * <p>
+ * The constructor takes &Theta;(<em>d</em>(<em>V</em> + <em>E</em>)) time
+ * and the index uses &Theta;(<em>dV</em> + <em>E</em>) space; see
+ * {@link #indexSize()} and {@link #buildTime()}. A query takes &Theta;(<em>d</em>)
+ * time when a cut applies and &Theta;(<em>d</em>(<em>V</em> + <em>E</em>)) in
+ * the worst case. The fallback search reuses its mark set and stack between
+ * queries, so an index must not be queried from more than one thread at a
+ * time.
+ */
+public class ReachabilityIndex {
+    private static final int DEFAULT_LABELS = 3;
+
+    private final int[] id;       // id[v] = id of strong component containing v
+    private final CsrGraph dag;   // condensation, with edges to smaller ids only
+    private final int d;          // number of interval labels
+    private final int[] low;      // low[c*d + i] = start of label i of component c
+    private final int[] rank;     // rank[c*d + i] = end of label i of component c
+    private final int[] pre;      // pre[c] = preorder number of c in the DFSOrder traversal
+    private final int[] post;     // post[c] = postorder number of c in the DFSOrder traversal
+    private final double buildTime;
+
+    private final BitsetMarks marked;  // components visited by the current fallback search
+    private final int[] stack;         // components waiting in the fallback search
+
+    /**
+     * Builds a reachability index with the default number of labels for the
+     * digraph {@code G}.
+     *
+     * @param G the digraph
+     */
+    public ReachabilityIndex(Graph G) {
+        this(G, DEFAULT_LABELS, new Random());
+    }
+
+    /**
+     * Builds a reachability index with {@code d} labels for the digraph
+     * {@code G}, drawing the traversal orders from {@code random}. More labels
+     * cost more space and query time but prove more negative answers.
+     *
+     * @param  G the digraph
+     * @param  d the number of interval labels per component
+     * @param  random the source of randomness for the label traversals
+     * @throws IllegalArgumentException if {@code d < 1}
+     */
+    public ReachabilityIndex(Graph G, int d, Random random) {
+        if (d < 1) throw new IllegalArgumentException("number of labels must be positive");
+        long start = System.nanoTime();
+        this.d = d;
+
+        DFSTarjanSCC scc = new DFSTarjanSCC(G);
+        int V = G.V();
+        int C = scc.count();
+        id = new int[V];
+        for (int v = 0; v < V; v++) {
+            id[v] = scc.id(v);
+        }
+        dag = condense(G, id, C);
+
+        DFSOrder order = new DFSOrder(dag);
+        pre = new int[C];
+        post = new int[C];
+        for (int c = 0; c < C; c++) {
+            pre[c] = order.pre(c);
+            post[c] = order.post(c);
+        }
+
+        low = new int[C * d];
+        rank = new int[C * d];
+        int[] ranks = new int[C];
+        for (int i = 0; i < d; i++) {
+            randomPostorder(random, ranks);
+            // edges lead to smaller ids, so children are labeled before parents
+            for (int c = 0; c < C; c++) {
+                int min = ranks[c];
+                for (int j = dag.start(c), end = dag.end(c); j < end; j++) {
+                    int e = dag.target(j);
+                    if (low[e * d + i] < min) min = low[e * d + i];
+                }
+                low[c * d + i] = min;
+                rank[c * d + i] = ranks[c];
+            }
+        }
+
+        marked = new BitsetMarks(C);
+        stack = new int[C];
+        buildTime = (System.nanoTime() - start) / 1e9;
+    }
+
+    // build the condensation of G, without parallel edges or self-loops
+    private static CsrGraph condense(Graph G, int[] id, int C) {
+        int V = G.V();
+        int[] first = new int[C + 1];
+        for (int v = 0; v < V; v++) {
+            first[id[v] + 1]++;
+        }
+        for (int c = 0; c < C; c++) {
+            first[c + 1] += first[c];
+        }
+        int[] next = Arrays.copyOf(first, C);
+        int[] members = new int[V];
+        for (int v = 0; v < V; v++) {
+            members[next[id[v]]++] = v;
+        }
+
+        CsrGraph.Builder builder = new CsrGraph.Builder(C);
+        int[] seen = new int[C];  // seen[e] = 1 + last component with an edge to e
+        for (int c = 0; c < C; c++) {
+            for (int i = first[c]; i < first[c + 1]; i++) {
+                PrimitiveIterator.OfInt it = G.adjInts(members[i]);
+                while (it.hasNext()) {
+                    int e = id[it.nextInt()];
+                    if (e != c && seen[e] != c + 1) {
+                        seen[e] = c + 1;
+                        builder.addEdge(c, e);
+                    }
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    // number the components in the postorder of a depth-first traversal of
+    // the DAG, with the roots and each list of children taken in random order
+    private void randomPostorder(Random random, int[] ranks) {
+        int C = dag.V();
+        int[] roots = new int[C];
+        for (int c = 0; c < C; c++) {
+            roots[c] = c;
+        }
+        for (int c = C - 1; c > 0; c--) {
+            int r = random.nextInt(c + 1);
+            int temp = roots[c];
+            roots[c] = roots[r];
+            roots[r] = temp;
+        }
+
+        BitsetMarks visited = new BitsetMarks(C);
+        int[] vertexStack = new int[C];
+        int[] rotation = new int[C];  // rotation[c] = position of the first child of c to visit
+        int[] scanned = new int[C];   // scanned[c] = number of children of c visited so far
+        int count = 0;
+        for (int root : roots) {
+            if (visited.get(root)) continue;
+            int top = 0;
+            vertexStack[0] = root;
+            visited.set(root);
+            rotation[root] = randomRotation(random, root);
+            while (top >= 0) {
+                int c = vertexStack[top];
+                int degree = dag.end(c) - dag.start(c);
+                if (scanned[c] < degree) {
+                    int e = dag.target(dag.start(c) + (rotation[c] + scanned[c]++) % degree);
+                    if (!visited.get(e)) {
+                        visited.set(e);
+                        rotation[e] = randomRotation(random, e);
+                        vertexStack[++top] = e;
+                    }
+                } else {
+                    ranks[c] = count++;
+                    scanned[c] = 0;
+                    top--;
+                }
+            }
+        }
+    }
+
+    private int randomRotation(Random random, int c) {
+        int degree = dag.end(c) - dag.start(c);
+        return degree <= 1 ? 0 : random.nextInt(degree);
+    }
+
+    // does every label of component c contain the matching label of component e?
+    private boolean contains(int c, int e) {
+        for (int i = 0, ci = c * d, ei = e * d; i < d; i++, ci++, ei++) {
+            if (low[ei] < low[ci] || rank[ei] > rank[ci]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Is there a directed path from vertex {@code v} to vertex {@code w} in the digraph?
+     * @param  v the source vertex
+     * @param  w the target vertex
+     * @return {@code true} if there is a directed path from {@code v} to {@code w},
+     *         {@code false} otherwise
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     * @throws IllegalArgumentException unless {@code 0 <= w < V}
+     */
+    public boolean reachable(int v, int w) {
+        validateVertex(v);
+        validateVertex(w);
+        int c = id[v];
+        int e = id[w];
+        if (c == e) return true;
+        if (e > c || !contains(c, e)) return false;
+        if (pre[c] <= pre[e] && post[e] <= post[c]) return true;
+        return search(c, e);
+    }
+
+    // depth-first search of the DAG from c for e, pruned by the labels and
+    // cut short by the search tree of the DFSOrder traversal
+    private boolean search(int c, int e) {
+        marked.clear();
+        marked.set(c);
+        int top = 0;
+        stack[0] = c;
+        while (top >= 0) {
+            int x = stack[top--];
+            for (int j = dag.start(x), end = dag.end(x); j < end; j++) {
+                int y = dag.target(j);
+                if (y == e) return true;
+                if (y > e && !marked.get(y) && contains(y, e)) {
+                    if (pre[y] <= pre[e] && post[e] <= post[y]) return true;
+                    marked.set(y);
+                    stack[++top] = y;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of strong components, which are the vertices of the
+     * condensed DAG that the labels are built on.
+     *
+     * @return the number of strong components
+     */
+    public int components() {
+        return dag.V();
+    }
+
+    /**
+     * Returns the approximate size of the index in bytes: the component ids,
+     * the condensed DAG, the labels, and the search scratch space.
+     *
+     * @return the size of the index in bytes
+     */
+    public long indexSize() {
+        long V = id.length;
+        long C = dag.V();
+        long ints = V                      // id
+                + (C + 1) + dag.E()        // dag offsets and targets
+                + 2 * C * d                // low and rank
+                + 2 * C                    // pre and post
+                + C;                       // stack
+        long bits = 64 * ((C + 63) / 64) + 32 * ((C + 63) / 64);  // marked
+        return 4 * ints + bits / 8;
+    }
+
+    /**
+     * Returns the time taken to build the index.
+     *
+     * @return the elapsed time of the constructor, in seconds
+     */
+    public double buildTime() {
+        return buildTime;
+    }
+
+    // throw an IllegalArgumentException unless {@code 0 <= v < V}
+    private void validateVertex(int v) {
+        int V = id.length;
+        if (v < 0 || v >= V)
+            throw new IllegalArgumentException("vertex " + v + " is not between 0 and " + (V-1));
+    }
+
+    /**
+     * Unit tests the {@code ReachabilityIndex} data type.
+     *
+     * @param args the command-line arguments
+     * @throws FileNotFoundException
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        Scanner in = new Scanner(new File(args[0]));
+        Digraph G = new Digraph(in);
+        in.close();
+
+        ReachabilityIndex index = new ReachabilityIndex(G);
+        System.out.printf("%d components, %d bytes, built in %.3f seconds%n",
+                index.components(), index.indexSize(), index.buildTime());
+
+        // print header
+        System.out.print("     ");
+        for (int v = 0; v < G.V(); v++)
+            System.out.printf("%3d", v);
+        System.out.println();
+        System.out.println("--------------------------------------------");
+
+        // print transitive closure
+        for (int v = 0; v < G.V(); v++) {
+            System.out.printf("%3d: ", v);
+            for (int w = 0; w < G.V(); w++) {
+                if (index.reachable(v, w)) System.out.printf("  T");
+                else                       System.out.printf("   ");
+            }
+            System.out.println();
+        }
+    }
+}
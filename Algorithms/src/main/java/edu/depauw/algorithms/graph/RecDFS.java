@@ -20,6 +20,8 @@
 
 package edu.depauw.algorithms.graph;
 
+import java.util.PrimitiveIterator;
+
 /**
  * The {@code RecDFS} class represents a data type for determining the vertices
  * connected to a given source vertex <em>s</em> in a graph. For
@@ -62,12 +64,14 @@ public class RecDFS extends DFS {
      */
     public void dfs(Graph G, int v, DFSClient strategy) {
         strategy.visitPreorder(G, v);
-        marked[v] = true;
-        for (int w : G.adj(v)) {
+        marked.set(v);
+        PrimitiveIterator.OfInt it = G.adjInts(v);
+        while (it.hasNext()) {
+            int w = it.nextInt();
             if (halt)
                 return;
             strategy.processEdge(G, v, w);
-            if (!marked[w]) {
+            if (!marked.get(w)) {
                 dfs(G, w, strategy);
             }
         }
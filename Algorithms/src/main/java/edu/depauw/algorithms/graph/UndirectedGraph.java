@@ -10,6 +10,7 @@ import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
+import java.util.function.IntConsumer;
 
 import edu.depauw.algorithms.ArrayList;
 import edu.depauw.algorithms.Bag;
@@ -181,6 +182,21 @@ public class UndirectedGraph implements Graph {
         return adj.get(v);
     }
 
+    /**
+     * Performs the given action on each vertex adjacent to vertex {@code v}.
+     * This walks the adjacency bag directly, without the iterator adapter of
+     * {@link #adjInts(int)}.
+     *
+     * @param  v the vertex
+     * @param  action the action to perform on each neighbor
+     * @throws IllegalArgumentException unless {@code 0 <= v < V}
+     */
+    @Override
+    public void forEachNeighbor(int v, IntConsumer action) {
+        validateVertex(v);
+        adj.get(v).forEach(w -> action.accept(w));
+    }
+
     /**
      * Returns the degree of vertex {@code v}.
      *
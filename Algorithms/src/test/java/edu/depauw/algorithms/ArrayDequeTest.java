@@ -1,7 +1,13 @@
 package edu.depauw.algorithms;
 
+import java.util.AbstractQueue;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.Queue;
+import java.util.Random;
 
 import com.google.common.collect.testing.QueueTestSuiteBuilder;
 import com.google.common.collect.testing.SampleElements;
@@ -9,6 +15,9 @@ import com.google.common.collect.testing.TestQueueGenerator;
 import com.google.common.collect.testing.features.CollectionFeature;
 import com.google.common.collect.testing.features.CollectionSize;
 
+import edu.depauw.algorithms.graph.BitsetMarks;
+import edu.depauw.algorithms.graph.CsrGraph;
+
 import junit.framework.Test;
 import junit.framework.TestCase;
 import junit.framework.TestSuite;
@@ -21,6 +30,7 @@ public class ArrayDequeTest {
     private Test allTests() {
         TestSuite suite = new TestSuite("edu.depauw.algorithms.ArrayDequeTest");
         suite.addTest(testGeneratedTests());
+        suite.addTest(testBoundedGeneratedTests());
         suite.addTest(testDeque());
         return suite;
     }
@@ -39,6 +49,29 @@ public class ArrayDequeTest {
             assertEquals(99, deque.getLast().intValue());
         }
 
+        public void testGrowWhileWrapped() {
+            Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>(4);
+            for (int i = 0; i < 4; i++) {
+                deque.addLast(i);
+            }
+            // move the head to the middle of the array, so that growing must unwrap
+            for (int i = 4; i < 6; i++) {
+                deque.removeFirst();
+                deque.addLast(i);
+            }
+            for (int i = 6; i < 100; i++) {
+                deque.addLast(i);
+                deque.addFirst(-i);
+            }
+            for (int i = 99; i >= 6; i--) {
+                assertEquals(-i, deque.removeFirst().intValue());
+            }
+            for (int i = 2; i < 100; i++) {
+                assertEquals(i, deque.removeFirst().intValue());
+            }
+            assertTrue(deque.isEmpty());
+        }
+
         public void testDescendingIterator() {
             Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>();
             for (int i = 0; i < 100; i++) {
@@ -53,6 +86,140 @@ public class ArrayDequeTest {
             }
             assertTrue(deque.isEmpty());
         }
+
+        public void testDeleteFromEitherSide() {
+            // every deletion position, with the elements wrapped at every offset
+            for (int offset = 0; offset < 8; offset++) {
+                for (int n = 1; n <= 8; n++) {
+                    for (int k = 0; k < n; k++) {
+                        Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>(8);
+                        for (int i = 0; i < offset; i++) {
+                            deque.addLast(-1);
+                            deque.removeFirst();
+                        }
+                        for (int i = 0; i < n; i++) {
+                            deque.addLast(i);
+                        }
+                        assertTrue(deque.removeFirstOccurrence(k));
+                        var it = deque.iterator();
+                        for (int i = 0; i < n; i++) {
+                            if (i != k) {
+                                assertEquals(i, it.next().intValue());
+                            }
+                        }
+                        assertFalse(it.hasNext());
+                    }
+                }
+            }
+        }
+
+        public void testIteratorRemoveNearTail() {
+            Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>();
+            for (int i = 0; i < 100; i++) {
+                deque.add(i);
+            }
+            var it = deque.iterator();
+            int expected = 0;
+            while (it.hasNext()) {
+                int i = it.next();
+                assertEquals(expected++, i);
+                if (i % 3 != 0) {
+                    it.remove();
+                }
+            }
+            assertEquals(34, deque.size());
+            it = deque.descendingIterator();
+            expected = 99;
+            while (it.hasNext()) {
+                int i = it.next();
+                assertEquals(expected, i);
+                expected -= 3;
+                if (i % 2 == 0) {
+                    it.remove();
+                }
+            }
+            assertEquals("[3, 9, 15, 21, 27, 33, 39, 45, 51, 57, 63, 69, 75, 81, 87, 93, 99]",
+                    deque.toString());
+        }
+
+        public void testRemoveIfWrapped() {
+            Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>(16);
+            for (int i = 0; i < 10; i++) {
+                deque.addLast(i);
+                deque.addFirst(-i);
+            }
+            assertTrue(deque.removeIf(i -> i % 2 != 0));
+            assertEquals("[-8, -6, -4, -2, 0, 0, 2, 4, 6, 8]", deque.toString());
+            assertFalse(deque.removeIf(i -> i > 100));
+            assertTrue(deque.retainAll(List.of(0, 4, -4)));
+            assertEquals("[-4, 0, 0, 4]", deque.toString());
+            assertTrue(deque.removeAll(List.of(0)));
+            assertEquals("[-4, 4]", deque.toString());
+            deque.addLast(5);
+            assertEquals(-4, deque.removeFirst().intValue());
+            assertEquals(5, deque.removeLast().intValue());
+        }
+
+        public void testRemoveIfThrows() {
+            Deque<Integer> deque = new edu.depauw.algorithms.ArrayDeque<>();
+            for (int i = 0; i < 10; i++) {
+                deque.add(i);
+            }
+            try {
+                deque.removeIf(i -> {
+                    if (i == 5) {
+                        throw new IllegalStateException();
+                    }
+                    return i % 2 == 0;
+                });
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals("[1, 3, 5, 6, 7, 8, 9]", deque.toString());
+            deque.addLast(10);
+            assertEquals(10, deque.getLast().intValue());
+        }
+
+        public void testBoundedWindow() {
+            var window = edu.depauw.algorithms.ArrayDeque.<Integer>bounded(5);
+            for (int i = 0; i < 100; i++) {
+                window.addLast(i);
+                assertEquals(Math.min(i + 1, 5), window.size());
+                assertEquals(i, window.getLast().intValue());
+                assertEquals(Math.max(i - 4, 0), window.getFirst().intValue());
+            }
+            for (int i = 0; i < 5; i++) {
+                assertEquals(95 + i, window.get(i).intValue());
+            }
+            try {
+                window.get(5);
+                fail();
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+            window.addFirst(-1);
+            assertEquals("[-1, 95, 96, 97, 98]", window.toString());
+        }
+
+        public void testDrainToWrapped() {
+            var deque = edu.depauw.algorithms.ArrayDeque.<Integer>bounded(8);
+            for (int i = 0; i < 13; i++) {
+                deque.addLast(i);
+            }
+            Integer[] a = new Integer[6];
+            assertEquals(6, deque.drainTo(a));
+            assertEquals("[5, 6, 7, 8, 9, 10]", java.util.Arrays.toString(a));
+            assertEquals("[11, 12]", deque.toString());
+            assertEquals(2, deque.drainTo(a));
+            assertEquals(11, a[0].intValue());
+            assertEquals(12, a[1].intValue());
+            assertTrue(deque.isEmpty());
+            for (int i = 0; i < 8; i++) {
+                deque.addLast(i);
+            }
+            assertEquals("[0, 1, 2, 3, 4, 5, 6, 7]", deque.toString());
+        }
     }
 
     private Test testGeneratedTests() {
@@ -62,6 +229,13 @@ public class ArrayDequeTest {
                 .createTestSuite();
     }
 
+    private Test testBoundedGeneratedTests() {
+        return QueueTestSuiteBuilder.using(new BoundedArrayDequeGenerator()).named("generated bounded ArrayDeque tests")
+                .withFeatures(CollectionSize.ANY, CollectionFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.GENERAL_PURPOSE)
+                .createTestSuite();
+    }
+
     private static class ArrayDequeGenerator implements TestQueueGenerator<Integer> {
         @Override
         public SampleElements<Integer> samples() {
@@ -87,4 +261,151 @@ public class ArrayDequeTest {
             return deque;
         }
     }
-}
\ No newline at end of file
+
+    private static class BoundedArrayDequeGenerator extends ArrayDequeGenerator {
+        @Override
+        public Deque<Integer> create(Object... elements) {
+            Deque<Integer> deque = edu.depauw.algorithms.ArrayDeque.bounded(10);
+            for (var e : elements) {
+                deque.add((Integer) e);
+            }
+            return deque;
+        }
+    }
+
+    /**
+     * Compares this ArrayDeque, with its power-of-two capacity and masked
+     * indexing, against {@link ModuloArrayDeque}, which keeps the indexing by
+     * remainder that ArrayDeque had before. Each is timed on removeFirst and
+     * addLast cycles through a queue of 1000 elements, and as the queue of a
+     * breadth-first search, written as BFS.bfs was when it used ArrayDeque,
+     * over a random CSR graph. The rounds repeat, so that the later ones show
+     * the times after warm-up.
+     *
+     * @param args optionally, the number of cycles, vertices, and edges
+     */
+    public static void main(String[] args) {
+        int cycles = (args.length > 0) ? Integer.parseInt(args[0]) : 50_000_000;
+        int V = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000_000;
+        int E = (args.length > 2) ? Integer.parseInt(args[2]) : 5_000_000;
+
+        var random = new Random(21);
+        var builder = new CsrGraph.Builder(V, true);
+        for (int i = 0; i < E; i++) {
+            builder.addEdge(random.nextInt(V), random.nextInt(V));
+        }
+        CsrGraph G = builder.build();
+
+        for (int round = 0; round < 5; round++) {
+            long masked = cycle(new edu.depauw.algorithms.ArrayDeque<>(), cycles);
+            long modulo = cycle(new ModuloArrayDeque<>(), cycles);
+            long maskedBfs = bfs(G, new edu.depauw.algorithms.ArrayDeque<>());
+            long moduloBfs = bfs(G, new ModuloArrayDeque<>());
+            System.out.printf("%d cycles: masked %d ms, modulo %d ms; BFS of %d vertices, %d edges: masked %d ms, modulo %d ms%n",
+                    cycles, masked, modulo, V, E, maskedBfs, moduloBfs);
+        }
+    }
+
+    // time removeFirst and addLast cycles through a queue of 1000 elements
+    private static long cycle(Queue<Integer> queue, int cycles) {
+        for (int i = 0; i < 1000; i++) {
+            queue.add(i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < cycles; i++) {
+            queue.add(queue.remove());
+        }
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    // time a breadth-first search from vertex 0, as BFS.bfs did it
+    private static long bfs(CsrGraph G, Queue<Integer> q) {
+        long start = System.nanoTime();
+        BitsetMarks marked = new BitsetMarks(G.V());
+        marked.set(0);
+        q.add(0);
+        int count = 1;
+        while (!q.isEmpty()) {
+            int v = q.remove();
+            PrimitiveIterator.OfInt it = G.adjInts(v);
+            while (it.hasNext()) {
+                int w = it.nextInt();
+                if (!marked.get(w)) {
+                    marked.set(w);
+                    count++;
+                    q.add(w);
+                }
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        if (count == 0) {
+            throw new AssertionError();
+        }
+        return elapsed;
+    }
+
+    /**
+     * The first-in, first-out part of ArrayDeque as it was before its capacity
+     * became a power of two: each index step takes a remainder, and the array
+     * grows by half. It is kept here only as the baseline for
+     * {@link ArrayDequeTest#main(String[])}.
+     */
+    private static final class ModuloArrayDeque<E> extends AbstractQueue<E> {
+        private Object[] data = new Object[1];
+        private int head;
+        private int tail;
+        private int size;
+
+        @Override
+        public boolean offer(E e) {
+            if (size == data.length) {
+                grow(1);
+            }
+            data[tail] = e;
+            tail = (tail + 1) % data.length;
+            size++;
+            return true;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E poll() {
+            if (size == 0) {
+                return null;
+            }
+            E e = (E) data[head];
+            data[head] = null;
+            head = (head + 1) % data.length;
+            size--;
+            return e;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E peek() {
+            return (E) data[head];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            throw new UnsupportedOperationException();
+        }
+
+        private void grow(int needed) {
+            final int oldCapacity = data.length;
+            final int newCapacity = Math.max(oldCapacity + needed, (int) (oldCapacity * 1.5));
+            data = Arrays.copyOf(data, newCapacity);
+            if (tail <= head && size != 0) {
+                int shift = newCapacity - oldCapacity;
+                System.arraycopy(data, head, data, head + shift, oldCapacity - head);
+                Arrays.fill(data, head, head + shift, null);
+                head += shift;
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package edu.depauw.algorithms;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedMap;
+
+import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSortedMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class BTreeMapTest {
+    public static Test suite() {
+        return new BTreeMapTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.BTreeMapTest");
+        suite.addTest(testGeneratedTests("generated BTreeMap tests", 64));
+        // with the smallest fanout, the sample maps have several levels of nodes
+        suite.addTest(testGeneratedTests("generated narrow BTreeMap tests", 4));
+        suite.addTest(testBTreeMap());
+        return suite;
+    }
+
+    private Test testBTreeMap() {
+        return new TestSuite(BTreeMapTests.class);
+    }
+
+    private Test testGeneratedTests(String name, int fanout) {
+        return NavigableMapTestSuiteBuilder.using(new BTreeMapGenerator(fanout)).named(name)
+                .withFeatures(MapFeature.GENERAL_PURPOSE, MapFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE, CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class BTreeMapGenerator extends TestStringSortedMapGenerator {
+        private final int fanout;
+
+        BTreeMapGenerator(int fanout) {
+            this.fanout = fanout;
+        }
+
+        @Override
+        protected SortedMap<String, String> create(Entry<String, String>[] entries) {
+            SortedMap<String, String> map = new BTreeMap<>(Comparator.naturalOrder(), fanout);
+            for (var entry : entries) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return map;
+        }
+    }
+
+    public static class BTreeMapTests extends TestCase {
+        public void testRandomNarrow() {
+            checkRandom(4, 1000, 1);
+        }
+
+        public void testRandomOddFanout() {
+            checkRandom(5, 1000, 2);
+        }
+
+        public void testRandomWide() {
+            // enough keys for the root to split, so that internal nodes are
+            // split, borrowed between, and merged
+            checkRandom(64, 10_000, 3);
+        }
+
+        // grow the map with mostly puts, shrink it with mostly removes, then
+        // remove the rest in random order, checking against java.util.TreeMap
+        private void checkRandom(int fanout, int keys, long seed) {
+            var random = new Random(seed);
+            var map = new BTreeMap<Integer, Integer>(Comparator.naturalOrder(), fanout);
+            var expected = new java.util.TreeMap<Integer, Integer>();
+            int ops = 30_000;
+            for (int i = 0; i < 2 * ops; i++) {
+                int key = random.nextInt(keys);
+                boolean put = random.nextInt(10) < ((i < ops) ? 8 : 2);
+                if (put) {
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                } else {
+                    assertEquals(expected.remove(key), map.remove(key));
+                }
+                assertEquals(expected.floorEntry(key), map.floorEntry(key));
+                assertEquals(expected.higherEntry(key), map.higherEntry(key));
+                if (i % 97 == 0) {
+                    check(expected, map);
+                }
+            }
+            check(expected, map);
+
+            var rest = new ArrayList<>(expected.keySet());
+            Collections.shuffle(rest, random);
+            for (int i = 0; i < rest.size(); i++) {
+                assertEquals(expected.remove(rest.get(i)), map.remove(rest.get(i)));
+                if (i % 31 == 0) {
+                    check(expected, map);
+                }
+            }
+            check(expected, map);
+            assertTrue(map.isEmpty());
+        }
+
+        private void check(java.util.TreeMap<Integer, Integer> expected, BTreeMap<Integer, Integer> map) {
+            map.checkInvariants();
+            assertEquals(expected.size(), map.size());
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+            assertEquals(new ArrayList<>(expected.descendingMap().entrySet()),
+                    new ArrayList<>(map.descendingMap().entrySet()));
+        }
+
+        public void testEntryAfterIteratorRemove() {
+            var map = new BTreeMap<Integer, String>(Comparator.naturalOrder(), 4);
+            for (int i = 0; i < 5; i++) {
+                map.put(i, "v" + i);
+            }
+            var it = map.entrySet().iterator();
+            var entry = it.next();
+            it.remove();
+            assertEquals(0, entry.getKey().intValue());
+            assertEquals("v0", entry.getValue());
+            assertEquals(1, it.next().getKey().intValue());
+            assertFalse(map.containsKey(0));
+        }
+
+        public void testHeldEntrySetValue() {
+            var map = new BTreeMap<Integer, String>(Comparator.naturalOrder(), 4);
+            for (int i = 0; i < 5; i++) {
+                map.put(i, "v" + i);
+            }
+            var it = map.entrySet().iterator();
+            it.next();
+            var entry = it.next();
+            // shifts key 1 out of the slot where the entry was found
+            map.put(-1, "w");
+            assertEquals("v1", entry.setValue("x"));
+            assertEquals("x", entry.getValue());
+            assertEquals("x", map.get(1));
+            assertEquals("v0", map.get(0));
+            assertEquals("w", map.get(-1));
+            map.checkInvariants();
+        }
+
+        public void testOutsideRemoveDuringIteration() {
+            var map = new BTreeMap<Integer, String>(Comparator.naturalOrder(), 4);
+            for (int i = 0; i < 8; i++) {
+                map.put(i, "v" + i);
+            }
+            var it = map.entrySet().iterator();
+            assertEquals(0, it.next().getKey().intValue());
+            // shifts the rest of the leaf, and merges it with its neighbor
+            map.remove(2);
+            map.remove(3);
+            var keys = new ArrayList<Integer>();
+            while (it.hasNext()) {
+                var entry = it.next();
+                keys.add(entry.getKey());
+                assertEquals("v" + entry.getKey(), entry.getValue());
+            }
+            assertEquals(java.util.List.of(1, 4, 5, 6, 7), keys);
+        }
+
+        // while walking in each direction, add and remove other keys: the walk
+        // returns no null keys, in order, including every key that was never
+        // touched, with its value
+        public void testOutsideChangesDuringIteration() {
+            var random = new Random(18);
+            for (int trial = 0; trial < 200; trial++) {
+                boolean descending = trial % 2 == 1;
+                var map = new BTreeMap<Integer, Integer>(Comparator.naturalOrder(), 4 + trial % 3);
+                for (int i = 0; i < 100; i++) {
+                    map.put(random.nextInt(200), i);
+                }
+                var untouched = new HashSet<>(map.keySet());
+                var view = descending ? map.descendingMap() : map;
+                var it = view.entrySet().iterator();
+                var returned = new HashSet<Integer>();
+                Integer last = null;
+                while (it.hasNext()) {
+                    var entry = it.next();
+                    Integer key = entry.getKey();
+                    assertNotNull(key);
+                    if (untouched.contains(key)) {
+                        assertEquals(map.get(key), entry.getValue());
+                    }
+                    assertTrue(last == null || (descending ? key < last : key > last));
+                    returned.add(key);
+                    last = key;
+                    for (int j = random.nextInt(4); j > 0; j--) {
+                        int other = random.nextInt(200);
+                        untouched.remove(other);
+                        if (random.nextBoolean()) {
+                            map.remove(other);
+                        } else {
+                            map.put(other, -other);
+                        }
+                    }
+                }
+                assertTrue(returned.containsAll(untouched));
+                map.checkInvariants();
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package edu.depauw.algorithms;
+
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSortedMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ConcurrentSkipListMapTest {
+    public static Test suite() {
+        return new ConcurrentSkipListMapTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.ConcurrentSkipListMapTest");
+        suite.addTest(testGeneratedTests());
+        suite.addTestSuite(StressTest.class);
+        return suite;
+    }
+
+    private Test testGeneratedTests() {
+        return NavigableMapTestSuiteBuilder.using(new ConcurrentSkipListMapGenerator())
+                .named("generated ConcurrentSkipListMap tests")
+                .withFeatures(MapFeature.GENERAL_PURPOSE, CollectionFeature.SUPPORTS_ITERATOR_REMOVE,
+                        CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class ConcurrentSkipListMapGenerator extends TestStringSortedMapGenerator {
+        @Override
+        protected SortedMap<String, String> create(Entry<String, String>[] entries) {
+            SortedMap<String, String> map = new ConcurrentSkipListMap<>();
+            for (var entry : entries) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return map;
+        }
+    }
+
+    /**
+     * Runs several threads against one map at once. Each thread owns the keys
+     * congruent to its index, so at the end every key must hold what its owner
+     * last wrote there, while every thread also reads, scans, and polls the
+     * whole map.
+     */
+    public static class StressTest extends TestCase {
+        private static final int THREADS = 8;
+        private static final int KEYS = 1 << 12;
+        private static final int OPS = 200_000;
+
+        public void testOwnedKeys() throws InterruptedException {
+            var map = new ConcurrentSkipListMap<Integer, Integer>();
+            var expected = new Integer[KEYS];
+            var failure = new AtomicReference<Throwable>();
+            var done = new CountDownLatch(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int self = t;
+                new Thread(() -> {
+                    try {
+                        var random = ThreadLocalRandom.current();
+                        for (int i = 0; i < OPS; i++) {
+                            int key = random.nextInt(KEYS / THREADS) * THREADS + self;
+                            switch (random.nextInt(8)) {
+                            case 0, 1 -> {
+                                assertEquals(expected[key], map.put(key, i));
+                                expected[key] = i;
+                            }
+                            case 2 -> {
+                                assertEquals(expected[key], map.remove(key));
+                                expected[key] = null;
+                            }
+                            case 3 -> {
+                                var old = map.putIfAbsent(key, i);
+                                assertEquals(expected[key], old);
+                                if (old == null) {
+                                    expected[key] = i;
+                                }
+                            }
+                            case 4 -> assertEquals(expected[key], map.get(key));
+                            case 5 -> {
+                                // keys of any thread appear in order
+                                Integer last = null;
+                                for (var k : map.subMap(key, key + 64).keySet()) {
+                                    assertTrue(last == null || last < k);
+                                    last = k;
+                                }
+                            }
+                            case 6 -> {
+                                var lower = map.lowerKey(key);
+                                assertTrue(lower == null || lower < key);
+                                var ceiling = map.ceilingKey(key);
+                                assertTrue(ceiling == null || ceiling >= key);
+                            }
+                            default -> {
+                                var old = expected[key];
+                                if (old != null) {
+                                    assertTrue(map.replace(key, old, i));
+                                    expected[key] = i;
+                                }
+                            }
+                            }
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+
+            int size = 0;
+            for (int key = 0; key < KEYS; key++) {
+                assertEquals(expected[key], map.get(key));
+                if (expected[key] != null) {
+                    size++;
+                }
+            }
+            assertEquals(size, map.size());
+            assertEquals(size, map.keySet().stream().count());
+        }
+
+        public void testPollsAreExclusive() throws InterruptedException {
+            ConcurrentMap<Integer, Integer> seen = new java.util.concurrent.ConcurrentHashMap<>();
+            var map = new ConcurrentSkipListMap<Integer, Integer>();
+            for (int key = 0; key < 100_000; key++) {
+                map.put(key, key);
+            }
+            var failure = new AtomicReference<Throwable>();
+            var done = new CountDownLatch(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                boolean first = t % 2 == 0;
+                new Thread(() -> {
+                    try {
+                        Entry<Integer, Integer> e;
+                        while ((e = first ? map.pollFirstEntry() : map.pollLastEntry()) != null) {
+                            assertNull(seen.putIfAbsent(e.getKey(), e.getValue()));
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        done.countDown();
+                    }
+                }).start();
+            }
+            done.await();
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+            assertEquals(100_000, seen.size());
+            assertTrue(map.isEmpty());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package edu.depauw.algorithms;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+import com.google.common.collect.testing.Helpers;
+import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestSortedMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class DoubleTreeMapTest {
+    public static Test suite() {
+        return new DoubleTreeMapTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.DoubleTreeMapTest");
+        suite.addTest(testGeneratedTests());
+        return suite;
+    }
+
+    private Test testGeneratedTests() {
+        return NavigableMapTestSuiteBuilder.using(new DoubleTreeMapGenerator()).named("generated DoubleTreeMap tests")
+                .withFeatures(MapFeature.GENERAL_PURPOSE, MapFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE, CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class DoubleTreeMapGenerator implements TestSortedMapGenerator<Double, String> {
+        @Override
+        public SampleElements<Entry<Double, String>> samples() {
+            return new SampleElements<>(Helpers.mapEntry(-2.0, "a"), Helpers.mapEntry(-0.0, "b"),
+                    Helpers.mapEntry(3.5, "c"), Helpers.mapEntry(0.0, "d"),
+                    Helpers.mapEntry(Double.MAX_VALUE, "e"));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public SortedMap<Double, String> create(Object... entries) {
+            DoubleTreeMap<String> map = new DoubleTreeMap<>();
+            for (Object o : entries) {
+                var entry = (Entry<Double, String>) o;
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return map.asNavigableMap();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<Double, String>[] createArray(int length) {
+            return new Entry[length];
+        }
+
+        @Override
+        public Iterable<Entry<Double, String>> order(List<Entry<Double, String>> insertionOrder) {
+            return Helpers.orderEntriesByKey(insertionOrder);
+        }
+
+        @Override
+        public Double[] createKeyArray(int length) {
+            return new Double[length];
+        }
+
+        @Override
+        public String[] createValueArray(int length) {
+            return new String[length];
+        }
+
+        @Override
+        public Entry<Double, String> belowSamplesLesser() {
+            return Map.entry(Double.NEGATIVE_INFINITY, "!");
+        }
+
+        @Override
+        public Entry<Double, String> belowSamplesGreater() {
+            return Map.entry(-Double.MAX_VALUE, "!!");
+        }
+
+        @Override
+        public Entry<Double, String> aboveSamplesLesser() {
+            return Map.entry(Double.POSITIVE_INFINITY, "~");
+        }
+
+        @Override
+        public Entry<Double, String> aboveSamplesGreater() {
+            return Map.entry(Double.NaN, "~~");
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.depauw.algorithms;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import com.google.common.collect.testing.QueueTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestQueueGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class IntArrayDequeTest {
+    public static Test suite() {
+        return new IntArrayDequeTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.IntArrayDequeTest");
+        suite.addTest(testGeneratedTests());
+        suite.addTest(testDeque());
+        return suite;
+    }
+
+    private Test testDeque() {
+        return new TestSuite(DequeTests.class);
+    }
+
+    public static class DequeTests extends TestCase {
+        public void testStack() {
+            IntArrayDeque stack = new IntArrayDeque();
+            for (int i = 0; i < 100; i++) {
+                stack.push(i);
+            }
+            assertEquals(99, stack.peek());
+            for (int i = 99; i >= 0; i--) {
+                assertEquals(i, stack.pop());
+            }
+            assertTrue(stack.isEmpty());
+            try {
+                stack.peek();
+                fail();
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+        }
+
+        public void testGrowWhileWrapped() {
+            IntArrayDeque deque = new IntArrayDeque(4);
+            for (int i = 0; i < 4; i++) {
+                deque.addLast(i);
+            }
+            // move the head to the middle of the array, so that growing must unwrap
+            for (int i = 4; i < 6; i++) {
+                deque.removeFirst();
+                deque.addLast(i);
+            }
+            for (int i = 6; i < 100; i++) {
+                deque.addLast(i);
+                deque.addFirst(-i);
+            }
+            for (int i = 99; i >= 6; i--) {
+                assertEquals(-i, deque.removeFirst());
+            }
+            for (int i = 2; i < 100; i++) {
+                assertEquals(i, deque.removeFirst());
+            }
+            assertTrue(deque.isEmpty());
+        }
+
+        public void testIterators() {
+            IntArrayDeque deque = new IntArrayDeque(8);
+            for (int i = 0; i < 6; i++) {
+                deque.addLast(i);
+            }
+            for (int i = 1; i <= 4; i++) {
+                deque.addFirst(-i);
+            }
+            var it = deque.iterator();
+            for (int i = -4; i < 6; i++) {
+                assertEquals(i, it.nextInt());
+            }
+            assertFalse(it.hasNext());
+            int i = 6;
+            for (int x : deque.reversed()) {
+                assertEquals(--i, x);
+            }
+            assertEquals(-4, i);
+            assertEquals("[-4, -3, -2, -1, 0, 1, 2, 3, 4, 5]", deque.toString());
+        }
+    }
+
+    private Test testGeneratedTests() {
+        return QueueTestSuiteBuilder.using(new IntArrayDequeGenerator()).named("generated IntArrayDeque tests")
+                .withFeatures(CollectionSize.ANY, CollectionFeature.GENERAL_PURPOSE)
+                .createTestSuite();
+    }
+
+    private static class IntArrayDequeGenerator implements TestQueueGenerator<Integer> {
+        @Override
+        public SampleElements<Integer> samples() {
+            return new SampleElements.Ints();
+        }
+
+        @Override
+        public Integer[] createArray(int length) {
+            return new Integer[length];
+        }
+
+        @Override
+        public Iterable<Integer> order(List<Integer> insertionOrder) {
+            return insertionOrder;
+        }
+
+        @Override
+        public Deque<Integer> create(Object... elements) {
+            Deque<Integer> deque = new IntArrayDeque().asDeque();
+            for (var e : elements) {
+                deque.add((Integer) e);
+            }
+            return deque;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package edu.depauw.algorithms;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+import com.google.common.collect.testing.Helpers;
+import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
+import com.google.common.collect.testing.SampleElements;
+import com.google.common.collect.testing.TestSortedMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+public class LongTreeMapTest {
+    public static Test suite() {
+        return new LongTreeMapTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.LongTreeMapTest");
+        suite.addTest(testGeneratedTests());
+        return suite;
+    }
+
+    private Test testGeneratedTests() {
+        return NavigableMapTestSuiteBuilder.using(new LongTreeMapGenerator()).named("generated LongTreeMap tests")
+                .withFeatures(MapFeature.GENERAL_PURPOSE, MapFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE, CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class LongTreeMapGenerator implements TestSortedMapGenerator<Long, String> {
+        @Override
+        public SampleElements<Entry<Long, String>> samples() {
+            return new SampleElements<>(Helpers.mapEntry(-2L, "a"), Helpers.mapEntry(0L, "b"),
+                    Helpers.mapEntry(3L, "c"), Helpers.mapEntry(Long.MAX_VALUE - 2, "d"),
+                    Helpers.mapEntry(Long.MIN_VALUE + 3, "e"));
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public SortedMap<Long, String> create(Object... entries) {
+            LongTreeMap<String> map = new LongTreeMap<>();
+            for (Object o : entries) {
+                var entry = (Entry<Long, String>) o;
+                map.put(entry.getKey(), entry.getValue());
+            }
+            return map.asNavigableMap();
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Entry<Long, String>[] createArray(int length) {
+            return new Entry[length];
+        }
+
+        @Override
+        public Iterable<Entry<Long, String>> order(List<Entry<Long, String>> insertionOrder) {
+            return Helpers.orderEntriesByKey(insertionOrder);
+        }
+
+        @Override
+        public Long[] createKeyArray(int length) {
+            return new Long[length];
+        }
+
+        @Override
+        public String[] createValueArray(int length) {
+            return new String[length];
+        }
+
+        @Override
+        public Entry<Long, String> belowSamplesLesser() {
+            return Map.entry(Long.MIN_VALUE, "!");
+        }
+
+        @Override
+        public Entry<Long, String> belowSamplesGreater() {
+            return Map.entry(Long.MIN_VALUE + 1, "!!");
+        }
+
+        @Override
+        public Entry<Long, String> aboveSamplesLesser() {
+            return Map.entry(Long.MAX_VALUE - 1, "~");
+        }
+
+        @Override
+        public Entry<Long, String> aboveSamplesGreater() {
+            return Map.entry(Long.MAX_VALUE, "~~");
+        }
+    }
+}
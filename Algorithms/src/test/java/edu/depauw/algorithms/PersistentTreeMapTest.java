@@ -0,0 +1,134 @@
+package edu.depauw.algorithms;
+
+import java.util.ArrayList;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedMap;
+
+import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
+import com.google.common.collect.testing.TestStringSortedMapGenerator;
+import com.google.common.collect.testing.features.CollectionFeature;
+import com.google.common.collect.testing.features.CollectionSize;
+import com.google.common.collect.testing.features.MapFeature;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class PersistentTreeMapTest {
+    public static Test suite() {
+        return new PersistentTreeMapTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.PersistentTreeMapTest");
+        suite.addTest(testGeneratedTests());
+        suite.addTest(new TestSuite(PersistenceTests.class));
+        return suite;
+    }
+
+    private Test testGeneratedTests() {
+        return NavigableMapTestSuiteBuilder.using(new PersistentTreeMapGenerator())
+                .named("generated PersistentTreeMap tests")
+                .withFeatures(MapFeature.ALLOWS_NULL_VALUES, CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class PersistentTreeMapGenerator extends TestStringSortedMapGenerator {
+        @Override
+        protected SortedMap<String, String> create(Entry<String, String>[] entries) {
+            var map = new PersistentTreeMap<String, String>();
+            for (var entry : entries) {
+                map = map.plus(entry.getKey(), entry.getValue());
+            }
+            return map;
+        }
+    }
+
+    public static class PersistenceTests extends TestCase {
+        // every version made by plus and minus keeps its contents
+        public void testEarlierVersionsUnchanged() {
+            var random = new Random(20);
+            var versions = new ArrayList<PersistentTreeMap<Integer, Integer>>();
+            var contents = new ArrayList<java.util.TreeMap<Integer, Integer>>();
+            var map = new PersistentTreeMap<Integer, Integer>();
+            var expected = new java.util.TreeMap<Integer, Integer>();
+            for (int i = 0; i < 2000; i++) {
+                versions.add(map);
+                contents.add(new java.util.TreeMap<>(expected));
+                int key = random.nextInt(500);
+                // branch off an older version now and then
+                if (random.nextInt(20) == 0) {
+                    int j = random.nextInt(versions.size());
+                    map = versions.get(j);
+                    expected = new java.util.TreeMap<>(contents.get(j));
+                }
+                if (random.nextInt(3) == 0) {
+                    var next = map.minus(key);
+                    if (!expected.containsKey(key)) {
+                        assertSame(map, next);
+                    }
+                    map = next;
+                    expected.remove(key);
+                } else {
+                    map = map.plus(key, i);
+                    expected.put(key, i);
+                }
+            }
+            for (int i = 0; i < versions.size(); i++) {
+                assertEquals(new ArrayList<>(contents.get(i).entrySet()),
+                        new ArrayList<>(versions.get(i).entrySet()));
+            }
+        }
+
+        // each version shares all but O(log n) entries with the one before
+        public void testUpdatesCopyLogarithmicEntries() {
+            var random = new Random(200);
+            var map = new PersistentTreeMap<Integer, Integer>();
+            for (int i = 0; i < 1 << 14; i++) {
+                map = map.plus(random.nextInt(1 << 16), i);
+            }
+            int bound = 6 * (32 - Integer.numberOfLeadingZeros(map.size()));
+            for (int trial = 0; trial < 1000; trial++) {
+                var next = (trial % 2 == 0) ? map.plus(random.nextInt(1 << 16), trial)
+                        : map.minus(map.select(random.nextInt(map.size())));
+                int copied = next.entriesNotIn(map);
+                assertTrue(copied + " > " + bound, copied <= bound);
+                map = next;
+            }
+        }
+
+        // changes to the mutable copy do not reach the persistent map
+        public void testToTreeMapDoesNotLeak() {
+            var map = new PersistentTreeMap<Integer, String>();
+            for (int i = 0; i < 100; i++) {
+                map = map.plus(i, "v" + i);
+            }
+            var expected = new java.util.TreeMap<>(map);
+            var copy = map.toTreeMap();
+            var other = map.toTreeMap();
+            copy.put(200, "new");
+            copy.put(5, "changed");
+            copy.remove(10);
+            copy.pollFirstEntry();
+            copy.pollLastEntry();
+            copy.ceilingEntry(50).setValue("ceiling");
+            copy.entrySet().iterator().next().setValue("iterated");
+            var cursor = copy.cursor();
+            cursor.seek(60);
+            cursor.setValue("cursor");
+            var it = copy.keySet().iterator();
+            it.next();
+            it.remove();
+            copy.checkInvariants();
+
+            assertEquals(expected, map);
+            assertEquals(expected, other);
+            assertEquals("ceiling", copy.get(50));
+            assertEquals("cursor", copy.get(60));
+            assertEquals(expected.size() - 3, copy.size());
+            copy.clear();
+            assertEquals(expected, map);
+        }
+    }
+}
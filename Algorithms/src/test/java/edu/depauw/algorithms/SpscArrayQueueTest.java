@@ -0,0 +1,149 @@
+package edu.depauw.algorithms;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class SpscArrayQueueTest {
+    public static Test suite() {
+        return new SpscArrayQueueTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.SpscArrayQueueTest");
+        suite.addTest(new TestSuite(QueueTests.class));
+        suite.addTest(new TestSuite(StressTest.class));
+        return suite;
+    }
+
+    public static class QueueTests extends TestCase {
+        public void testFifoAndFull() {
+            var queue = new SpscArrayQueue<Integer>(5);
+            assertEquals(5, queue.capacity());
+            assertNull(queue.poll());
+            assertNull(queue.peek());
+            // wrap the counters around the array several times
+            for (int round = 0; round < 10; round++) {
+                for (int i = 0; i < 5; i++) {
+                    assertTrue(queue.offer(round * 5 + i));
+                }
+                assertFalse(queue.offer(-1));
+                assertEquals(5, queue.size());
+                for (int i = 0; i < 5; i++) {
+                    assertEquals(round * 5 + i, queue.peek().intValue());
+                    assertEquals(round * 5 + i, queue.poll().intValue());
+                }
+                assertTrue(queue.isEmpty());
+            }
+        }
+
+        public void testRejectsNull() {
+            var queue = new SpscArrayQueue<Integer>(4);
+            try {
+                queue.offer(null);
+                fail();
+            } catch (NullPointerException e) {
+                // expected
+            }
+            try {
+                queue.offerBatch(new Integer[] { 1, null }, 0, 2);
+                fail();
+            } catch (NullPointerException e) {
+                // expected
+            }
+            assertTrue(queue.isEmpty());
+        }
+
+        public void testBatches() {
+            var queue = new SpscArrayQueue<Integer>(6);
+            Integer[] a = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+            assertEquals(3, queue.offerBatch(a, 0, 3));
+            List<Integer> out = new ArrayList<>();
+            assertEquals(2, queue.drain(out::add, 2));
+            // the next batch wraps around the end of the array, and is cut short
+            assertEquals(5, queue.offerBatch(a, 3, 10));
+            assertEquals(6, queue.size());
+            assertEquals(6, queue.drain(out::add, 100));
+            assertEquals(0, queue.drain(out::add, 100));
+            assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7), out);
+        }
+
+        public void testDrainThrows() {
+            var queue = new SpscArrayQueue<Integer>(8);
+            for (int i = 0; i < 8; i++) {
+                queue.offer(i);
+            }
+            try {
+                queue.drain(e -> {
+                    if (e == 3) {
+                        throw new IllegalStateException();
+                    }
+                }, 8);
+                fail();
+            } catch (IllegalStateException e) {
+                // expected
+            }
+            assertEquals(4, queue.size());
+            assertEquals(4, queue.poll().intValue());
+            assertTrue(queue.offer(8));
+        }
+    }
+
+    public static class StressTest extends TestCase {
+        private static final int COUNT = 2_000_000;
+
+        public void testTransferInOrder() throws InterruptedException {
+            var queue = new SpscArrayQueue<Integer>(100);
+            var failure = new AtomicReference<Throwable>();
+            var producer = new Thread(() -> {
+                try {
+                    Integer[] batch = new Integer[17];
+                    int i = 0;
+                    while (i < COUNT) {
+                        if (i % 3 == 0) {
+                            int n = Math.min(batch.length, COUNT - i);
+                            for (int k = 0; k < n; k++) {
+                                batch[k] = i + k;
+                            }
+                            int added = queue.offerBatch(batch, 0, n);
+                            i += added;
+                            if (added == 0) {
+                                Thread.yield();
+                            }
+                        } else if (queue.offer(i)) {
+                            i++;
+                        } else {
+                            Thread.yield();
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            producer.start();
+
+            int[] expected = { 0 };
+            while (expected[0] < COUNT && producer.isAlive() || !queue.isEmpty()) {
+                if (expected[0] % 2 == 0) {
+                    queue.drain(e -> assertEquals(expected[0]++, e.intValue()), 13);
+                } else {
+                    Integer e = queue.poll();
+                    if (e != null) {
+                        assertEquals(expected[0]++, e.intValue());
+                    } else {
+                        Thread.yield();
+                    }
+                }
+            }
+            producer.join();
+            if (failure.get() != null) {
+                throw new AssertionError(failure.get());
+            }
+            assertEquals(COUNT, expected[0]);
+        }
+    }
+}
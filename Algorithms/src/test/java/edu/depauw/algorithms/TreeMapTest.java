@@ -1,7 +1,16 @@
 package edu.depauw.algorithms;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.SortedMap;
+import java.util.Spliterator;
+import java.util.function.Supplier;
 
 import com.google.common.collect.testing.NavigableMapTestSuiteBuilder;
 import com.google.common.collect.testing.TestStringSortedMapGenerator;
@@ -10,6 +19,7 @@ import com.google.common.collect.testing.features.CollectionSize;
 import com.google.common.collect.testing.features.MapFeature;
 
 import junit.framework.Test;
+import junit.framework.TestCase;
 import junit.framework.TestSuite;
 
 public class TreeMapTest {
@@ -20,6 +30,12 @@ public class TreeMapTest {
     private Test allTests() {
         TestSuite suite = new TestSuite("edu.depauw.algorithms.TreeMapTest");
         suite.addTest(testGeneratedTests());
+        suite.addTest(testSnapshotTests());
+        suite.addTest(new TestSuite(SpliteratorTests.class));
+        suite.addTest(new TestSuite(RankTests.class));
+        suite.addTest(new TestSuite(FromSortedTests.class));
+        suite.addTest(new TestSuite(CursorTests.class));
+        suite.addTest(new TestSuite(SnapshotTests.class));
         return suite;
     }
 
@@ -30,6 +46,27 @@ public class TreeMapTest {
                 .createTestSuite();
     }
 
+    // every entry of the map is shared with a snapshot, so each change copies
+    private Test testSnapshotTests() {
+        return NavigableMapTestSuiteBuilder.using(new SnapshotTreeMapGenerator())
+                .named("generated TreeMap tests after snapshot")
+                .withFeatures(MapFeature.GENERAL_PURPOSE, MapFeature.ALLOWS_NULL_VALUES,
+                        CollectionFeature.SUPPORTS_ITERATOR_REMOVE, CollectionFeature.KNOWN_ORDER, CollectionSize.ANY)
+                .createTestSuite();
+    }
+
+    private static class SnapshotTreeMapGenerator extends TestStringSortedMapGenerator {
+        @Override
+        protected SortedMap<String, String> create(Entry<String, String>[] entries) {
+            var map = new edu.depauw.algorithms.TreeMap<String, String>();
+            for (var entry : entries) {
+                map.put(entry.getKey(), entry.getValue());
+            }
+            map.snapshot();
+            return map;
+        }
+    }
+
     private static class TreeMapGenerator extends TestStringSortedMapGenerator {
         @Override
         protected SortedMap<String, String> create(Entry<String, String>[] entries) {
@@ -41,4 +78,723 @@ public class TreeMapTest {
             return map;
         }
     }
-}
\ No newline at end of file
+
+    public static class SpliteratorTests extends TestCase {
+        private final edu.depauw.algorithms.TreeMap<Integer, Integer> map = new edu.depauw.algorithms.TreeMap<>();
+
+        @Override
+        protected void setUp() {
+            for (int i = 0; i < 100_000; i++) {
+                map.put(i, i);
+            }
+        }
+
+        public void testWholeMap() {
+            checkSplits(map);
+            checkSplits(map.descendingMap());
+        }
+
+        public void testBoundedViews() {
+            checkSplits(map.subMap(12345, true, 67890, false));
+            checkSplits(map.subMap(12345, false, 67890, true).descendingMap());
+            checkSplits(map.headMap(777, true));
+            checkSplits(map.tailMap(99_000, false));
+            checkSplits(map.subMap(50_000, true, 50_020, true));
+        }
+
+        // split recursively until no more splits are possible: every split
+        // must leave each side at least a quarter of the elements, so the
+        // splits are at most about log_{4/3} n deep, and the pieces must
+        // together hold the elements of the view in order
+        private void checkSplits(NavigableMap<Integer, Integer> view) {
+            var pieces = new ArrayList<Integer>();
+            int depth = split(view.keySet().spliterator(), pieces);
+            assertEquals(new ArrayList<>(view.keySet()), pieces);
+            int n = view.size();
+            assertTrue("split depth " + depth, depth <= 2 * (32 - Integer.numberOfLeadingZeros(n)));
+        }
+
+        private int split(Spliterator<Integer> spliterator, List<Integer> pieces) {
+            long n = spliterator.estimateSize();
+            Spliterator<Integer> prefix = spliterator.trySplit();
+            if (prefix == null) {
+                spliterator.forEachRemaining(pieces::add);
+                return 0;
+            }
+            long a = prefix.estimateSize();
+            long b = spliterator.estimateSize();
+            assertEquals(n, a + b);
+            if (n >= 16) {
+                assertTrue(a + "/" + b, 4 * Math.min(a, b) >= n - 4);
+            }
+            return 1 + Math.max(split(prefix, pieces), split(spliterator, pieces));
+        }
+    }
+
+    public static class RankTests extends TestCase {
+        // mixed puts, removes, and polls from both ends, checked against
+        // java.util.TreeMap
+        public void testRandomRankAndSelect() {
+            var random = new Random(13);
+            var map = new edu.depauw.algorithms.TreeMap<Integer, Integer>();
+            var expected = new java.util.TreeMap<Integer, Integer>();
+            for (int i = 0; i < 20_000; i++) {
+                int key = random.nextInt(2000);
+                int op = random.nextInt(10);
+                if (op < 5) {
+                    assertEquals(expected.put(key, i), map.put(key, i));
+                } else if (op < 8) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else if (op == 8) {
+                    assertEquals(expected.pollFirstEntry(), map.pollFirstEntry());
+                } else {
+                    assertEquals(expected.pollLastEntry(), map.pollLastEntry());
+                }
+                // present and absent keys, and keys outside the range of the map
+                int probe = random.nextInt(2010) - 5;
+                assertEquals(expected.headMap(probe).size(), map.rank(probe));
+                if (!expected.isEmpty()) {
+                    int index = random.nextInt(expected.size());
+                    assertEquals(new ArrayList<>(expected.keySet()).get(index), map.select(index));
+                }
+                if (i % 500 == 0) {
+                    map.checkInvariants();
+                    int index = 0;
+                    for (int k : expected.keySet()) {
+                        assertEquals(index, map.rank(k));
+                        assertEquals(k, map.select(index).intValue());
+                        index++;
+                    }
+                }
+            }
+        }
+
+        public void testSelectOutOfRange() {
+            var map = new edu.depauw.algorithms.TreeMap<Integer, Integer>();
+            checkSelectThrows(map, 0);
+            for (int i = 0; i < 10; i++) {
+                map.put(i, i);
+            }
+            checkSelectThrows(map, -1);
+            checkSelectThrows(map, 10);
+            checkSelectThrows(map, Integer.MIN_VALUE);
+            assertEquals(0, map.rank(-100));
+            assertEquals(10, map.rank(100));
+            try {
+                map.rank(null);
+                fail();
+            } catch (NullPointerException e) {
+                // expected
+            }
+        }
+
+        private void checkSelectThrows(edu.depauw.algorithms.TreeMap<Integer, Integer> map, int index) {
+            try {
+                map.select(index);
+                fail("select(" + index + ")");
+            } catch (IndexOutOfBoundsException e) {
+                // expected
+            }
+        }
+
+        // every combination of inclusive and exclusive bounds, in both
+        // directions, on bounds that are and are not keys of the map
+        public void testSubMapSizes() {
+            var random = new Random(130);
+            var map = new edu.depauw.algorithms.TreeMap<Integer, Integer>();
+            var expected = new java.util.TreeMap<Integer, Integer>();
+            for (int i = 0; i < 500; i++) {
+                int key = random.nextInt(1000);
+                map.put(key, i);
+                expected.put(key, i);
+            }
+            for (int trial = 0; trial < 500; trial++) {
+                int lo = random.nextInt(1010) - 5;
+                int hi = lo + random.nextInt(1010 - lo);
+                for (int bounds = 0; bounds < 4; bounds++) {
+                    boolean loInclusive = (bounds & 1) != 0;
+                    boolean hiInclusive = (bounds & 2) != 0;
+                    int size = expected.subMap(lo, loInclusive, hi, hiInclusive).size();
+                    NavigableMap<Integer, Integer> sub = map.subMap(lo, loInclusive, hi, hiInclusive);
+                    assertEquals(size, sub.size());
+                    assertEquals(size, sub.descendingMap().size());
+                    assertEquals(size, map.descendingMap().subMap(hi, hiInclusive, lo, loInclusive).size());
+                    assertEquals(expected.headMap(hi, hiInclusive).size(), map.headMap(hi, hiInclusive).size());
+                    assertEquals(expected.tailMap(lo, loInclusive).size(), map.tailMap(lo, loInclusive).size());
+                    assertEquals(expected.tailMap(lo, loInclusive).size(),
+                            map.descendingMap().headMap(lo, loInclusive).size());
+                    // a view of a view narrows both bounds
+                    int mid = lo + (hi - lo) / 2;
+                    if (lo < mid) {
+                        assertEquals(expected.subMap(lo, loInclusive, mid, hiInclusive).size(),
+                                sub.headMap(mid, hiInclusive).size());
+                    }
+                }
+            }
+        }
+    }
+
+    public static class FromSortedTests extends TestCase {
+        // each way of building from sorted input, for every size up to a few
+        // thousand, which covers every mix of 2-nodes and 3-nodes in the
+        // bottom levels
+        public void testEverySize() {
+            var source = new java.util.TreeMap<Integer, String>();
+            for (int n = 0; n <= 3000; n++) {
+                Integer[] keys = source.keySet().toArray(new Integer[0]);
+                String[] values = source.values().toArray(new String[0]);
+                check(source, edu.depauw.algorithms.TreeMap.fromSorted(keys, values, null));
+                check(source, edu.depauw.algorithms.TreeMap.fromSorted(source.entrySet().iterator(),
+                        Comparator.naturalOrder()));
+                check(source, new edu.depauw.algorithms.TreeMap<>(source));
+                var map = new edu.depauw.algorithms.TreeMap<Integer, String>();
+                map.putAll(source);
+                check(source, map);
+                source.put(2 * n, "v" + n);
+            }
+        }
+
+        private void check(SortedMap<Integer, String> expected, edu.depauw.algorithms.TreeMap<Integer, String> map) {
+            map.checkInvariants();
+            assertEquals(expected.size(), map.size());
+            assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(map.entrySet()));
+        }
+
+        public void testUnsortedInput() {
+            checkRejected(new Integer[] { 1, 3, 2 });
+            checkRejected(new Integer[] { 1, 2, 2, 3 });
+            checkRejected(new Integer[] { 2, 1 });
+            try {
+                edu.depauw.algorithms.TreeMap.fromSorted(new Integer[] { 1, 2 }, new String[] { "a" }, null);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            // in the order of the given comparator, not the natural order
+            var reversed = edu.depauw.algorithms.TreeMap.fromSorted(new Integer[] { 3, 2, 1 },
+                    new String[] { "c", "b", "a" }, Comparator.<Integer>reverseOrder());
+            reversed.checkInvariants();
+            assertEquals(List.of(3, 2, 1), new ArrayList<>(reversed.keySet()));
+            try {
+                edu.depauw.algorithms.TreeMap.fromSorted(new Integer[] { 1, 2 }, new String[] { "a", "b" },
+                        Comparator.<Integer>reverseOrder());
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        private void checkRejected(Integer[] keys) {
+            String[] values = new String[keys.length];
+            try {
+                edu.depauw.algorithms.TreeMap.fromSorted(keys, values, null);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            var entries = new ArrayList<Map.Entry<Integer, String>>();
+            for (Integer key : keys) {
+                entries.add(Map.entry(key, "v"));
+            }
+            try {
+                edu.depauw.algorithms.TreeMap.fromSorted(entries.iterator(), null);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        // a sorted map in another order must be inserted key by key
+        public void testPutAllOtherOrder() {
+            var source = new java.util.TreeMap<Integer, String>(Comparator.reverseOrder());
+            var expected = new java.util.TreeMap<Integer, String>();
+            for (int i = 0; i < 1000; i++) {
+                source.put(i, "v" + i);
+                expected.put(i, "v" + i);
+            }
+            var map = new edu.depauw.algorithms.TreeMap<Integer, String>();
+            map.putAll(source);
+            check(expected, map);
+
+            // the constructor takes the ordering of the sorted map along with it
+            var copy = new edu.depauw.algorithms.TreeMap<>(source);
+            check(source, copy);
+            assertSame(source.comparator(), copy.comparator());
+        }
+
+        // the fast path is only for an empty map
+        public void testPutAllIntoNonEmpty() {
+            var source = new java.util.TreeMap<Integer, String>();
+            var expected = new java.util.TreeMap<Integer, String>();
+            var map = new edu.depauw.algorithms.TreeMap<Integer, String>();
+            for (int i = 0; i < 1000; i++) {
+                source.put(2 * i, "s" + i);
+                expected.put(2 * i, "s" + i);
+                if (i % 3 == 0) {
+                    map.put(i, "m" + i);
+                    expected.putIfAbsent(i, "m" + i);
+                }
+            }
+            map.putAll(source);
+            check(expected, map);
+        }
+    }
+
+    public static class CursorTests extends TestCase {
+        private final edu.depauw.algorithms.TreeMap<Integer, String> map = new edu.depauw.algorithms.TreeMap<>();
+
+        // the even keys from 0 to 198
+        @Override
+        protected void setUp() {
+            for (int i = 0; i < 100; i++) {
+                map.put(2 * i, "v" + 2 * i);
+            }
+        }
+
+        public void testSeek() {
+            var cursor = map.cursor();
+            assertTrue(cursor.seek(40));
+            assertEquals(40, cursor.key().intValue());
+            assertEquals("v40", cursor.value());
+            // an absent key finds the next greater one
+            assertTrue(cursor.seek(41));
+            assertEquals(42, cursor.key().intValue());
+            assertTrue(cursor.seek(-5));
+            assertEquals(0, cursor.key().intValue());
+            assertTrue(cursor.seek(198));
+            assertEquals(198, cursor.key().intValue());
+            assertFalse(cursor.seek(199));
+            checkOffTheEnd(cursor);
+            // a seek places the cursor again
+            assertTrue(cursor.seek(100));
+            assertEquals(100, cursor.key().intValue());
+        }
+
+        public void testRunsAndTurns() {
+            var cursor = map.cursor();
+            assertTrue(cursor.seek(100));
+            for (int k = 102; k <= 120; k += 2) {
+                assertTrue(cursor.next());
+                assertEquals(k, cursor.key().intValue());
+            }
+            // turning around seeks the other walk from the current key
+            for (int k = 118; k >= 80; k -= 2) {
+                assertTrue(cursor.prev());
+                assertEquals(k, cursor.key().intValue());
+            }
+            // and turning back seeks the ascending walk again
+            for (int k = 82; k <= 90; k += 2) {
+                assertTrue(cursor.next());
+                assertEquals(k, cursor.key().intValue());
+            }
+            assertTrue(cursor.prev());
+            assertEquals(88, cursor.key().intValue());
+            assertTrue(cursor.next());
+            assertEquals(90, cursor.key().intValue());
+        }
+
+        public void testFullWalks() {
+            var cursor = map.cursor();
+            var keys = new ArrayList<Integer>();
+            for (boolean more = cursor.seekFirst(); more; more = cursor.next()) {
+                keys.add(cursor.key());
+            }
+            assertEquals(new ArrayList<>(map.keySet()), keys);
+            checkOffTheEnd(cursor);
+
+            keys.clear();
+            for (boolean more = cursor.seekLast(); more; more = cursor.prev()) {
+                keys.add(cursor.key());
+            }
+            assertEquals(new ArrayList<>(map.descendingKeySet()), keys);
+            checkOffTheEnd(cursor);
+        }
+
+        public void testEmptyMap() {
+            var cursor = new edu.depauw.algorithms.TreeMap<Integer, String>().cursor();
+            checkOffTheEnd(cursor);
+            assertFalse(cursor.seekFirst());
+            checkOffTheEnd(cursor);
+            assertFalse(cursor.seekLast());
+            checkOffTheEnd(cursor);
+            assertFalse(cursor.seek(0));
+            checkOffTheEnd(cursor);
+        }
+
+        public void testSetValue() {
+            var cursor = map.cursor();
+            assertTrue(cursor.seek(50));
+            assertEquals("v50", cursor.setValue("x"));
+            assertEquals("x", cursor.value());
+            assertEquals("x", map.get(50));
+        }
+
+        // the entry is shared with a snapshot, so setValue puts a copy in the
+        // map, and the cursor moves on from the copy
+        public void testSetValueAfterSnapshot() {
+            var snapshot = map.snapshot();
+            var cursor = map.cursor();
+            assertTrue(cursor.seek(50));
+            assertEquals("v50", cursor.setValue("x"));
+            assertEquals("x", cursor.value());
+            assertEquals("x", map.get(50));
+            assertEquals("v50", snapshot.get(50));
+
+            assertTrue(cursor.next());
+            assertEquals(52, cursor.key().intValue());
+            assertEquals("v52", cursor.setValue("y"));
+            assertTrue(cursor.prev());
+            assertEquals(50, cursor.key().intValue());
+            assertEquals("x", cursor.setValue("z"));
+            assertTrue(cursor.prev());
+            assertEquals(48, cursor.key().intValue());
+            assertEquals("z", map.get(50));
+            assertEquals("y", map.get(52));
+            assertEquals("v50", snapshot.get(50));
+            assertEquals("v52", snapshot.get(52));
+            map.checkInvariants();
+        }
+
+        // the cursor is at no entry: it reads nothing and does not move
+        private void checkOffTheEnd(edu.depauw.algorithms.TreeMap<Integer, String>.Cursor cursor) {
+            try {
+                cursor.key();
+                fail();
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            try {
+                cursor.value();
+                fail();
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            try {
+                cursor.setValue("x");
+                fail();
+            } catch (NoSuchElementException e) {
+                // expected
+            }
+            assertFalse(cursor.next());
+            assertFalse(cursor.prev());
+        }
+    }
+
+    public static class SnapshotTests extends TestCase {
+        private final edu.depauw.algorithms.TreeMap<Integer, String> map = new edu.depauw.algorithms.TreeMap<>();
+
+        @Override
+        protected void setUp() {
+            for (int i = 0; i < 100; i++) {
+                map.put(i, "v" + i);
+            }
+        }
+
+        // the entries from the navigation methods write through, whether or
+        // not they are shared with a snapshot
+        public void testNavigationEntrySetValue() {
+            checkNavigationEntries(null);
+            checkNavigationEntries(map.snapshot());
+        }
+
+        private void checkNavigationEntries(PersistentTreeMap<Integer, String> snapshot) {
+            var entries = List.of(map.firstEntry(), map.lastEntry(), map.ceilingEntry(10), map.floorEntry(20),
+                    map.lowerEntry(30), map.higherEntry(40));
+            var keys = List.of(0, 99, 10, 20, 29, 41);
+            for (int i = 0; i < entries.size(); i++) {
+                int key = keys.get(i);
+                var entry = entries.get(i);
+                assertEquals(key, entry.getKey().intValue());
+                String old = map.get(key);
+                assertEquals(old, entry.setValue(old + "x"));
+                assertEquals(old + "x", entry.getValue());
+                assertEquals(old + "x", map.get(key));
+                if (snapshot != null) {
+                    assertEquals(old, snapshot.get(key));
+                }
+            }
+            map.checkInvariants();
+        }
+
+        // snapshots taken between random changes keep their contents, however
+        // the map is changed afterwards
+        public void testSnapshotsKeepContents() {
+            var random = new Random(20);
+            var expected = new java.util.TreeMap<>(map);
+            var snapshots = new ArrayList<PersistentTreeMap<Integer, String>>();
+            var contents = new ArrayList<java.util.TreeMap<Integer, String>>();
+            for (int i = 0; i < 3000; i++) {
+                if (i % 50 == 0) {
+                    snapshots.add(map.snapshot());
+                    contents.add(new java.util.TreeMap<>(expected));
+                }
+                int key = random.nextInt(200);
+                String value = "w" + i;
+                switch (random.nextInt(8)) {
+                case 0, 1 -> assertEquals(expected.put(key, value), map.put(key, value));
+                case 2 -> assertEquals(expected.remove(key), map.remove(key));
+                case 3 -> assertEquals(expected.pollFirstEntry(), map.pollFirstEntry());
+                case 4 -> assertEquals(expected.pollLastEntry(), map.pollLastEntry());
+                case 5 -> {
+                    var entry = map.ceilingEntry(key);
+                    if (entry != null) {
+                        expected.put(entry.getKey(), value);
+                        entry.setValue(value);
+                    }
+                }
+                case 6 -> {
+                    var it = map.entrySet().iterator();
+                    for (int j = random.nextInt(10); j > 0 && it.hasNext(); j--) {
+                        it.next();
+                    }
+                    if (it.hasNext()) {
+                        var entry = it.next();
+                        expected.put(entry.getKey(), value);
+                        entry.setValue(value);
+                    }
+                }
+                default -> {
+                    var it = map.keySet().iterator();
+                    if (it.hasNext()) {
+                        expected.remove(it.next());
+                        it.remove();
+                    }
+                }
+                }
+            }
+            map.checkInvariants();
+            assertEquals(expected, map);
+            for (int i = 0; i < snapshots.size(); i++) {
+                assertEquals(new ArrayList<>(contents.get(i).entrySet()),
+                        new ArrayList<>(snapshots.get(i).entrySet()));
+            }
+        }
+
+        // after a snapshot, each update of the map copies O(log n) entries
+        public void testUpdatesCopyLogarithmicEntries() {
+            var random = new Random(200);
+            var map = new edu.depauw.algorithms.TreeMap<Integer, Integer>();
+            for (int i = 0; i < 1 << 14; i++) {
+                map.put(random.nextInt(1 << 16), i);
+            }
+            int bound = 6 * (32 - Integer.numberOfLeadingZeros(map.size()));
+            for (int trial = 0; trial < 500; trial++) {
+                var snapshot = map.snapshot();
+                switch (trial % 4) {
+                case 0 -> map.put(random.nextInt(1 << 16), trial);
+                case 1 -> map.remove(map.select(random.nextInt(map.size())));
+                case 2 -> map.pollFirstEntry();
+                default -> map.pollLastEntry();
+                }
+                int copied = map.entriesNotIn(snapshot.toTreeMap());
+                assertTrue(copied + " > " + bound, copied <= bound);
+            }
+            map.checkInvariants();
+        }
+    }
+
+    /**
+     * Times put, get, and floorKey on random Integer keys in this TreeMap, in
+     * java.util.TreeMap, and in {@link RecursiveTreeMap}, which has the
+     * recursive put and lookups that TreeMap had before they were made
+     * iterative. Each time is the best of several runs.
+     *
+     * @param args optionally, the number of keys and the number of runs
+     */
+    public static void main(String[] args) {
+        int n = (args.length > 0) ? Integer.parseInt(args[0]) : 100_000;
+        int runs = (args.length > 1) ? Integer.parseInt(args[1]) : 7;
+        var random = new Random(15);
+        Integer[] keys = new Integer[n];
+        Integer[] probes = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = random.nextInt();
+            probes[i] = random.nextInt();
+        }
+
+        System.out.printf("%d random Integer keys, best of %d runs%n", n, runs);
+        System.out.printf("%-14s %10s %10s %10s %14s%n", "", "insert", "get", "floorKey", "put (update)");
+        time("recursive", runs, keys, probes, () -> {
+            var map = new RecursiveTreeMap<Integer, Integer>();
+            return new Subject(map::put, map::get, map::floorKey);
+        });
+        time("TreeMap", runs, keys, probes, () -> {
+            var map = new edu.depauw.algorithms.TreeMap<Integer, Integer>();
+            return new Subject(map::put, map::get, map::floorKey);
+        });
+        time("java.util", runs, keys, probes, () -> {
+            var map = new java.util.TreeMap<Integer, Integer>();
+            return new Subject(map::put, map::get, map::floorKey);
+        });
+    }
+
+    private record Subject(java.util.function.BinaryOperator<Integer> put,
+            java.util.function.UnaryOperator<Integer> get, java.util.function.UnaryOperator<Integer> floorKey) {
+    }
+
+    private static void time(String name, int runs, Integer[] keys, Integer[] probes, Supplier<Subject> maps) {
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        long check = 0;
+        for (int run = 0; run < runs; run++) {
+            Subject map = maps.get();
+            long[] times = new long[4];
+            long start = System.nanoTime();
+            for (Integer key : keys) {
+                map.put().apply(key, key);
+            }
+            times[0] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : probes) {
+                Integer value = map.get().apply(key);
+                check += (value == null) ? 0 : value;
+            }
+            times[1] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : probes) {
+                Integer floor = map.floorKey().apply(key);
+                check += (floor == null) ? 0 : floor;
+            }
+            times[2] = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (Integer key : keys) {
+                Integer old = map.put().apply(key, key);
+                check += old;
+            }
+            times[3] = System.nanoTime() - start;
+            for (int i = 0; i < 4; i++) {
+                best[i] = Math.min(best[i], times[i]);
+            }
+        }
+        System.out.printf("%-14s %7d ms %7d ms %7d ms %11d ms   (checksum %d)%n", name, best[0] / 1_000_000,
+                best[1] / 1_000_000, best[2] / 1_000_000, best[3] / 1_000_000, check);
+    }
+
+    /**
+     * The put, get, and floorKey of TreeMap as they were before they were made
+     * iterative: each is a recursive descent, and an insertion searches once to
+     * check for the key and then again to insert it, fixing the tree up on the
+     * way out of every level. It is kept here only as the baseline for
+     * {@link TreeMapTest#main(String[])}.
+     */
+    private static final class RecursiveTreeMap<K extends Comparable<? super K>, V> {
+        private Node<K, V> root;
+
+        private static final class Node<K, V> {
+            final K key;
+            V value;
+            Node<K, V> left, right;
+            boolean red = true;
+            int size = 1;
+
+            Node(K key, V value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+
+        V get(K key) {
+            var node = getNode(root, key);
+            return (node == null) ? null : node.value;
+        }
+
+        private Node<K, V> getNode(Node<K, V> node, K key) {
+            if (node != null) {
+                int compare = key.compareTo(node.key);
+                if (compare < 0) {
+                    return getNode(node.left, key);
+                } else if (compare > 0) {
+                    return getNode(node.right, key);
+                } else {
+                    return node;
+                }
+            }
+            return null;
+        }
+
+        V put(K key, V value) {
+            var node = getNode(root, key);
+            if (node != null) {
+                var oldValue = node.value;
+                node.value = value;
+                return oldValue;
+            }
+            root = putNew(root, key, value);
+            root.red = false;
+            return null;
+        }
+
+        private Node<K, V> putNew(Node<K, V> node, K key, V value) {
+            if (node == null) {
+                return new Node<>(key, value);
+            }
+            if (key.compareTo(node.key) < 0) {
+                node.left = putNew(node.left, key, value);
+            } else {
+                node.right = putNew(node.right, key, value);
+            }
+            if (isRed(node.right) && !isRed(node.left)) {
+                node = rotateLeft(node);
+            }
+            if (isRed(node.left) && isRed(node.left.left)) {
+                node = rotateRight(node);
+            }
+            if (isRed(node.left) && isRed(node.right)) {
+                node.red = !node.red;
+                node.left.red = !node.left.red;
+                node.right.red = !node.right.red;
+            }
+            node.size = size(node.left) + size(node.right) + 1;
+            return node;
+        }
+
+        K floorKey(K key) {
+            var node = floor(root, key);
+            return (node == null) ? null : node.key;
+        }
+
+        private Node<K, V> floor(Node<K, V> node, K key) {
+            if (node == null) {
+                return null;
+            }
+            int compare = key.compareTo(node.key);
+            if (compare == 0) {
+                return node;
+            }
+            if (compare < 0) {
+                return floor(node.left, key);
+            }
+            var t = floor(node.right, key);
+            return (t != null) ? t : node;
+        }
+
+        private boolean isRed(Node<K, V> node) {
+            return node != null && node.red;
+        }
+
+        private int size(Node<K, V> node) {
+            return (node == null) ? 0 : node.size;
+        }
+
+        private Node<K, V> rotateRight(Node<K, V> node) {
+            var x = node.left;
+            node.left = x.right;
+            x.right = node;
+            x.red = node.red;
+            node.red = true;
+            x.size = node.size;
+            node.size = size(node.left) + size(node.right) + 1;
+            return x;
+        }
+
+        private Node<K, V> rotateLeft(Node<K, V> node) {
+            var x = node.right;
+            node.right = x.left;
+            x.left = node;
+            x.red = node.red;
+            node.red = true;
+            x.size = node.size;
+            node.size = size(node.left) + size(node.right) + 1;
+            return x;
+        }
+    }
+}
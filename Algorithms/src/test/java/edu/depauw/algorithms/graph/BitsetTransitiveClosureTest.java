@@ -0,0 +1,70 @@
+package edu.depauw.algorithms.graph;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class BitsetTransitiveClosureTest {
+    public static Test suite() {
+        return new BitsetTransitiveClosureTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.graph.BitsetTransitiveClosureTest");
+        suite.addTest(new TestSuite(ClosureTests.class));
+        return suite;
+    }
+
+    public static class ClosureTests extends TestCase {
+        public void testRandomDigraphs() {
+            Random random = new Random(7);
+            for (int trial = 0; trial < 100; trial++) {
+                // from sparse graphs with hundreds of components, so that the
+                // rows take several words, to dense ones with a few large cycles
+                int V = 1 + random.nextInt(300);
+                int E = random.nextInt(3 * V);
+                checkAgainstDFS(randomDigraph(V, E, random));
+            }
+        }
+
+        public void testSelfLoopsAndCycles() {
+            Random random = new Random(77);
+            Digraph G = randomDigraph(200, 150, random);
+            for (int v = 0; v < G.V(); v += 3) {
+                G.addEdge(v, v);
+            }
+            // a cycle through every tenth vertex, which merges their components
+            for (int v = 0; v + 10 < G.V(); v += 10) {
+                G.addEdge(v, v + 10);
+            }
+            G.addEdge(190, 0);
+            checkAgainstDFS(G);
+        }
+
+        public void testEmptyAndEdgeless() {
+            checkAgainstDFS(new Digraph(0));
+            checkAgainstDFS(new Digraph(130));
+        }
+    }
+
+    private static Digraph randomDigraph(int V, int E, Random random) {
+        Digraph G = new Digraph(V);
+        for (int i = 0; i < E; i++) {
+            G.addEdge(random.nextInt(V), random.nextInt(V));
+        }
+        return G;
+    }
+
+    // compare every pair with a depth-first search from each vertex
+    private static void checkAgainstDFS(Digraph G) {
+        BitsetTransitiveClosure tc = new BitsetTransitiveClosure(G);
+        for (int v = 0; v < G.V(); v++) {
+            DFSConnected dfs = new DFSConnected(G, v);
+            for (int w = 0; w < G.V(); w++) {
+                TestCase.assertEquals(v + "->" + w, dfs.marked(w), tc.reachable(v, w));
+            }
+        }
+    }
+}
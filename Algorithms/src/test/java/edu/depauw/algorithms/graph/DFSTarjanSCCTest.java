@@ -0,0 +1,169 @@
+package edu.depauw.algorithms.graph;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class DFSTarjanSCCTest {
+    public static Test suite() {
+        return new DFSTarjanSCCTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.graph.DFSTarjanSCCTest");
+        suite.addTest(new TestSuite(SCCTests.class));
+        return suite;
+    }
+
+    public static class SCCTests extends TestCase {
+        public void testMatchesKosarajuSharir() {
+            Random random = new Random(496);
+            for (int trial = 0; trial < 200; trial++) {
+                int V = 1 + random.nextInt(500);
+                int E = random.nextInt(3 * V);
+                Digraph G = randomDigraph(V, E, random);
+                DFSTarjanSCC tarjan = new DFSTarjanSCC(G);
+                DFSKosarajuSharirSCC expected = new DFSKosarajuSharirSCC(G);
+                assertEquals(expected.count(), tarjan.count());
+                // the same partition, up to renumbering
+                int[] rename = new int[tarjan.count()];
+                Arrays.fill(rename, -1);
+                for (int v = 0; v < V; v++) {
+                    int c = tarjan.id(v);
+                    if (rename[c] == -1) {
+                        rename[c] = expected.id(v);
+                    }
+                    assertEquals(expected.id(v), rename[c]);
+                }
+            }
+        }
+
+        public void testScansEachEdgeOnce() {
+            Random random = new Random(10);
+            Digraph G = randomDigraph(2000, 10000, random);
+            assertEquals(G.E(), edgeScans(G)[0]);
+            assertEquals(0, edgeScans(G)[1]);
+        }
+    }
+
+    private static Digraph randomDigraph(int V, int E, Random random) {
+        Digraph G = new Digraph(V);
+        for (int i = 0; i < E; i++) {
+            G.addEdge(random.nextInt(V), random.nextInt(V));
+        }
+        return G;
+    }
+
+    /**
+     * Runs DFSTarjanSCC on G, and returns the number of edges passed to
+     * processEdge and the number of neighbors read from G by the callbacks,
+     * not counting the reads that make the compressed copy for the search.
+     */
+    private static long[] edgeScans(Graph G) {
+        CountingGraph counting = new CountingGraph(G);
+        new CsrGraph(counting);
+        long copyReads = counting.reads;
+
+        counting.reads = 0;
+        long[] processed = { 0 };
+        new DFSTarjanSCC(counting) {
+            @Override
+            public void processEdge(Graph g, int v, int w) {
+                processed[0]++;
+                super.processEdge(g, v, w);
+            }
+        };
+        return new long[] { processed[0], counting.reads - copyReads };
+    }
+
+    // a graph that counts the neighbors read from its adjacency lists
+    private static class CountingGraph implements Graph {
+        private final Graph G;
+        long reads;
+
+        CountingGraph(Graph G) {
+            this.G = G;
+        }
+
+        @Override
+        public int V() {
+            return G.V();
+        }
+
+        @Override
+        public int E() {
+            return G.E();
+        }
+
+        @Override
+        public void addEdge(int v, int w) {
+            G.addEdge(v, w);
+        }
+
+        @Override
+        public Iterable<Integer> adj(int v) {
+            return () -> {
+                Iterator<Integer> it = G.adj(v).iterator();
+                return new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Integer next() {
+                        reads++;
+                        return it.next();
+                    }
+                };
+            };
+        }
+
+        @Override
+        public PrimitiveIterator.OfInt adjInts(int v) {
+            PrimitiveIterator.OfInt it = G.adjInts(v);
+            return new PrimitiveIterator.OfInt() {
+                @Override
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override
+                public int nextInt() {
+                    reads++;
+                    return it.nextInt();
+                }
+            };
+        }
+    }
+
+    /**
+     * Reports the edge examinations and time of DFSTarjanSCC on a random
+     * digraph. Recomputing each low-link from the adjacency list in
+     * visitPostorder would read every edge a second time, so the callbacks'
+     * reads would equal the edges processed.
+     *
+     * @param args optionally, the number of vertices and of edges
+     */
+    public static void main(String[] args) {
+        int V = (args.length > 0) ? Integer.parseInt(args[0]) : 200_000;
+        int E = (args.length > 1) ? Integer.parseInt(args[1]) : 1_000_000;
+        Digraph G = randomDigraph(V, E, new Random(0));
+
+        long[] scans = edgeScans(G);
+        System.out.printf("%d edges: %d passed to processEdge, %d reread by the callbacks%n", E, scans[0],
+                scans[1]);
+
+        CsrGraph C = new CsrGraph(G);
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            new DFSTarjanSCC(C);
+            System.out.printf("DFSTarjanSCC %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+}
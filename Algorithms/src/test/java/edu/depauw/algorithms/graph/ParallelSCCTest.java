@@ -0,0 +1,83 @@
+package edu.depauw.algorithms.graph;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ParallelSCCTest {
+    public static Test suite() {
+        return new ParallelSCCTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.graph.ParallelSCCTest");
+        suite.addTest(new TestSuite(SCCTests.class));
+        return suite;
+    }
+
+    public static class SCCTests extends TestCase {
+        public void testManySmallCycles() {
+            // once overflowed the stack, by solving each remainder recursively
+            int cycles = 50_000;
+            Digraph G = new Digraph(2 * cycles);
+            for (int i = 0; i < cycles; i++) {
+                G.addEdge(2 * i, 2 * i + 1);
+                G.addEdge(2 * i + 1, 2 * i);
+            }
+            ParallelSCC scc = new ParallelSCC(G);
+            assertEquals(cycles, scc.count());
+            for (int i = 0; i < cycles; i++) {
+                assertTrue(scc.stronglyConnected(2 * i, 2 * i + 1));
+            }
+            assertFalse(scc.stronglyConnected(0, 2));
+            assertSameComponents(G, scc);
+        }
+
+        public void testChainOfCycles() {
+            // each split leaves all of the later cycles as the descendants
+            int cycles = 2_000;
+            Digraph G = new Digraph(2 * cycles);
+            for (int i = 0; i < cycles; i++) {
+                G.addEdge(2 * i, 2 * i + 1);
+                G.addEdge(2 * i + 1, 2 * i);
+                if (i + 1 < cycles) {
+                    G.addEdge(2 * i + 1, 2 * i + 2);
+                }
+            }
+            ParallelSCC scc = new ParallelSCC(G);
+            assertEquals(cycles, scc.count());
+            assertSameComponents(G, scc);
+        }
+
+        public void testRandomDigraphs() {
+            Random random = new Random(496);
+            for (int trial = 0; trial < 50; trial++) {
+                int V = 1 + random.nextInt(3000);
+                int E = random.nextInt(2 * V);
+                Digraph G = new Digraph(V);
+                for (int i = 0; i < E; i++) {
+                    G.addEdge(random.nextInt(V), random.nextInt(V));
+                }
+                assertSameComponents(G, new ParallelSCC(G));
+            }
+        }
+
+        // the components must match those of DFSTarjanSCC, up to renumbering
+        private static void assertSameComponents(Digraph G, ParallelSCC scc) {
+            DFSTarjanSCC expected = new DFSTarjanSCC(G);
+            assertEquals(expected.count(), scc.count());
+            int[] rename = new int[scc.count()];
+            Arrays.fill(rename, -1);
+            for (int v = 0; v < G.V(); v++) {
+                int c = scc.id(v);
+                if (rename[c] == -1) {
+                    rename[c] = expected.id(v);
+                }
+                assertEquals(expected.id(v), rename[c]);
+            }
+        }
+    }
+}
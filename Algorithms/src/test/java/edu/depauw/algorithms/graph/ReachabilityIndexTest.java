@@ -0,0 +1,88 @@
+package edu.depauw.algorithms.graph;
+
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+public class ReachabilityIndexTest {
+    public static Test suite() {
+        return new ReachabilityIndexTest().allTests();
+    }
+
+    private Test allTests() {
+        TestSuite suite = new TestSuite("edu.depauw.algorithms.graph.ReachabilityIndexTest");
+        suite.addTest(new TestSuite(IndexTests.class));
+        return suite;
+    }
+
+    public static class IndexTests extends TestCase {
+        public void testRandomDigraphs() {
+            Random random = new Random(8);
+            for (int trial = 0; trial < 100; trial++) {
+                int V = 1 + random.nextInt(300);
+                int E = random.nextInt(3 * V);
+                Digraph G = randomDigraph(V, E, random);
+                // a single label leaves the most queries to the fallback search
+                int d = 1 + trial % 4;
+                checkAgainstClosure(G, new ReachabilityIndex(G, d, random));
+            }
+        }
+
+        public void testRandomDags() {
+            Random random = new Random(88);
+            for (int trial = 0; trial < 50; trial++) {
+                int V = 2 + random.nextInt(300);
+                Digraph G = new Digraph(V);
+                for (int i = random.nextInt(4 * V); i > 0; i--) {
+                    int v = random.nextInt(V);
+                    int w = random.nextInt(V);
+                    if (v != w) {
+                        G.addEdge(Math.min(v, w), Math.max(v, w));
+                    }
+                }
+                checkAgainstClosure(G, new ReachabilityIndex(G, 1 + trial % 3, random));
+            }
+        }
+
+        public void testSelfLoopsAndCycles() {
+            Random random = new Random(888);
+            Digraph G = randomDigraph(200, 250, random);
+            for (int v = 0; v < G.V(); v += 3) {
+                G.addEdge(v, v);
+            }
+            for (int v = 0; v + 10 < G.V(); v += 10) {
+                G.addEdge(v, v + 10);
+            }
+            G.addEdge(190, 0);
+            checkAgainstClosure(G, new ReachabilityIndex(G, 2, random));
+            checkAgainstClosure(G, new ReachabilityIndex(G));
+        }
+
+        public void testEmptyAndEdgeless() {
+            Digraph G = new Digraph(0);
+            checkAgainstClosure(G, new ReachabilityIndex(G));
+            G = new Digraph(50);
+            checkAgainstClosure(G, new ReachabilityIndex(G));
+        }
+    }
+
+    private static Digraph randomDigraph(int V, int E, Random random) {
+        Digraph G = new Digraph(V);
+        for (int i = 0; i < E; i++) {
+            G.addEdge(random.nextInt(V), random.nextInt(V));
+        }
+        return G;
+    }
+
+    // compare every pair with the transitive closure
+    private static void checkAgainstClosure(Digraph G, ReachabilityIndex index) {
+        BitsetTransitiveClosure tc = new BitsetTransitiveClosure(G);
+        for (int v = 0; v < G.V(); v++) {
+            for (int w = 0; w < G.V(); w++) {
+                TestCase.assertEquals(v + "->" + w, tc.reachable(v, w), index.reachable(v, w));
+            }
+        }
+    }
+}